@@ -5,8 +5,12 @@ package com.cgvsu;
 // События: обработка меню, клавиатуры, мыши, перерисовка через AnimationTimer/requestRender.
 
 import com.cgvsu.model.Polygon;
+import com.cgvsu.render_engine.CullMode;
+import com.cgvsu.render_engine.FrameBuffer;
 import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderItem;
 import com.cgvsu.render_engine.RenderingModes;
+import com.cgvsu.render_engine.ShadingMode;
 import com.cgvsu.render_engine.Texture;
 import com.cgvsu.render_engine.Lighting;
 import javafx.fxml.FXML;
@@ -17,18 +21,19 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.canvas.Canvas;
 
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ColorPicker;
 import javafx.scene.paint.Color;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
 import java.io.File;
@@ -37,15 +42,20 @@ import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
 import javafx.scene.canvas.GraphicsContext;
 import com.cgvsu.model.ModelProcessor;
-import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.MeshCacheFormat;
 import com.cgvsu.objwriter.ObjWriter;
 import com.cgvsu.render_engine.Camera;
 import com.cgvsu.render_engine.CameraManager;
 import com.cgvsu.view.CameraViewController;
+import com.cgvsu.controller.ModelLoadTask;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GuiController {
 
@@ -76,6 +86,12 @@ public class GuiController {
     @FXML
     private CheckBox useLightingCheckBox;
 
+    @FXML
+    private ComboBox<CullMode> cullModeSelector;
+
+    @FXML
+    private ComboBox<ShadingMode> shadingModeSelector;
+
     @FXML
     private ColorPicker polygonColorPicker;
 
@@ -89,8 +105,26 @@ public class GuiController {
     @FXML
     private Label modelInfoLabel;
 
+    // Фоновая загрузка модели: прогресс, отмена; одновременно загружается не больше одной модели
+    @FXML
+    private VBox loadProgressBox;
+
+    @FXML
+    private ProgressBar loadProgressBar;
+
+    @FXML
+    private Label loadStatusLabel;
+
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "model-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ModelLoadTask loadTask;
+
     private RenderingModes renderingModes = new RenderingModes();
-    private Texture texture = null;
+    // Текстуры, загруженные для конкретных моделей; модели без текстуры рисуются базовым цветом
+    private final Map<Model, Texture> modelTextures = new IdentityHashMap<>();
     private Lighting lighting = null;
 
     private Color polygonBaseColor = Color.LIGHTGRAY;
@@ -98,6 +132,9 @@ public class GuiController {
     private Color canvasBackgroundColor = Color.WHITE;
     private Color canvasTextColor = Color.BLACK;
 
+    // Кадр рендера: переиспользуется между кадрами, пересоздаётся только при resize
+    private final FrameBuffer frameBuffer = new FrameBuffer(0, 0);
+
     private AnimationTimer renderTimer;
     private boolean renderDirty = true;
     private long lastRenderNs = 0L;
@@ -120,6 +157,11 @@ public class GuiController {
 
     @FXML
     private void initialize() {
+        // Тайловый рендер: по одному потоку растеризации на ядро
+        renderingModes.setRenderThreads(Runtime.getRuntime().availableProcessors());
+        // Reversed-Z: при near/far = 0.01..10000 обычная NDC-глубина теряет точность вдали
+        renderingModes.setReversedZ(true);
+
         // Инициализация: привязка размеров Canvas к AnchorPane + запрос перерисовки при resize
         if (canvas != null && canvasContainer != null) {
             canvas.widthProperty().bind(canvasContainer.widthProperty());
@@ -151,6 +193,26 @@ public class GuiController {
                 requestRender();
             });
         }
+        if (cullModeSelector != null) {
+            cullModeSelector.getItems().setAll(CullMode.values());
+            cullModeSelector.setValue(renderingModes.getCullMode());
+            cullModeSelector.setOnAction(e -> {
+                if (cullModeSelector.getValue() != null) {
+                    renderingModes.setCullMode(cullModeSelector.getValue());
+                    requestRender();
+                }
+            });
+        }
+        if (shadingModeSelector != null) {
+            shadingModeSelector.getItems().setAll(ShadingMode.values());
+            shadingModeSelector.setValue(renderingModes.getShadingMode());
+            shadingModeSelector.setOnAction(e -> {
+                if (shadingModeSelector.getValue() != null) {
+                    renderingModes.setShadingMode(shadingModeSelector.getValue());
+                    requestRender();
+                }
+            });
+        }
 
         // Подписки UI: выбор базового цвета полигона
         if (polygonColorPicker != null) {
@@ -587,15 +649,6 @@ public class GuiController {
     }
 
     private void drawModelInfo(GraphicsContext gc, double width, double height) {
-        // Инфо-панель: количество вершин/полигонов
-        double margin = 20;
-        double x = Math.max(margin, width - 220);
-        double y = Math.max(margin, height - 20);
-
-        gc.setFill(canvasTextColor);
-        gc.fillText("Вершин: " + mesh.getVertices().size(), x, y - 20);
-        gc.fillText("Полигонов: " + mesh.getPolygons().size(), x, y);
-
         Camera activeCamera = cameraManager.getActiveCamera();
         activeCamera.setAspectRatio((float) (width / height));
 
@@ -604,19 +657,33 @@ public class GuiController {
             lighting.update(activeCamera.getPosition(), activeCamera.getTarget(), activeCamera.getViewMatrix());
         }
 
-        // Вызов рендера: Rasterizer + ZBuffer + опционально texture/lighting
-        RenderEngine.render(
+        // Подготовка кадра: фон во FrameBuffer (blit заменяет содержимое Canvas целиком)
+        frameBuffer.resize((int) width, (int) height);
+        frameBuffer.clear(canvasBackgroundColor);
+
+        // Вызов рендера: все загруженные модели в общий FrameBuffer/ZBuffer, у каждой своя текстура
+        List<RenderItem> items = new ArrayList<>(models.size());
+        for (Model model : models) {
+            items.add(new RenderItem(model, modelTextures.get(model), polygonBaseColor));
+        }
+        RenderEngine.renderScene(
                 gc,
+                frameBuffer,
                 activeCamera,
-                mesh,
-                (int) width,
-                (int) height,
-                texture,
+                items,
                 lighting,
-                polygonBaseColor,
                 cameraManager.getAllCameras(),
                 renderingModes
         );
+
+        // Инфо-панель: количество вершин/полигонов (поверх кадра)
+        double margin = 20;
+        double x = Math.max(margin, width - 220);
+        double y = Math.max(margin, height - 20);
+
+        gc.setFill(canvasTextColor);
+        gc.fillText("Вершин: " + mesh.getVertices().size(), x, y - 20);
+        gc.fillText("Полигонов: " + mesh.getPolygons().size(), x, y);
     }
 
     @FXML
@@ -630,29 +697,64 @@ public class GuiController {
             return;
         }
 
-        Path fileName = Path.of(file.getAbsolutePath());
+        if (loadTask != null && loadTask.isRunning()) {
+            showError("Load Model", "Another model is still loading: " + loadTask.getSource().getFileName());
+            return;
+        }
 
-        try {
-            String fileContent = Files.readString(fileName);
-            Model loaded = ObjReader.read(fileContent);
+        // Чтение/разбор/preprocess - в фоновом потоке; рендер продолжает рисовать текущую сцену
+        ModelLoadTask task = new ModelLoadTask(Path.of(file.getAbsolutePath()), MeshCacheFormat.defaultCacheDirectory());
+        task.setOnSucceeded(event -> {
+            hideLoadProgress();
+            Model loaded = task.getValue();
             if (loaded == null) {
-                showError("Load Model", "Failed to load model: empty result");
                 return;
             }
-
-            // Подготовка модели: UV/триангуляция/нормали
-            ModelProcessor.preprocess(loaded);
-            loaded.setOriginalVertices(new java.util.ArrayList<>(loaded.getVertices()));
+            // Модель попадает в models/modelSelector только готовой
             models.add(loaded);
             setActiveModelIndex(models.size() - 1);
-        } catch (Exception exception) {
-            showError("Load Model", exception.getMessage() != null ? exception.getMessage() : "Unknown error");
+            drawStaticScene(canvas.getGraphicsContext2D());
+            requestRender();
+        });
+        task.setOnFailed(event -> {
+            hideLoadProgress();
+            Throwable exception = task.getException();
+            showError("Load Model", exception != null && exception.getMessage() != null
+                    ? exception.getMessage() : "Unknown error");
+        });
+        task.setOnCancelled(event -> hideLoadProgress());
+
+        loadTask = task;
+        showLoadProgress(task);
+        loadExecutor.execute(task);
+    }
+
+    @FXML
+    private void onCancelModelLoad() {
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+    }
+
+    private void showLoadProgress(final ModelLoadTask task) {
+        if (loadProgressBox == null) {
             return;
         }
+        loadProgressBar.progressProperty().bind(task.progressProperty());
+        loadStatusLabel.textProperty().bind(task.messageProperty());
+        loadProgressBox.setManaged(true);
+        loadProgressBox.setVisible(true);
+    }
 
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        drawStaticScene(gc);
-        requestRender();
+    private void hideLoadProgress() {
+        loadTask = null;
+        if (loadProgressBox == null) {
+            return;
+        }
+        loadProgressBar.progressProperty().unbind();
+        loadStatusLabel.textProperty().unbind();
+        loadProgressBox.setVisible(false);
+        loadProgressBox.setManaged(false);
     }
 
     @FXML
@@ -672,7 +774,7 @@ public class GuiController {
         }
 
         try {
-            ObjWriter.write(file.getAbsolutePath(), active);
+            ObjWriter.writeParallel(file.getAbsolutePath(), active, true);
         } catch (Exception e) {
             showError("Save Model", "Failed to save model: " + e.getMessage());
         }
@@ -691,7 +793,8 @@ public class GuiController {
         }
 
         try {
-            ObjWriter.write(file.getAbsolutePath(), modelToSave);
+            // Временный файл + атомарное переименование: сбой не оставит полузаписанную модель
+            ObjWriter.writeParallel(file.getAbsolutePath(), modelToSave, true);
         } catch (Exception e) {
             showError(dialogTitle, "Failed to save model: " + e.getMessage());
         }
@@ -810,7 +913,7 @@ public class GuiController {
             return;
         }
 
-        models.remove(activeModelIndex);
+        modelTextures.remove(models.remove(activeModelIndex));
         if (models.isEmpty()) {
             activeModelIndex = -1;
             mesh = null;
@@ -918,6 +1021,13 @@ public class GuiController {
 
     @FXML
     private void onLoadTextureMenuItemClick() {
+        // Текстура привязывается к активной модели
+        Model active = getActiveModel();
+        if (active == null) {
+            showError("Texture Load Error", "Select a model before loading a texture");
+            return;
+        }
+
         // Диалог выбора файла: PNG/JPG/BMP.
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Load Texture");
@@ -933,7 +1043,7 @@ public class GuiController {
 
         try {
             Image image = new Image(file.toURI().toString());
-            texture = new Texture(image);
+            modelTextures.put(active, new Texture(image));
         } catch (Exception e) {
             showError("Texture Load Error", "Failed to load texture: " + e.getMessage());
             return;
@@ -1038,9 +1148,10 @@ public class GuiController {
             return;
         }
 
-        // Проверка состояния: запрет включения при отсутствии texture.
+        // Проверка состояния: запрет включения, если у активной модели нет текстуры.
         boolean selected = useTextureCheckBox.isSelected();
-        if (selected && texture == null) {
+        Model active = getActiveModel();
+        if (selected && (active == null || !modelTextures.containsKey(active))) {
             useTextureCheckBox.setSelected(false);
             renderingModes.setUseTexture(false);
             return;
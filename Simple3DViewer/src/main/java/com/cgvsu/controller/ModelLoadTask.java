@@ -0,0 +1,94 @@
+package com.cgvsu.controller;
+
+// фоновая загрузка модели: двоичный кэш или разбор OBJ + preprocess вне потока JavaFX.
+// прогресс разбора - доля прочитанных байт файла (ReadProgress), preprocess - неопределённый прогресс.
+// отмена (cancel) прерывает разбор между окнами чтения; модель отдаётся только после успешного завершения.
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelProcessor;
+import com.cgvsu.objreader.MeshCacheFormat;
+import com.cgvsu.objreader.MeshCacheReader;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ReadProgress;
+import com.cgvsu.objwriter.MeshCacheWriter;
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ModelLoadTask extends Task<Model> {
+
+    private final Path source;
+    private final Path cacheDirectory;
+
+    public ModelLoadTask(Path source, Path cacheDirectory) {
+        this.source = source;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    @Override
+    protected Model call() throws Exception {
+        // Повторное открытие того же файла - из двоичного кэша, уже после preprocess
+        updateMessage("Loading " + source.getFileName() + "...");
+        Path cacheFile = MeshCacheFormat.cacheFileFor(source, cacheDirectory);
+        Model loaded = readCachedModel(cacheFile, source);
+        if (loaded == null) {
+            long total = Math.max(1L, Files.size(source));
+            AtomicLong done = new AtomicLong();
+            ReadProgress progress = new ReadProgress() {
+                @Override
+                public void advance(long bytes) {
+                    // updateProgress потокобезопасен и сам склеивает частые обновления
+                    updateProgress(done.addAndGet(bytes), total);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return ModelLoadTask.this.isCancelled();
+                }
+            };
+
+            // Файл отображается в память и разбирается параллельно (мелкие файлы - последовательно)
+            loaded = ObjReader.readFileParallel(source, progress).getModel();
+            if (isCancelled()) {
+                return null;
+            }
+
+            // Подготовка модели: UV/триангуляция/нормали
+            updateMessage("Preprocessing " + source.getFileName() + "...");
+            updateProgress(-1, 1);
+            ModelProcessor.preprocess(loaded);
+            if (isCancelled()) {
+                return null;
+            }
+            writeCachedModel(cacheFile, source, loaded);
+        }
+        loaded.setOriginalVertices(new ArrayList<>(loaded.getVertices()));
+        updateProgress(1, 1);
+        return loaded;
+    }
+
+    // Кэш - только ускорение: ошибка чтения или записи не мешает загрузке из OBJ
+    private static Model readCachedModel(Path cacheFile, Path source) {
+        try {
+            return MeshCacheReader.read(cacheFile, source);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeCachedModel(Path cacheFile, Path source, Model model) {
+        try {
+            MeshCacheWriter.write(cacheFile, source, model);
+        } catch (IOException | RuntimeException ignored) {
+            // Нет прав на каталог кэша или мало места - модель просто будет разобрана заново
+        }
+    }
+}
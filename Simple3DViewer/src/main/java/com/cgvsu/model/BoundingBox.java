@@ -0,0 +1,89 @@
+package com.cgvsu.model;
+
+ // ограничивающий объём модели в локальных координатах: AABB (min/max) + сфера (центр AABB, радиус).
+ // используется для отсечения модели целиком до обработки полигонов.
+
+import com.cgvsu.math.Vector3f;
+
+import java.util.List;
+
+public class BoundingBox {
+
+    private final Vector3f min;
+    private final Vector3f max;
+    private final Vector3f center;
+    private final float radius;
+
+    public BoundingBox(Vector3f min, Vector3f max, float radius) {
+        this.min = min;
+        this.max = max;
+        this.center = new Vector3f(
+                (min.getX() + max.getX()) * 0.5f,
+                (min.getY() + max.getY()) * 0.5f,
+                (min.getZ() + max.getZ()) * 0.5f
+        );
+        this.radius = radius;
+    }
+
+    public static BoundingBox of(List<Vector3f> points) {
+        float[] positions = new float[points.size() * 3];
+        for (int i = 0; i < points.size(); i++) {
+            Vector3f p = points.get(i);
+            positions[i * 3] = p.getX();
+            positions[i * 3 + 1] = p.getY();
+            positions[i * 3 + 2] = p.getZ();
+        }
+        return of(positions, points.size());
+    }
+
+    // positions - плоский массив x, y, z; учитываются первые count точек
+    public static BoundingBox of(float[] positions, int count) {
+        // Пустая модель: ограничивающего объёма нет
+        if (count == 0) {
+            return null;
+        }
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count * 3; i += 3) {
+            minX = Math.min(minX, positions[i]);
+            minY = Math.min(minY, positions[i + 1]);
+            minZ = Math.min(minZ, positions[i + 2]);
+            maxX = Math.max(maxX, positions[i]);
+            maxY = Math.max(maxY, positions[i + 1]);
+            maxZ = Math.max(maxZ, positions[i + 2]);
+        }
+
+        // Радиус: самая дальняя вершина от центра AABB (сфера плотнее, чем половина диагонали)
+        float cx = (minX + maxX) * 0.5f;
+        float cy = (minY + maxY) * 0.5f;
+        float cz = (minZ + maxZ) * 0.5f;
+        float maxDistanceSquared = 0.0f;
+        for (int i = 0; i < count * 3; i += 3) {
+            float dx = positions[i] - cx;
+            float dy = positions[i + 1] - cy;
+            float dz = positions[i + 2] - cz;
+            maxDistanceSquared = Math.max(maxDistanceSquared, dx * dx + dy * dy + dz * dz);
+        }
+        return new BoundingBox(
+                new Vector3f(minX, minY, minZ),
+                new Vector3f(maxX, maxY, maxZ),
+                (float) Math.sqrt(maxDistanceSquared)
+        );
+    }
+
+    public Vector3f getMin() {
+        return min;
+    }
+
+    public Vector3f getMax() {
+        return max;
+    }
+
+    public Vector3f getCenter() {
+        return center;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,433 @@
+package com.cgvsu.model;
+
+ // компактное хранение геометрии модели: плоские float[]/int[] без объектов на вершину/индекс.
+ // вершины: positions (x, y, z), textureCoords (u, v), normals (x, y, z).
+ // полигоны: таблица смещений polygonStarts + выровненные массивы индексов вершин/UV/нормалей
+ // (UV/нормали полигона либо есть для каждого угла, либо отсутствуют - флаги polygonFlags).
+ // ObjReader заполняет буферы напрямую, RenderEngine читает их без боксинга.
+
+import java.util.Arrays;
+
+public final class MeshBuffers {
+
+    // Флаги полигона: есть индексы UV / нормалей
+    public static final byte HAS_TEXTURE = 1;
+    public static final byte HAS_NORMALS = 1 << 1;
+
+    private float[] positions = new float[0];
+    private int vertexCount;
+    private float[] textureCoords = new float[0];
+    private int textureVertexCount;
+    private float[] normals = new float[0];
+    private int normalCount;
+
+    private int[] polygonStarts = new int[1];
+    private byte[] polygonFlags = new byte[0];
+    private int polygonCount;
+    private int[] vertexIndices = new int[0];
+    private int[] textureIndices = new int[0];
+    private int[] normalIndices = new int[0];
+    private int cornerCount;
+
+    // Счётчик изменений: кэши, построенные по буферам, сравнивают его со своим
+    private int version;
+
+    // --- Вершины ---
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    // Сырые массивы: валидны первые count * stride элементов, после изменения модели массив может смениться
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public float getVertexX(int vertex) {
+        return positions[checkVertex(vertex) * 3];
+    }
+
+    public float getVertexY(int vertex) {
+        return positions[checkVertex(vertex) * 3 + 1];
+    }
+
+    public float getVertexZ(int vertex) {
+        return positions[checkVertex(vertex) * 3 + 2];
+    }
+
+    public void addVertex(float x, float y, float z) {
+        if (positions.length < (vertexCount + 1) * 3) {
+            positions = Arrays.copyOf(positions, grow(positions.length, (vertexCount + 1) * 3));
+        }
+        int base = vertexCount * 3;
+        positions[base] = x;
+        positions[base + 1] = y;
+        positions[base + 2] = z;
+        vertexCount++;
+        version++;
+    }
+
+    public void setVertex(int vertex, float x, float y, float z) {
+        int base = checkVertex(vertex) * 3;
+        positions[base] = x;
+        positions[base + 1] = y;
+        positions[base + 2] = z;
+        version++;
+    }
+
+    public void clearVertices() {
+        vertexCount = 0;
+        version++;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public float[] getTextureCoords() {
+        return textureCoords;
+    }
+
+    public void addTextureVertex(float u, float v) {
+        if (textureCoords.length < (textureVertexCount + 1) * 2) {
+            textureCoords = Arrays.copyOf(textureCoords, grow(textureCoords.length, (textureVertexCount + 1) * 2));
+        }
+        int base = textureVertexCount * 2;
+        textureCoords[base] = u;
+        textureCoords[base + 1] = v;
+        textureVertexCount++;
+        version++;
+    }
+
+    public void clearTextureVertices() {
+        textureVertexCount = 0;
+        version++;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    public float[] getNormals() {
+        return normals;
+    }
+
+    public void addNormal(float x, float y, float z) {
+        if (normals.length < (normalCount + 1) * 3) {
+            normals = Arrays.copyOf(normals, grow(normals.length, (normalCount + 1) * 3));
+        }
+        int base = normalCount * 3;
+        normals[base] = x;
+        normals[base + 1] = y;
+        normals[base + 2] = z;
+        normalCount++;
+        version++;
+    }
+
+    public void clearNormals() {
+        normalCount = 0;
+        version++;
+    }
+
+    // --- Полигоны ---
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    public int getCornerCount() {
+        return cornerCount;
+    }
+
+    // Углы полигона p: [getPolygonStart(p), getPolygonStart(p) + getPolygonSize(p)) в массивах индексов
+    public int getPolygonStart(int polygon) {
+        return polygonStarts[checkPolygon(polygon)];
+    }
+
+    public int getPolygonSize(int polygon) {
+        checkPolygon(polygon);
+        return polygonStarts[polygon + 1] - polygonStarts[polygon];
+    }
+
+    public boolean hasTextureIndices(int polygon) {
+        return (polygonFlags[checkPolygon(polygon)] & HAS_TEXTURE) != 0;
+    }
+
+    public boolean hasNormalIndices(int polygon) {
+        return (polygonFlags[checkPolygon(polygon)] & HAS_NORMALS) != 0;
+    }
+
+    // Сырая таблица смещений (polygonCount + 1 значимых элементов) и флаги полигонов
+    public int[] getPolygonStarts() {
+        return polygonStarts;
+    }
+
+    public byte[] getPolygonFlags() {
+        return polygonFlags;
+    }
+
+    public int[] getVertexIndices() {
+        return vertexIndices;
+    }
+
+    public int[] getTextureIndices() {
+        return textureIndices;
+    }
+
+    public int[] getNormalIndices() {
+        return normalIndices;
+    }
+
+    // Добавление полигона из count углов, начиная с offset; textures/normals == null - индексов нет
+    public int addPolygon(int[] vertices, int[] textures, int[] normalIdx, int offset, int count) {
+        ensureCorners(cornerCount + count);
+        ensurePolygons(polygonCount + 1);
+        System.arraycopy(vertices, offset, vertexIndices, cornerCount, count);
+        byte flags = 0;
+        if (textures != null) {
+            System.arraycopy(textures, offset, textureIndices, cornerCount, count);
+            flags |= HAS_TEXTURE;
+        }
+        if (normalIdx != null) {
+            System.arraycopy(normalIdx, offset, normalIndices, cornerCount, count);
+            flags |= HAS_NORMALS;
+        }
+        polygonFlags[polygonCount] = flags;
+        cornerCount += count;
+        polygonCount++;
+        polygonStarts[polygonCount] = cornerCount;
+        version++;
+        return polygonCount - 1;
+    }
+
+    // Индексы UV полигона; null - убрать (размер должен совпадать с числом углов)
+    public void setPolygonTextureIndices(int polygon, int[] indices) {
+        setAttributeIndices(polygon, indices, textureIndices, HAS_TEXTURE);
+    }
+
+    public void setPolygonNormalIndices(int polygon, int[] indices) {
+        setAttributeIndices(polygon, indices, normalIndices, HAS_NORMALS);
+    }
+
+    private void setAttributeIndices(int polygon, int[] indices, int[] target, byte flag) {
+        int start = getPolygonStart(polygon);
+        int size = polygonStarts[polygon + 1] - start;
+        if (indices == null) {
+            polygonFlags[polygon] &= (byte) ~flag;
+        } else {
+            if (indices.length != size) {
+                throw new IllegalArgumentException("Expected " + size + " indices, got " + indices.length);
+            }
+            System.arraycopy(indices, 0, target, start, size);
+            polygonFlags[polygon] |= flag;
+        }
+        version++;
+    }
+
+    public void removePolygon(int polygon) {
+        int start = getPolygonStart(polygon);
+        int end = polygonStarts[polygon + 1];
+        int size = end - start;
+        System.arraycopy(vertexIndices, end, vertexIndices, start, cornerCount - end);
+        System.arraycopy(textureIndices, end, textureIndices, start, cornerCount - end);
+        System.arraycopy(normalIndices, end, normalIndices, start, cornerCount - end);
+        System.arraycopy(polygonFlags, polygon + 1, polygonFlags, polygon, polygonCount - polygon - 1);
+        for (int p = polygon + 1; p <= polygonCount; p++) {
+            polygonStarts[p - 1] = polygonStarts[p] - size;
+        }
+        cornerCount -= size;
+        polygonCount--;
+        version++;
+    }
+
+    public void clearPolygons() {
+        polygonCount = 0;
+        cornerCount = 0;
+        version++;
+    }
+
+    // Дописывание другого набора буферов в конец (склейка частей файла, загруженных параллельно).
+    // Индексы полигонов копируются как есть: они уже ссылаются на общую нумерацию вершин.
+    public void append(MeshBuffers other) {
+        ensureCapacity(
+                vertexCount + other.vertexCount,
+                textureVertexCount + other.textureVertexCount,
+                normalCount + other.normalCount,
+                polygonCount + other.polygonCount,
+                cornerCount + other.cornerCount
+        );
+        System.arraycopy(other.positions, 0, positions, vertexCount * 3, other.vertexCount * 3);
+        vertexCount += other.vertexCount;
+        System.arraycopy(other.textureCoords, 0, textureCoords, textureVertexCount * 2, other.textureVertexCount * 2);
+        textureVertexCount += other.textureVertexCount;
+        System.arraycopy(other.normals, 0, normals, normalCount * 3, other.normalCount * 3);
+        normalCount += other.normalCount;
+
+        System.arraycopy(other.vertexIndices, 0, vertexIndices, cornerCount, other.cornerCount);
+        System.arraycopy(other.textureIndices, 0, textureIndices, cornerCount, other.cornerCount);
+        System.arraycopy(other.normalIndices, 0, normalIndices, cornerCount, other.cornerCount);
+        System.arraycopy(other.polygonFlags, 0, polygonFlags, polygonCount, other.polygonCount);
+        for (int p = 1; p <= other.polygonCount; p++) {
+            polygonStarts[polygonCount + p] = cornerCount + other.polygonStarts[p];
+        }
+        polygonCount += other.polygonCount;
+        cornerCount += other.cornerCount;
+        version++;
+    }
+
+    // Замена содержимого готовыми массивами (двоичный кэш модели): массивы принимаются без копирования,
+    // размеры берутся из их длин. Таблица смещений проверяется - повреждённый кэш не должен ломать рендер.
+    public void load(
+            float[] positions,
+            float[] textureCoords,
+            float[] normals,
+            int[] polygonStarts,
+            byte[] polygonFlags,
+            int[] vertexIndices,
+            int[] textureIndices,
+            int[] normalIndices) {
+        int corners = vertexIndices.length;
+        if (positions.length % 3 != 0 || textureCoords.length % 2 != 0 || normals.length % 3 != 0) {
+            throw new IllegalArgumentException("Vertex arrays are not aligned to their stride");
+        }
+        if (polygonStarts.length != polygonFlags.length + 1
+                || textureIndices.length != corners || normalIndices.length != corners) {
+            throw new IllegalArgumentException("Polygon arrays have inconsistent sizes");
+        }
+        if (polygonStarts[0] != 0 || polygonStarts[polygonFlags.length] != corners) {
+            throw new IllegalArgumentException("Polygon offset table does not cover all corners");
+        }
+        for (int p = 0; p < polygonFlags.length; p++) {
+            if (polygonStarts[p + 1] < polygonStarts[p]) {
+                throw new IllegalArgumentException("Polygon offset table is not monotonic");
+            }
+        }
+
+        this.positions = positions;
+        this.vertexCount = positions.length / 3;
+        this.textureCoords = textureCoords;
+        this.textureVertexCount = textureCoords.length / 2;
+        this.normals = normals;
+        this.normalCount = normals.length / 3;
+        this.polygonStarts = polygonStarts;
+        this.polygonFlags = polygonFlags;
+        this.polygonCount = polygonFlags.length;
+        this.vertexIndices = vertexIndices;
+        this.textureIndices = textureIndices;
+        this.normalIndices = normalIndices;
+        this.cornerCount = corners;
+        version++;
+    }
+
+    // Удаление вершины: сдвиг индексов > removed, полигоны с < 3 вершинами удаляются.
+    // UV/нормали сдвигаются по тому же правилу; если их число перестало совпадать - индексы сбрасываются.
+    public void removeVertex(int removed) {
+        checkVertex(removed);
+        System.arraycopy(positions, (removed + 1) * 3, positions, removed * 3, (vertexCount - removed - 1) * 3);
+        vertexCount--;
+
+        int writeCorner = 0;
+        int writePolygon = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            int start = polygonStarts[p];
+            int end = polygonStarts[p + 1];
+            byte flags = polygonFlags[p];
+
+            int vertexSize = compactIndices(vertexIndices, start, end, writeCorner, removed);
+            // Пустой полигон не трогаем (как и раньше), выродившийся - удаляем
+            if (start != end && vertexSize < 3) {
+                continue;
+            }
+            if ((flags & HAS_TEXTURE) != 0
+                    && compactIndices(textureIndices, start, end, writeCorner, removed) != vertexSize) {
+                flags &= ~HAS_TEXTURE;
+            }
+            if ((flags & HAS_NORMALS) != 0
+                    && compactIndices(normalIndices, start, end, writeCorner, removed) != vertexSize) {
+                flags &= ~HAS_NORMALS;
+            }
+            polygonFlags[writePolygon] = flags;
+            polygonStarts[writePolygon] = writeCorner;
+            writeCorner += vertexSize;
+            writePolygon++;
+        }
+        polygonCount = writePolygon;
+        cornerCount = writeCorner;
+        polygonStarts[polygonCount] = cornerCount;
+        version++;
+    }
+
+    // Перенос индексов [start, end) в позицию to без removed, со сдвигом больших индексов; возвращает новое число
+    private static int compactIndices(int[] indices, int start, int end, int to, int removed) {
+        int write = to;
+        for (int i = start; i < end; i++) {
+            int idx = indices[i];
+            if (idx == removed) {
+                continue;
+            }
+            indices[write++] = idx > removed ? idx - 1 : idx;
+        }
+        return write - to;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    private void ensureCorners(int corners) {
+        if (vertexIndices.length < corners) {
+            int size = grow(vertexIndices.length, corners);
+            vertexIndices = Arrays.copyOf(vertexIndices, size);
+            textureIndices = Arrays.copyOf(textureIndices, size);
+            normalIndices = Arrays.copyOf(normalIndices, size);
+        }
+    }
+
+    private void ensurePolygons(int polygons) {
+        if (polygonFlags.length < polygons) {
+            int size = grow(polygonFlags.length, polygons);
+            polygonFlags = Arrays.copyOf(polygonFlags, size);
+            polygonStarts = Arrays.copyOf(polygonStarts, size + 1);
+        }
+    }
+
+    // Резервирование ёмкости под известный размер (например, при загрузке файла)
+    public void ensureCapacity(int vertices, int textureVertices, int normalCount, int polygons, int corners) {
+        if (positions.length < vertices * 3) {
+            positions = Arrays.copyOf(positions, vertices * 3);
+        }
+        if (textureCoords.length < textureVertices * 2) {
+            textureCoords = Arrays.copyOf(textureCoords, textureVertices * 2);
+        }
+        if (normals.length < normalCount * 3) {
+            normals = Arrays.copyOf(normals, normalCount * 3);
+        }
+        if (polygonFlags.length < polygons) {
+            polygonFlags = Arrays.copyOf(polygonFlags, polygons);
+            polygonStarts = Arrays.copyOf(polygonStarts, polygons + 1);
+        }
+        if (vertexIndices.length < corners) {
+            vertexIndices = Arrays.copyOf(vertexIndices, corners);
+            textureIndices = Arrays.copyOf(textureIndices, corners);
+            normalIndices = Arrays.copyOf(normalIndices, corners);
+        }
+    }
+
+    private static int grow(int current, int required) {
+        return Math.max(required, Math.max(16, current + (current >> 1)));
+    }
+
+    private int checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= vertexCount) {
+            throw new IndexOutOfBoundsException("Vertex index out of bounds: " + vertex);
+        }
+        return vertex;
+    }
+
+    private int checkPolygon(int polygon) {
+        if (polygon < 0 || polygon >= polygonCount) {
+            throw new IndexOutOfBoundsException("Polygon index out of bounds: " + polygon);
+        }
+        return polygon;
+    }
+}
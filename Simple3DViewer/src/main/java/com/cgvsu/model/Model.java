@@ -1,28 +1,34 @@
 package com.cgvsu.model;
 
  // контейнер геометрии (vertices/uv/normals) и списка полигонов.
+ // данные хранятся плоскими массивами в MeshBuffers; getVertices()/getPolygons() - представления поверх них
+ // (объекты Vector3f/Polygon создаются при обращении, полигоны - только для чтения, правка через add/removePolygon).
  // translation/rotation/scale
+ // ограничивающий объём (AABB + сфера) пересчитывается лениво после изменения вершин
  
+import com.cgvsu.math.Matrix3f;
 import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.render_engine.GraphicConveyor;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Model {
 
-    private final List<Vector3f> vertices = new ArrayList<>();
-    private final List<Vector2f> textureVertices = new ArrayList<>();
-    private final List<Vector3f> normals = new ArrayList<>();
-    private final List<Polygon> polygons = new ArrayList<>();
+    private final MeshBuffers buffers = new MeshBuffers();
 
     private Vector3f translation = new Vector3f(0, 0, 0);
     private Vector3f rotation = new Vector3f(0, 0, 0);
     private Vector3f scale = new Vector3f(1, 1, 1);
     private Matrix4f modelMatrix = Matrix4f.identity();
+    private Matrix3f normalMatrix;
+    private BoundingBox boundingBox;
+    // Версия буферов, по которой построен boundingBox (буферы меняются и напрямую через getMeshBuffers)
+    private int boundingBoxVersion = -1;
+    private int transformVersion;
 
     private final List<Vector3f> originalVertices = new ArrayList<>();
     private boolean isTransformed = false;
@@ -31,144 +37,197 @@ public class Model {
         updateModelMatrix();
     }
 
+    // Прямой доступ к плоским буферам: загрузчик и рендер работают с ними без боксинга
+    public MeshBuffers getMeshBuffers() {
+        return buffers;
+    }
+
     public List<Vector3f> getVertices() {
-        return Collections.unmodifiableList(vertices);
+        return new AbstractList<>() {
+            @Override
+            public Vector3f get(int index) {
+                return new Vector3f(buffers.getVertexX(index), buffers.getVertexY(index), buffers.getVertexZ(index));
+            }
+
+            @Override
+            public int size() {
+                return buffers.getVertexCount();
+            }
+        };
     }
 
     public List<Vector2f> getTextureVertices() {
-        return Collections.unmodifiableList(textureVertices);
+        return new AbstractList<>() {
+            @Override
+            public Vector2f get(int index) {
+                if (index < 0 || index >= buffers.getTextureVertexCount()) {
+                    throw new IndexOutOfBoundsException("Texture vertex index out of bounds: " + index);
+                }
+                float[] uv = buffers.getTextureCoords();
+                return new Vector2f(uv[index * 2], uv[index * 2 + 1]);
+            }
+
+            @Override
+            public int size() {
+                return buffers.getTextureVertexCount();
+            }
+        };
     }
 
     public List<Vector3f> getNormals() {
-        return Collections.unmodifiableList(normals);
+        return new AbstractList<>() {
+            @Override
+            public Vector3f get(int index) {
+                if (index < 0 || index >= buffers.getNormalCount()) {
+                    throw new IndexOutOfBoundsException("Normal index out of bounds: " + index);
+                }
+                float[] n = buffers.getNormals();
+                return new Vector3f(n[index * 3], n[index * 3 + 1], n[index * 3 + 2]);
+            }
+
+            @Override
+            public int size() {
+                return buffers.getNormalCount();
+            }
+        };
     }
 
     public List<Polygon> getPolygons() {
-        return Collections.unmodifiableList(polygons);
+        return new AbstractList<>() {
+            @Override
+            public Polygon get(int index) {
+                return toPolygon(index);
+            }
+
+            @Override
+            public int size() {
+                return buffers.getPolygonCount();
+            }
+        };
+    }
+
+    // Полигон из буферов, только для чтения: сеттеры бросают исключение, а не теряют изменение молча
+    private Polygon toPolygon(int index) {
+        int start = buffers.getPolygonStart(index);
+        int size = buffers.getPolygonSize(index);
+        return Polygon.readOnly(
+                copyIndices(buffers.getVertexIndices(), start, size),
+                buffers.hasTextureIndices(index)
+                        ? copyIndices(buffers.getTextureIndices(), start, size) : new ArrayList<>(),
+                buffers.hasNormalIndices(index)
+                        ? copyIndices(buffers.getNormalIndices(), start, size) : new ArrayList<>());
+    }
+
+    private static ArrayList<Integer> copyIndices(int[] source, int start, int size) {
+        ArrayList<Integer> indices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indices.add(source[start + i]);
+        }
+        return indices;
     }
 
     public void addVertex(Vector3f vertex) {
-        this.vertices.add(vertex);
+        buffers.addVertex(vertex.getX(), vertex.getY(), vertex.getZ());
     }
 
     public void addTextureVertex(Vector2f textureVertex) {
-        this.textureVertices.add(textureVertex);
+        buffers.addTextureVertex(textureVertex.getX(), textureVertex.getY());
     }
 
     public void addNormal(Vector3f normal) {
-        this.normals.add(normal);
+        buffers.addNormal(normal.getX(), normal.getY(), normal.getZ());
     }
 
     public void addPolygon(Polygon polygon) {
-        this.polygons.add(polygon);
+        // Индексы копируются в буферы; UV/нормали, не совпадающие по числу с вершинами, не сохраняются
+        int[] vertices = toArray(polygon.getVertexIndices());
+        int[] textures = toArray(polygon.getTextureVertexIndices());
+        int[] normalIndices = toArray(polygon.getNormalIndices());
+        buffers.addPolygon(
+                vertices,
+                textures.length == vertices.length && vertices.length > 0 ? textures : null,
+                normalIndices.length == vertices.length && vertices.length > 0 ? normalIndices : null,
+                0,
+                vertices.length
+        );
+    }
+
+    private static int[] toArray(List<Integer> indices) {
+        if (indices == null) {
+            return new int[0];
+        }
+        int[] result = new int[indices.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indices.get(i);
+        }
+        return result;
     }
 
     public void removePolygon(final int index) {
-        if (index < 0 || index >= polygons.size()) {
+        if (index < 0 || index >= buffers.getPolygonCount()) {
             throw new IndexOutOfBoundsException("Polygon index out of bounds: " + index);
         }
-        polygons.remove(index);
+        buffers.removePolygon(index);
     }
 
     public void removeVertex(final int index) {
-        if (index < 0 || index >= vertices.size()) {
+        if (index < 0 || index >= buffers.getVertexCount()) {
             throw new IndexOutOfBoundsException("Vertex index out of bounds: " + index);
         }
-        vertices.remove(index);
-        updateIndicesAfterVertexRemoval(index);
+        // Сдвиг индексов и удаление выродившихся полигонов - по позиции, одним проходом по буферам
+        buffers.removeVertex(index);
     }
 
-    private void updateIndicesAfterVertexRemoval(final int removedIndex) {
-        if (polygons.isEmpty()) {
-            return;
-        }
-
-        final List<Polygon> polygonsToRemove = new ArrayList<>();
-
-        for (Polygon polygon : polygons) {
-            List<Integer> vIdx = polygon.getVertexIndices();
-            if (vIdx == null || vIdx.isEmpty()) {
-                continue;
-            }
+    public void updateModelMatrix() {
+        // Пересчёт матрицы модели: translation/rotation/scale - modelMatrix
+        this.modelMatrix = Matrix4f.modelMatrix(translation, rotation, scale);
+        this.normalMatrix = null;
+        transformVersion++;
+    }
 
-            ArrayList<Integer> newVertexIndices = new ArrayList<>(vIdx.size());
-            for (int idx : vIdx) {
-                if (idx == removedIndex) {
-                    continue;
-                }
-                if (idx > removedIndex) {
-                    newVertexIndices.add(idx - 1);
-                } else {
-                    newVertexIndices.add(idx);
-                }
-            }
+    // Счётчик изменений матрицы модели (геометрия - MeshBuffers.getVersion): по нему рендер сбрасывает
+    // мировые позиции/нормали, сохранённые между кадрами
+    public int getTransformVersion() {
+        return transformVersion;
+    }
 
-            if (newVertexIndices.size() < 3) {
-                polygonsToRemove.add(polygon);
-                continue;
-            }
+    public Matrix4f getModelMatrix() {
+        return modelMatrix;
+    }
 
-            polygon.setVertexIndices(newVertexIndices);
-
-            // texture indices
-            List<Integer> tIdx = polygon.getTextureVertexIndices();
-            if (tIdx != null && !tIdx.isEmpty() && tIdx.size() == vIdx.size()) {
-                ArrayList<Integer> newTextureIndices = new ArrayList<>(tIdx.size());
-                for (int idx : tIdx) {
-                    if (idx == removedIndex) {
-                        continue;
-                    }
-                    if (idx > removedIndex) {
-                        newTextureIndices.add(idx - 1);
-                    } else {
-                        newTextureIndices.add(idx);
-                    }
-                }
-                if (newTextureIndices.size() == newVertexIndices.size()) {
-                    polygon.setTextureVertexIndices(newTextureIndices);
-                } else {
-                    polygon.setTextureVertexIndices(new ArrayList<>());
+    public Matrix3f getNormalMatrix() {
+        // Матрица нормалей: (M^-1)^T верхнего блока 3x3, считается лениво один раз после изменения трансформаций
+        if (normalMatrix == null) {
+            float[][] upper = new float[3][3];
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    upper[row][col] = modelMatrix.get(row, col);
                 }
             }
-
-            // normal indices
-            List<Integer> nIdx = polygon.getNormalIndices();
-            if (nIdx != null && !nIdx.isEmpty() && nIdx.size() == vIdx.size()) {
-                ArrayList<Integer> newNormalIndices = new ArrayList<>(nIdx.size());
-                for (int idx : nIdx) {
-                    if (idx == removedIndex) {
-                        continue;
-                    }
-                    if (idx > removedIndex) {
-                        newNormalIndices.add(idx - 1);
-                    } else {
-                        newNormalIndices.add(idx);
-                    }
-                }
-                if (newNormalIndices.size() == newVertexIndices.size()) {
-                    polygon.setNormalIndices(newNormalIndices);
-                } else {
-                    polygon.setNormalIndices(new ArrayList<>());
-                }
+            Matrix3f linear = new Matrix3f(upper);
+            try {
+                normalMatrix = linear.inverse().transpose();
+            } catch (ArithmeticException e) {
+                // Вырожденный масштаб: обратной нет - используется сам блок 3x3
+                normalMatrix = linear;
             }
         }
-
-        polygons.removeAll(polygonsToRemove);
-    }
-
-    public void updateModelMatrix() {
-        // Пересчёт матрицы модели: translation/rotation/scale - modelMatrix
-        this.modelMatrix = Matrix4f.modelMatrix(translation, rotation, scale);
+        return normalMatrix;
     }
 
-    public Matrix4f getModelMatrix() {
-        return modelMatrix;
+    public BoundingBox getBoundingBox() {
+        // Пересчёт AABB/сферы только после изменения вершин; null - у модели нет вершин
+        if (boundingBoxVersion != buffers.getVersion()) {
+            boundingBox = BoundingBox.of(buffers.getPositions(), buffers.getVertexCount());
+            boundingBoxVersion = buffers.getVersion();
+        }
+        return boundingBox;
     }
 
     public List<Vector3f> getTransformedVertices() {
         // Получение вершин в мировом пространстве: применение modelMatrix к каждой вершине
-        List<Vector3f> transformed = new ArrayList<>();
-        for (Vector3f vertex : vertices) {
+        List<Vector3f> transformed = new ArrayList<>(buffers.getVertexCount());
+        for (Vector3f vertex : getVertices()) {
             transformed.add(GraphicConveyor.multiplyMatrix4ByVector3(modelMatrix, vertex));
         }
         return transformed;
@@ -186,8 +245,7 @@ public class Model {
     public void resetToOriginal() {
         // Сброс геометрии: восстановление vertices из originalVertices + сброс трансформаций.
         if (!originalVertices.isEmpty()) {
-            this.vertices.clear();
-            this.vertices.addAll(originalVertices);
+            setVertices(originalVertices);
             resetTransformations();
         }
     }
@@ -329,19 +387,23 @@ public class Model {
     }
 
     public void setVertices(List<Vector3f> newVertices) {
-        this.vertices.clear();
-        this.vertices.addAll(newVertices);
+        // Копия до очистки: newVertices может быть представлением этой же модели
+        List<Vector3f> copy = new ArrayList<>(newVertices);
+        buffers.clearVertices();
+        for (Vector3f vertex : copy) {
+            buffers.addVertex(vertex.getX(), vertex.getY(), vertex.getZ());
+        }
     }
 
     public void clearNormals() {
-        this.normals.clear();
+        buffers.clearNormals();
     }
 
     public void clearTextureVertices() {
-        this.textureVertices.clear();
+        buffers.clearTextureVertices();
     }
 
     public void clearPolygons() {
-        this.polygons.clear();
+        buffers.clearPolygons();
     }
 }
@@ -1,14 +1,11 @@
 package com.cgvsu.model;
 
 // NOTE: Назначение: подготовка модели к рендеру.
-// NOTE: Операции: генерация UV (при отсутствии), триангуляция, пересчёт нормалей.
+// NOTE: Операции: генерация UV (при отсутствии), триангуляция (любые N-угольники), пересчёт нормалей.
 // NOTE: Выход: изменение списков полигонов/нормалей внутри Model.
+// NOTE: Работа идёт напрямую по плоским буферам модели (MeshBuffers), без объектов на вершину/полигон.
 
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public final class ModelProcessor {
 
@@ -16,7 +13,7 @@ public final class ModelProcessor {
 
     public static void preprocess(Model model) {
         // Подготовка UV: генерация координат при отсутствии данных в модели.
-        if (model != null && (model.getTextureVertices() == null || model.getTextureVertices().isEmpty())) {
+        if (model != null && model.getMeshBuffers().getTextureVertexCount() == 0) {
             generatePlanarTextureCoordinates(model);
         }
 
@@ -29,9 +26,12 @@ public final class ModelProcessor {
 
     private static void generatePlanarTextureCoordinates(final Model model) {
         // Проверка входных данных: наличие вершин.
-        if (model == null || model.getVertices() == null || model.getVertices().isEmpty()) {
+        if (model == null || model.getMeshBuffers().getVertexCount() == 0) {
             return;
         }
+        MeshBuffers buffers = model.getMeshBuffers();
+        int vertexCount = buffers.getVertexCount();
+        float[] positions = buffers.getPositions();
 
         // Подсчёт границ (min/max) по X/Z: развёртка в UV по плоскости XZ.
         float minX = Float.POSITIVE_INFINITY;
@@ -39,9 +39,9 @@ public final class ModelProcessor {
         float maxX = Float.NEGATIVE_INFINITY;
         float maxZ = Float.NEGATIVE_INFINITY;
 
-        for (Vector3f v : model.getVertices()) {
-            float x = v.getX();
-            float z = v.getZ();
+        for (int i = 0; i < vertexCount; i++) {
+            float x = positions[i * 3];
+            float z = positions[i * 3 + 2];
             if (x < minX) minX = x;
             if (x > maxX) maxX = x;
             if (z < minZ) minZ = z;
@@ -58,139 +58,264 @@ public final class ModelProcessor {
         }
 
         // Запись UV: нормализация координат в диапазон [0..1].
-        model.clearTextureVertices();
-        for (Vector3f v : model.getVertices()) {
-            float u = (v.getX() - minX) / dx;
-            float vCoord = (v.getZ() - minZ) / dz;
-            model.addTextureVertex(new Vector2f(u, vCoord));
+        buffers.clearTextureVertices();
+        for (int i = 0; i < vertexCount; i++) {
+            float u = (positions[i * 3] - minX) / dx;
+            float vCoord = (positions[i * 3 + 2] - minZ) / dz;
+            buffers.addTextureVertex(u, vCoord);
         }
 
-        if (model.getPolygons() == null) {
-            return;
-        }
         // Привязка индексов UV: соответствие vertexIndices -> textureVertexIndices.
-        for (Polygon polygon : model.getPolygons()) {
-            List<Integer> vIdx = polygon.getVertexIndices();
-            if (vIdx == null || vIdx.isEmpty()) {
+        int[] vertexIndices = buffers.getVertexIndices();
+        for (int p = 0; p < buffers.getPolygonCount(); p++) {
+            int start = buffers.getPolygonStart(p);
+            int size = buffers.getPolygonSize(p);
+            if (size == 0) {
                 continue;
             }
-            polygon.setTextureVertexIndices(new ArrayList<>(vIdx));
+            buffers.setPolygonTextureIndices(p, Arrays.copyOfRange(vertexIndices, start, start + size));
         }
     }
 
     public static void triangulate(Model model) {
-        // Источник: исходные полигоны модели.
-        List<Polygon> originalPolygons = model.getPolygons();
-        List<Polygon> triangulated = new ArrayList<>(originalPolygons.size());
-
-        for (Polygon polygon : originalPolygons) {
-            List<Integer> v = polygon.getVertexIndices();
-            List<Integer> t = polygon.getTextureVertexIndices();
+        // Источник: исходные полигоны модели (копия буферов индексов, т.к. модель перезаписывается).
+        MeshBuffers buffers = model.getMeshBuffers();
+        int polygonCount = buffers.getPolygonCount();
+        int[] starts = new int[polygonCount];
+        int[] sizes = new int[polygonCount];
+        boolean[] hasTexture = new boolean[polygonCount];
+        boolean[] hasNormals = new boolean[polygonCount];
+        for (int p = 0; p < polygonCount; p++) {
+            starts[p] = buffers.getPolygonStart(p);
+            sizes[p] = buffers.getPolygonSize(p);
+            hasTexture[p] = buffers.hasTextureIndices(p);
+            hasNormals[p] = buffers.hasNormalIndices(p);
+        }
+        int cornerCount = buffers.getCornerCount();
+        int[] v = Arrays.copyOf(buffers.getVertexIndices(), cornerCount);
+        int[] t = Arrays.copyOf(buffers.getTextureIndices(), cornerCount);
+        int[] n = Arrays.copyOf(buffers.getNormalIndices(), cornerCount);
 
-            int vertexCount = v.size();
+        // Перезапись списка полигонов: замена на триангулированный набор.
+        buffers.clearPolygons();
+        float[] positions = buffers.getPositions();
+        int positionCount = buffers.getVertexCount();
+        int[] triangles = new int[0];
+        int[] triV = new int[3];
+        int[] triT = new int[3];
+        for (int p = 0; p < polygonCount; p++) {
+            int start = starts[p];
+            int vertexCount = sizes[p];
             if (vertexCount <= 3) {
-                triangulated.add(polygon);
+                buffers.addPolygon(v, hasTexture[p] ? t : null, hasNormals[p] ? n : null, start, vertexCount);
                 continue;
             }
 
-            // Разбиение fan-методом: (0, i, i+1).
-            for (int i = 1; i < vertexCount - 1; ++i) {
-                Polygon triangle = new Polygon();
-
-                ArrayList<Integer> triV = new ArrayList<>(3);
-                triV.add(v.get(0));
-                triV.add(v.get(i));
-                triV.add(v.get(i + 1));
-                triangle.setVertexIndices(triV);
-
-                if (!t.isEmpty()) {
-                    ArrayList<Integer> triT = new ArrayList<>(3);
-                    triT.add(t.get(0));
-                    triT.add(t.get(i));
-                    triT.add(t.get(i + 1));
-                    triangle.setTextureVertexIndices(triT);
+            // Разбиение N-угольника: углы треугольников - смещения внутри полигона; нормали пересчитываются отдельно.
+            if (triangles.length < (vertexCount - 2) * 3) {
+                triangles = new int[(vertexCount - 2) * 3];
+            }
+            int triangleCount = triangulatePolygon(positions, positionCount, v, start, vertexCount, triangles);
+            for (int i = 0; i < triangleCount * 3; i += 3) {
+                for (int k = 0; k < 3; k++) {
+                    triV[k] = v[start + triangles[i + k]];
+                    triT[k] = t[start + triangles[i + k]];
                 }
+                buffers.addPolygon(triV, hasTexture[p] ? triT : null, null, 0, 3);
+            }
+        }
+    }
 
-                triangle.setNormalIndices(new ArrayList<>());
+    // Выпуклый полигон - веером (0, i, i+1); невыпуклый (n-угольники из Blender и т.п.) - отсечением "ушей"
+    // в плоскости полигона. Вырожденные полигоны и полигоны с неверными индексами - веером.
+    static int triangulatePolygon(float[] positions, int positionCount, int[] v, int start, int count, int[] out) {
+        // Нормаль Ньюэла: устойчива для невыпуклых и слегка неплоских полигонов
+        float nx = 0, ny = 0, nz = 0;
+        for (int i = 0; i < count; i++) {
+            int a = v[start + i];
+            int b = v[start + (i + 1) % count];
+            if (a < 0 || a >= positionCount || b < 0 || b >= positionCount) {
+                return fan(count, out);
+            }
+            float ax = positions[a * 3], ay = positions[a * 3 + 1], az = positions[a * 3 + 2];
+            float bx = positions[b * 3], by = positions[b * 3 + 1], bz = positions[b * 3 + 2];
+            nx += (ay - by) * (az + bz);
+            ny += (az - bz) * (ax + bx);
+            nz += (ax - bx) * (ay + by);
+        }
 
-                triangulated.add(triangle);
+        // Проекция на плоскость, перпендикулярную доминирующей оси нормали; обход приводится к CCW
+        float ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+        if (Math.max(ax, Math.max(ay, az)) < 1e-12f) {
+            return fan(count, out);
+        }
+        int uAxis, wAxis;
+        float orientation;
+        if (ax >= ay && ax >= az) {
+            uAxis = 1;
+            wAxis = 2;
+            orientation = Math.signum(nx);
+        } else if (ay >= az) {
+            uAxis = 2;
+            wAxis = 0;
+            orientation = Math.signum(ny);
+        } else {
+            uAxis = 0;
+            wAxis = 1;
+            orientation = Math.signum(nz);
+        }
+        float[] u = new float[count];
+        float[] w = new float[count];
+        for (int i = 0; i < count; i++) {
+            int vertex = v[start + i];
+            u[i] = positions[vertex * 3 + uAxis];
+            w[i] = positions[vertex * 3 + wAxis] * orientation;
+        }
+
+        boolean convex = true;
+        for (int i = 0; i < count && convex; i++) {
+            convex = cross(u, w, (i + count - 1) % count, i, (i + 1) % count) >= 0;
+        }
+        if (convex) {
+            return fan(count, out);
+        }
+
+        int[] remaining = new int[count];
+        for (int i = 0; i < count; i++) {
+            remaining[i] = i;
+        }
+        int left = count;
+        int written = 0;
+        int guard = 0;
+        int i = 0;
+        while (left > 3) {
+            int prev = remaining[(i + left - 1) % left];
+            int cur = remaining[i];
+            int next = remaining[(i + 1) % left];
+            if (cross(u, w, prev, cur, next) > 0 && isEar(u, w, remaining, left, prev, cur, next)) {
+                out[written++] = prev;
+                out[written++] = cur;
+                out[written++] = next;
+                System.arraycopy(remaining, i + 1, remaining, i, left - i - 1);
+                left--;
+                guard = 0;
+                if (i >= left) {
+                    i = 0;
+                }
+            } else {
+                i = (i + 1) % left;
+                // Полный круг без "уха" (самопересечение, коллинеарные точки): остаток - веером
+                if (++guard > left) {
+                    break;
+                }
             }
         }
+        for (int k = 1; k < left - 1; k++) {
+            out[written++] = remaining[0];
+            out[written++] = remaining[k];
+            out[written++] = remaining[k + 1];
+        }
+        return written / 3;
+    }
 
-        // Перезапись списка полигонов: замена на триангулированный набор.
-        model.clearPolygons();
-        for (Polygon polygon : triangulated) {
-            model.addPolygon(polygon);
+    private static int fan(int count, int[] out) {
+        int written = 0;
+        for (int i = 1; i < count - 1; i++) {
+            out[written++] = 0;
+            out[written++] = i;
+            out[written++] = i + 1;
+        }
+        return written / 3;
+    }
+
+    private static float cross(float[] u, float[] w, int a, int b, int c) {
+        return (u[b] - u[a]) * (w[c] - w[b]) - (w[b] - w[a]) * (u[c] - u[b]);
+    }
+
+    // Ухо: ни одна другая оставшаяся вершина не лежит внутри треугольника (prev, cur, next)
+    private static boolean isEar(float[] u, float[] w, int[] remaining, int left, int prev, int cur, int next) {
+        for (int k = 0; k < left; k++) {
+            int p = remaining[k];
+            if (p == prev || p == cur || p == next) {
+                continue;
+            }
+            if (cross(u, w, prev, cur, p) >= 0 && cross(u, w, cur, next, p) >= 0 && cross(u, w, next, prev, p) >= 0) {
+                return false;
+            }
         }
+        return true;
     }
 
     public static void recalculateNormals(Model model) {
         // Проверка входных данных: наличие геометрии.
-        int vertexCount = model.getVertices().size();
-        if (vertexCount == 0 || model.getPolygons().isEmpty()) {
-            model.clearNormals();
+        MeshBuffers buffers = model.getMeshBuffers();
+        int vertexCount = buffers.getVertexCount();
+        if (vertexCount == 0 || buffers.getPolygonCount() == 0) {
+            buffers.clearNormals();
             return;
         }
 
         // Накопление нормалей: суммирование нормалей граней по вершинам.
-        Vector3f[] normalSums = new Vector3f[vertexCount];
-        for (int i = 0; i < vertexCount; ++i) {
-            normalSums[i] = new Vector3f(0.0f, 0.0f, 0.0f);
-        }
+        float[] positions = buffers.getPositions();
+        int[] vertexIndices = buffers.getVertexIndices();
+        float[] normalSums = new float[vertexCount * 3];
 
-        for (Polygon polygon : model.getPolygons()) {
-            List<Integer> vIdx = polygon.getVertexIndices();
-            if (vIdx.size() < 3) {
+        for (int p = 0; p < buffers.getPolygonCount(); p++) {
+            if (buffers.getPolygonSize(p) < 3) {
                 continue;
             }
-
-            int i0 = vIdx.get(0);
-            int i1 = vIdx.get(1);
-            int i2 = vIdx.get(2);
-
-            Vector3f p0 = model.getVertices().get(i0);
-            Vector3f p1 = model.getVertices().get(i1);
-            Vector3f p2 = model.getVertices().get(i2);
-
-            Vector3f edge1 = p1.subtract(p0);
-            Vector3f edge2 = p2.subtract(p0);
-
-            Vector3f faceNormal = edge1.cross(edge2);
+            int start = buffers.getPolygonStart(p);
+            int i0 = vertexIndices[start];
+            int i1 = vertexIndices[start + 1];
+            int i2 = vertexIndices[start + 2];
+
+            float e1x = positions[i1 * 3] - positions[i0 * 3];
+            float e1y = positions[i1 * 3 + 1] - positions[i0 * 3 + 1];
+            float e1z = positions[i1 * 3 + 2] - positions[i0 * 3 + 2];
+            float e2x = positions[i2 * 3] - positions[i0 * 3];
+            float e2y = positions[i2 * 3 + 1] - positions[i0 * 3 + 1];
+            float e2z = positions[i2 * 3 + 2] - positions[i0 * 3 + 2];
+
+            float nx = e1y * e2z - e1z * e2y;
+            float ny = e1z * e2x - e1x * e2z;
+            float nz = e1x * e2y - e1y * e2x;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
 
             // Проверка вырожденных граней: нулевая площадь.
-            if (faceNormal.length() < 1e-6f) {
+            if (length < 1e-6f) {
                 continue;
             }
-
-            faceNormal = faceNormal.normalize();
-
-            normalSums[i0] = normalSums[i0].add(faceNormal);
-            normalSums[i1] = normalSums[i1].add(faceNormal);
-            normalSums[i2] = normalSums[i2].add(faceNormal);
+            nx /= length;
+            ny /= length;
+            nz /= length;
+
+            for (int idx : new int[]{i0, i1, i2}) {
+                normalSums[idx * 3] += nx;
+                normalSums[idx * 3 + 1] += ny;
+                normalSums[idx * 3 + 2] += nz;
+            }
         }
 
-        model.clearNormals();
+        buffers.clearNormals();
 
         // Нормализация суммарных нормалей: получение нормали вершины.
         for (int i = 0; i < vertexCount; ++i) {
-            Vector3f sum = normalSums[i];
-            if (sum.length() < 1e-6f) {
-
-                model.addNormal(new Vector3f(0.0f, 0.0f, 1.0f));
+            float x = normalSums[i * 3];
+            float y = normalSums[i * 3 + 1];
+            float z = normalSums[i * 3 + 2];
+            float length = (float) Math.sqrt(x * x + y * y + z * z);
+            if (length < 1e-6f) {
+                buffers.addNormal(0.0f, 0.0f, 1.0f);
             } else {
-
-                Vector3f n = sum.normalize();
-                model.addNormal(new Vector3f(n.getX(), n.getY(), n.getZ()));
+                buffers.addNormal(x / length, y / length, z / length);
             }
         }
 
         // Привязка индексов нормалей: соответствие vertexIndices -> normalIndices.
-        for (Polygon polygon : model.getPolygons()) {
-            List<Integer> vIdx = polygon.getVertexIndices();
-            ArrayList<Integer> nIdx = new ArrayList<>(vIdx.size());
-            nIdx.addAll(vIdx);
-            polygon.setNormalIndices(nIdx);
+        for (int p = 0; p < buffers.getPolygonCount(); p++) {
+            int start = buffers.getPolygonStart(p);
+            buffers.setPolygonNormalIndices(p,
+                    Arrays.copyOfRange(vertexIndices, start, start + buffers.getPolygonSize(p)));
         }
     }
 }
-
@@ -2,6 +2,7 @@ package com.cgvsu.model;
 
  // индексы вершин/UV/нормалей для одной грани.
  // размер списков textureVertexIndices/normalIndices либо 0, либо равен vertexIndices.
+ // полигоны из Model.getPolygons - только для чтения: сеттеры бросают UnsupportedOperationException.
  
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,24 +14,52 @@ public class Polygon {
     private final List<Integer> vertexIndices;
     private final List<Integer> textureVertexIndices;
     private final List<Integer> normalIndices;
+    private final boolean readOnly;
 
     public Polygon() {
-        this.vertexIndices = new ArrayList<>();
-        this.textureVertexIndices = new ArrayList<>();
-        this.normalIndices = new ArrayList<>();
+        this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), false);
+    }
+
+    private Polygon(List<Integer> vertexIndices, List<Integer> textureVertexIndices,
+                    List<Integer> normalIndices, boolean readOnly) {
+        this.vertexIndices = vertexIndices;
+        this.textureVertexIndices = textureVertexIndices;
+        this.normalIndices = normalIndices;
+        this.readOnly = readOnly;
+    }
+
+    // Представление полигона модели: индексы собраны из MeshBuffers, изменение объекта модель бы не затронуло -
+    // поэтому оно запрещено (правка модели - Model.removePolygon/addPolygon)
+    static Polygon readOnly(List<Integer> vertexIndices, List<Integer> textureVertexIndices,
+                            List<Integer> normalIndices) {
+        return new Polygon(vertexIndices, textureVertexIndices, normalIndices, true);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException(
+                    "Polygon of a model is read-only: use Model.removePolygon/addPolygon");
+        }
     }
 
     public void setVertexIndices(ArrayList<Integer> vertexIndices) {
+        checkWritable();
         this.vertexIndices.clear();
         this.vertexIndices.addAll(vertexIndices);
     }
 
     public void setTextureVertexIndices(ArrayList<Integer> textureVertexIndices) {
+        checkWritable();
         this.textureVertexIndices.clear();
         this.textureVertexIndices.addAll(textureVertexIndices);
     }
 
     public void setNormalIndices(ArrayList<Integer> normalIndices) {
+        checkWritable();
         this.normalIndices.clear();
         this.normalIndices.addAll(normalIndices);
     }
@@ -0,0 +1,61 @@
+package com.cgvsu.objreader;
+
+// двоичный кэш разобранной модели: повторное открытие того же OBJ без разбора текста и preprocess.
+// файл (little-endian):
+//   заголовок HEADER_SIZE байт: magic, version, размер и время изменения исходного OBJ, флаги модели,
+//   число вершин/UV/нормалей/полигонов/углов, длина пути исходного файла;
+//   путь исходного файла (UTF-8), дополненный нулями до кратности 4;
+//   блоки float: positions, textureCoords, normals;
+//   блоки int: polygonStarts, vertexIndices, textureIndices, normalIndices;
+//   блок byte: polygonFlags.
+// кэш действителен, пока совпадают путь, размер и время изменения исходного файла.
+// пишет MeshCacheWriter (objwriter), читает MeshCacheReader.
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public final class MeshCacheFormat {
+
+    // "S3DM" в порядке байт little-endian
+    public static final int MAGIC = 0x4D443353;
+    // Увеличивается при любом изменении раскладки - старые файлы кэша просто перечитываются из OBJ
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 52;
+    public static final String EXTENSION = ".s3dmesh";
+
+    // Флаги модели в заголовке
+    public static final int FLAG_TRANSFORMED = 1;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MeshCacheFormat() {
+    }
+
+    // Каталог кэша по умолчанию: ~/.simple3dviewer/mesh-cache
+    public static Path defaultCacheDirectory() {
+        return Path.of(System.getProperty("user.home"), ".simple3dviewer", "mesh-cache");
+    }
+
+    // Имя файла кэша: имя исходника + хеш полного пути (одноимённые файлы из разных папок не пересекаются)
+    public static Path cacheFileFor(Path source, Path cacheDirectory) {
+        String key = sourceKey(source);
+        long hash = FNV_OFFSET;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        String name = source.getFileName() != null ? source.getFileName().toString() : "model";
+        return cacheDirectory.resolve(name + "-" + String.format("%016x", hash) + EXTENSION);
+    }
+
+    // Путь исходного файла в заголовке: абсолютный и нормализованный
+    public static String sourceKey(Path source) {
+        return source.toAbsolutePath().normalize().toString();
+    }
+
+    // Смещение первого блока данных после заголовка и пути
+    public static long dataOffset(int pathLength) {
+        return HEADER_SIZE + ((pathLength + 3L) & ~3L);
+    }
+}
@@ -0,0 +1,186 @@
+package com.cgvsu.objreader;
+
+// загрузка модели из двоичного кэша (формат - MeshCacheFormat).
+// блоки данных отображаются в память (FileChannel.map) и копируются в массивы MeshBuffers
+// одним массовым get на окно - без разбора текста и повторного preprocess.
+// отсутствующий, устаревший или повреждённый кэш - не ошибка: read возвращает null, модель читается из OBJ.
+
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public final class MeshCacheReader {
+
+    // Окно отображения: MappedByteBuffer адресуется int, поэтому большие блоки читаются частями
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private MeshCacheReader() {
+    }
+
+    public static Model read(Path cacheFile, Path source) throws IOException {
+        if (!Files.isRegularFile(cacheFile) || !Files.isRegularFile(source)) {
+            return null;
+        }
+        long sourceSize = Files.size(source);
+        long sourceModified = Files.getLastModifiedTime(source).toMillis();
+        byte[] expectedPath = MeshCacheFormat.sourceKey(source).getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < MeshCacheFormat.HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(MeshCacheFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+
+            if (header.getInt() != MeshCacheFormat.MAGIC || header.getInt() != MeshCacheFormat.VERSION) {
+                return null;
+            }
+            if (header.getLong() != sourceSize || header.getLong() != sourceModified) {
+                return null;
+            }
+            int flags = header.getInt();
+            int vertexCount = header.getInt();
+            int textureVertexCount = header.getInt();
+            int normalCount = header.getInt();
+            int polygonCount = header.getInt();
+            int cornerCount = header.getInt();
+            int pathLength = header.getInt();
+            if (vertexCount < 0 || textureVertexCount < 0 || normalCount < 0
+                    || polygonCount < 0 || cornerCount < 0 || pathLength != expectedPath.length
+                    || fileSize < MeshCacheFormat.dataOffset(pathLength)) {
+                return null;
+            }
+
+            // Одинаковые размер и время у другого файла - не наш кэш
+            ByteBuffer path = ByteBuffer.allocate(pathLength);
+            readFully(channel, path, MeshCacheFormat.HEADER_SIZE);
+            if (!Arrays.equals(path.array(), expectedPath)) {
+                return null;
+            }
+
+            long offset = MeshCacheFormat.dataOffset(pathLength);
+            long expectedSize = offset
+                    + 4L * (3L * vertexCount + 2L * textureVertexCount + 3L * normalCount)
+                    + 4L * (polygonCount + 1L + 3L * cornerCount)
+                    + polygonCount;
+            if (fileSize != expectedSize) {
+                return null;
+            }
+
+            float[] positions = new float[vertexCount * 3];
+            float[] textureCoords = new float[textureVertexCount * 2];
+            float[] normals = new float[normalCount * 3];
+            int[] polygonStarts = new int[polygonCount + 1];
+            int[] vertexIndices = new int[cornerCount];
+            int[] textureIndices = new int[cornerCount];
+            int[] normalIndices = new int[cornerCount];
+            byte[] polygonFlags = new byte[polygonCount];
+
+            offset = readFloats(channel, offset, positions);
+            offset = readFloats(channel, offset, textureCoords);
+            offset = readFloats(channel, offset, normals);
+            offset = readInts(channel, offset, polygonStarts);
+            offset = readInts(channel, offset, vertexIndices);
+            offset = readInts(channel, offset, textureIndices);
+            offset = readInts(channel, offset, normalIndices);
+            readBytes(channel, offset, polygonFlags);
+
+            Model model = new Model();
+            try {
+                model.getMeshBuffers().load(positions, textureCoords, normals,
+                        polygonStarts, polygonFlags, vertexIndices, textureIndices, normalIndices);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (!indicesInRange(polygonStarts, polygonFlags, vertexIndices, textureIndices, normalIndices,
+                    vertexCount, textureVertexCount, normalCount)) {
+                return null;
+            }
+            model.setTransformed((flags & MeshCacheFormat.FLAG_TRANSFORMED) != 0);
+            return model;
+        }
+    }
+
+    private static long readFloats(FileChannel channel, long offset, float[] target) throws IOException {
+        int done = 0;
+        while (done < target.length) {
+            int count = (int) Math.min(target.length - done, MAP_WINDOW / Float.BYTES);
+            map(channel, offset, (long) count * Float.BYTES).asFloatBuffer().get(target, done, count);
+            done += count;
+            offset += (long) count * Float.BYTES;
+        }
+        return offset;
+    }
+
+    private static long readInts(FileChannel channel, long offset, int[] target) throws IOException {
+        int done = 0;
+        while (done < target.length) {
+            int count = (int) Math.min(target.length - done, MAP_WINDOW / Integer.BYTES);
+            map(channel, offset, (long) count * Integer.BYTES).asIntBuffer().get(target, done, count);
+            done += count;
+            offset += (long) count * Integer.BYTES;
+        }
+        return offset;
+    }
+
+    private static void readBytes(FileChannel channel, long offset, byte[] target) throws IOException {
+        int done = 0;
+        while (done < target.length) {
+            int count = (int) Math.min(target.length - done, MAP_WINDOW);
+            map(channel, offset + done, count).get(target, done, count);
+            done += count;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of mesh cache file");
+            }
+            position += read;
+        }
+    }
+
+    // Индексы проверяются, т.к. рендер обращается к массивам вершин без проверок
+    private static boolean indicesInRange(
+            int[] polygonStarts,
+            byte[] polygonFlags,
+            int[] vertexIndices,
+            int[] textureIndices,
+            int[] normalIndices,
+            int vertexCount,
+            int textureVertexCount,
+            int normalCount) {
+        for (int p = 0; p < polygonFlags.length; p++) {
+            boolean hasTexture = (polygonFlags[p] & MeshBuffers.HAS_TEXTURE) != 0;
+            boolean hasNormals = (polygonFlags[p] & MeshBuffers.HAS_NORMALS) != 0;
+            for (int c = polygonStarts[p]; c < polygonStarts[p + 1]; c++) {
+                if (vertexIndices[c] < 0 || vertexIndices[c] >= vertexCount
+                        || hasTexture && (textureIndices[c] < 0 || textureIndices[c] >= textureVertexCount)
+                        || hasNormals && (normalIndices[c] < 0 || normalIndices[c] >= normalCount)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
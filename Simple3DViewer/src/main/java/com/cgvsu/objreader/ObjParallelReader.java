@@ -0,0 +1,244 @@
+package com.cgvsu.objreader;
+
+// параллельная загрузка OBJ: файл отображается в память (FileChannel.map) и режется на фрагменты по '\n'.
+// 1) фрагменты параллельно считают строки - префиксная сумма даёт номер первой строки каждого фрагмента;
+// 2) фрагменты параллельно разбираются ObjStreamParser в собственные MeshBuffers;
+// 3) буферы склеиваются по порядку. Положительные индексы OBJ абсолютны и не пересчитываются;
+//    относительные (-1 - последний объявленный) фрагмент считает от своего начала, а при склейке
+//    к ним прибавляется число v/vt/vn во всех предыдущих фрагментах (префиксная сумма).
+
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+final class ObjParallelReader {
+
+    // Мелкие файлы разбираются последовательно: накладные расходы потоков не окупаются
+    static final long MIN_PARALLEL_SIZE = 1L << 20;
+    // Один фрагмент отображается одним MappedByteBuffer, поэтому он меньше 2 ГБ
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ObjParallelReader() {
+    }
+
+    static ObjReader.ReadResult read(Path filePath, int threads, ReadProgress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MIN_PARALLEL_SIZE || threads <= 1) {
+                return ObjReader.readChannel(channel, progress);
+            }
+
+            long[] bounds = chunkBounds(channel, size, threads);
+            int chunks = bounds.length - 1;
+            MappedByteBuffer[] mapped = new MappedByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                // Первая строка фрагмента i - сумма строк фрагментов 0..i-1
+                int[] lineBases = new int[chunks];
+                runParallel(pool, chunks, i -> lineBases[i] = countLines(mapped[i]));
+                int lines = 0;
+                for (int i = 0; i < chunks; i++) {
+                    int chunkLines = lineBases[i];
+                    lineBases[i] = lines;
+                    lines += chunkLines;
+                }
+
+                Model[] parts = new Model[chunks];
+                List<List<String>> warnings = new ArrayList<>(chunks);
+                ObjStreamParser[] parsers = new ObjStreamParser[chunks];
+                boolean[] hasContent = new boolean[chunks];
+                for (int i = 0; i < chunks; i++) {
+                    parts[i] = new Model();
+                    warnings.add(new ArrayList<>());
+                    parsers[i] = new ObjStreamParser(
+                            new BufferChannel(mapped[i]), parts[i], warnings.get(i), lineBases[i], true);
+                    parsers[i].setProgress(progress);
+                }
+                runParallel(pool, chunks, i -> hasContent[i] = parse(parsers[i]));
+
+                return stitch(parts, parsers, warnings, hasContent);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // Границы фрагментов: равные доли файла, сдвинутые вперёд до начала следующей строки
+    static long[] chunkBounds(FileChannel channel, long size, int threads) throws IOException {
+        int chunks = (int) Math.max((long) threads * CHUNKS_PER_THREAD, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long target = (size + chunks - 1) / chunks;
+        List<Long> bounds = new ArrayList<>(chunks + 1);
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(1 << 12);
+        long previous = 0;
+        for (int i = 1; i < chunks; i++) {
+            long start = Math.max(previous, i * target);
+            long boundary = nextLineStart(channel, start, size, probe);
+            if (boundary > previous && boundary < size) {
+                bounds.add(boundary);
+                previous = boundary;
+            }
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe) throws IOException {
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static int countLines(MappedByteBuffer buffer) {
+        int lines = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static boolean parse(ObjStreamParser parser) {
+        try {
+            return parser.parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface ChunkTask {
+        void run(int chunk);
+    }
+
+    private static void runParallel(ForkJoinPool pool, int chunks, ChunkTask task) throws IOException {
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(task::run)).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ObjReader.ReadResult stitch(
+            Model[] parts,
+            ObjStreamParser[] parsers,
+            List<List<String>> warnings,
+            boolean[] hasContent) {
+        Model model = new Model();
+        List<String> allWarnings = new ArrayList<>();
+        boolean anyContent = false;
+        MeshBuffers buffers = model.getMeshBuffers();
+        for (int i = 0; i < parts.length; i++) {
+            // Префиксные суммы: сколько v/vt/vn и углов граней объявлено до фрагмента
+            int vertexBase = buffers.getVertexCount();
+            int textureBase = buffers.getTextureVertexCount();
+            int normalBase = buffers.getNormalCount();
+            int cornerBase = buffers.getCornerCount();
+            buffers.append(parts[i].getMeshBuffers());
+            applyRelativeFixups(buffers, parsers[i], vertexBase, textureBase, normalBase, cornerBase);
+            allWarnings.addAll(warnings.get(i));
+            anyContent |= hasContent[i];
+            if (parsers[i].isTransformedFlagSeen()) {
+                model.setTransformed(parts[i].isTransformed());
+            }
+        }
+        return ObjReader.finish(model, allWarnings, anyContent);
+    }
+
+    private static void applyRelativeFixups(
+            MeshBuffers buffers,
+            ObjStreamParser parser,
+            int vertexBase,
+            int textureBase,
+            int normalBase,
+            int cornerBase) {
+        int[] fixups = parser.getRelativeFixups();
+        for (int f = 0; f < parser.getRelativeFixupCount(); f += 3) {
+            int attribute = fixups[f];
+            int corner = cornerBase + fixups[f + 1];
+            int[] indices;
+            int base;
+            if (attribute == ObjStreamParser.VERTEX) {
+                indices = buffers.getVertexIndices();
+                base = vertexBase;
+            } else if (attribute == ObjStreamParser.TEXTURE) {
+                indices = buffers.getTextureIndices();
+                base = textureBase;
+            } else {
+                indices = buffers.getNormalIndices();
+                base = normalBase;
+            }
+            indices[corner] += base;
+            if (indices[corner] < 0) {
+                throw new ObjReaderException("Relative index refers before the first element", fixups[f + 2]);
+            }
+        }
+    }
+
+    // Канал поверх отображённого фрагмента: парсер копирует из него окнами, как из файла
+    private static final class BufferChannel implements ReadableByteChannel {
+
+        private final ByteBuffer source;
+
+        BufferChannel(ByteBuffer source) {
+            this.source = source.duplicate();
+        }
+
+        @Override
+        public int read(ByteBuffer target) {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(source.remaining(), target.remaining());
+            ByteBuffer slice = source.slice();
+            slice.limit(n);
+            target.put(slice);
+            source.position(source.position() + n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -2,29 +2,35 @@ package com.cgvsu.objreader;
 
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshBuffers;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
 public class ObjReader {
 
-    private static final String OBJ_VERTEX_TOKEN = "v";
-    private static final String OBJ_TEXTURE_TOKEN = "vt";
-    private static final String OBJ_NORMAL_TOKEN = "vn";
-    private static final String OBJ_FACE_TOKEN = "f";
-    private static final String OBJ_COMMENT_TOKEN = "#";
-    private static final String OBJ_OBJECT_TOKEN = "o";
-    private static final String OBJ_GROUP_TOKEN = "g";
-    private static final String OBJ_USEMTL_TOKEN = "usemtl";
-    private static final String OBJ_MTLLIB_TOKEN = "mtllib";
+    static final String OBJ_VERTEX_TOKEN = "v";
+    static final String OBJ_TEXTURE_TOKEN = "vt";
+    static final String OBJ_NORMAL_TOKEN = "vn";
+    static final String OBJ_FACE_TOKEN = "f";
+    static final String OBJ_COMMENT_TOKEN = "#";
+    static final String OBJ_OBJECT_TOKEN = "o";
+    static final String OBJ_GROUP_TOKEN = "g";
+    static final String OBJ_USEMTL_TOKEN = "usemtl";
+    static final String OBJ_MTLLIB_TOKEN = "mtllib";
 
     public static class ReadResult {
         private final Model model;
@@ -52,63 +58,44 @@ public class ObjReader {
     }
 
     public static ReadResult readContent(String fileContent) throws ObjReaderException {
-        Model model = new Model();
-        ArrayList<String> warnings = new ArrayList<>();
-
         if (fileContent == null || fileContent.trim().isEmpty()) {
             throw new ObjReaderException("File content is empty", 0);
         }
+        try {
+            return readStream(new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            // Поток в памяти не бросает IOException
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        String[] lines = fileContent.split("\r?\n");
+    // Потоковое чтение: вход разбирается окном фиксированного размера, без строки на весь файл
+    public static ReadResult readStream(InputStream input) throws IOException, ObjReaderException {
+        return readChannel(Channels.newChannel(input));
+    }
 
-        for (int lineIndex = 0; lineIndex < lines.length; lineIndex++) {
-            String line = lines[lineIndex].trim();
-            if (line.isEmpty()) {
-                continue;
-            }
-            ArrayList<String> wordsInLine = new ArrayList<>(Arrays.asList(line.split("\\s+")));
+    public static ReadResult readChannel(ReadableByteChannel channel) throws IOException, ObjReaderException {
+        return readChannel(channel, null);
+    }
 
-            if (wordsInLine.isEmpty()) {
-                continue;
-            }
+    // progress - прогресс в байтах и отмена (null - без отслеживания)
+    public static ReadResult readChannel(ReadableByteChannel channel, ReadProgress progress)
+            throws IOException, ObjReaderException {
+        Model model = new Model();
+        ArrayList<String> warnings = new ArrayList<>();
+        ObjStreamParser parser = new ObjStreamParser(channel, model, warnings);
+        parser.setProgress(progress);
+        boolean hasContent = parser.parse();
+        return finish(model, warnings, hasContent);
+    }
 
-            final String token = wordsInLine.get(0);
-            wordsInLine.remove(0);
-
-            try {
-                switch (token) {
-                    case OBJ_COMMENT_TOKEN:
-                        handleComment(wordsInLine, lineIndex + 1, model, warnings);
-                        break;
-                    case OBJ_VERTEX_TOKEN:
-                        model.addVertex(parseVertex(wordsInLine, lineIndex + 1));
-                        break;
-                    case OBJ_TEXTURE_TOKEN:
-                        model.addTextureVertex(parseTextureVertex(wordsInLine, lineIndex + 1));
-                        break;
-                    case OBJ_NORMAL_TOKEN:
-                        model.addNormal(parseNormal(wordsInLine, lineIndex + 1));
-                        break;
-                    case OBJ_FACE_TOKEN:
-                        model.addPolygon(parseFace(wordsInLine, lineIndex + 1));
-                        break;
-                    case OBJ_OBJECT_TOKEN:
-                    case OBJ_GROUP_TOKEN:
-                    case OBJ_USEMTL_TOKEN:
-                    case OBJ_MTLLIB_TOKEN:
-                        break;
-                    default:
-                        warnings.add("Line " + (lineIndex + 1) + ": Unknown token '" + token + "' - skipping");
-                        break;
-                }
-            } catch (ObjReaderException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new ObjReaderException("Unexpected error: " + e.getMessage(), lineIndex + 1);
-            }
+    // Общие проверки после разбора (последовательного или по фрагментам)
+    static ReadResult finish(Model model, List<String> warnings, boolean hasContent) throws ObjReaderException {
+        if (!hasContent) {
+            throw new ObjReaderException("File content is empty", 0);
         }
 
-        if (model.getVertices().isEmpty()) {
+        if (model.getMeshBuffers().getVertexCount() == 0) {
             throw new ObjReaderException("OBJ has no vertex coordinates", 0);
         }
 
@@ -126,27 +113,40 @@ public class ObjReader {
             throw new IOException("File is not readable: " + filePath);
         }
 
-        String fileContent;
-        try {
-            fileContent = Files.readString(filePath, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IOException("Failed to read file with UTF-8 encoding: " + e.getMessage(), e);
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return readChannel(channel);
         }
+    }
 
-        return readContent(fileContent);
+    // Параллельное чтение: файл отображается в память и разбирается фрагментами на всех ядрах
+    public static ReadResult readFileParallel(Path filePath) throws IOException, ObjReaderException {
+        return readFileParallel(filePath, Runtime.getRuntime().availableProcessors());
     }
 
-    private static void handleComment(ArrayList<String> wordsInLine, int lineInd, Model model, ArrayList<String> warnings) {
-        if (wordsInLine.size() >= 2 && wordsInLine.get(0).equals("TRANSFORMED:")) {
-            try {
-                boolean isTransformed = Boolean.parseBoolean(wordsInLine.get(1));
-                model.setTransformed(isTransformed);
-            } catch (Exception e) {
-                warnings.add("Line " + lineInd + ": Invalid TRANSFORMED flag format - ignoring");
-            }
+    public static ReadResult readFileParallel(Path filePath, int threads) throws IOException, ObjReaderException {
+        return readFileParallel(filePath, threads, null);
+    }
+
+    // Загрузка с прогрессом и отменой: progress.advance вызывается из потоков разбора
+    public static ReadResult readFileParallel(Path filePath, ReadProgress progress)
+            throws IOException, ObjReaderException {
+        return readFileParallel(filePath, Runtime.getRuntime().availableProcessors(), progress);
+    }
+
+    public static ReadResult readFileParallel(Path filePath, int threads, ReadProgress progress)
+            throws IOException, ObjReaderException {
+        if (!Files.exists(filePath)) {
+            throw new IOException("File does not exist: " + filePath);
+        }
+
+        if (!Files.isReadable(filePath)) {
+            throw new IOException("File is not readable: " + filePath);
         }
+
+        return ObjParallelReader.read(filePath, threads, progress);
     }
 
+    // Разбор отдельных строк по словам (формат и сообщения те же, что у потокового парсера)
     protected static Vector3f parseVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) throws ObjReaderException {
         if (wordsInLineWithoutToken.size() < 3) {
             throw new ObjReaderException("Vertex requires at least 3 coordinates (x, y, z)", lineInd);
@@ -232,14 +232,20 @@ public class ObjReader {
     }
 
     protected static Polygon parseFace(final ArrayList<String> wordsInLineWithoutToken, int lineInd) throws ObjReaderException {
+        return parseFace(wordsInLineWithoutToken, lineInd, 0, 0, 0);
+    }
+
+    // declared* - сколько v/vt/vn объявлено до этой строки (для относительных индексов -1, -2, ...)
+    protected static Polygon parseFace(
+            final ArrayList<String> wordsInLineWithoutToken,
+            int lineInd,
+            int declaredVertices,
+            int declaredTextureVertices,
+            int declaredNormals) throws ObjReaderException {
         if (wordsInLineWithoutToken.size() < 3) {
             throw new ObjReaderException("Face requires at least 3 vertices", lineInd);
         }
 
-        if (wordsInLineWithoutToken.size() > 4) {
-            throw new ObjReaderException("Face has too many vertices (max 4 for triangle/quad)", lineInd);
-        }
-
         ArrayList<Integer> vertexIndices = new ArrayList<>();
         ArrayList<Integer> textureVertexIndices = new ArrayList<>();
         ArrayList<Integer> normalIndices = new ArrayList<>();
@@ -247,6 +253,9 @@ public class ObjReader {
         for (String faceWord : wordsInLineWithoutToken) {
             parseFaceWord(faceWord, vertexIndices, textureVertexIndices, normalIndices, lineInd);
         }
+        resolveIndices(vertexIndices, declaredVertices, lineInd);
+        resolveIndices(textureVertexIndices, declaredTextureVertices, lineInd);
+        resolveIndices(normalIndices, declaredNormals, lineInd);
         validateFaceIndices(vertexIndices, textureVertexIndices, normalIndices, lineInd);
 
         Polygon polygon = new Polygon();
@@ -257,6 +266,21 @@ public class ObjReader {
         return polygon;
     }
 
+    // Индексы в списках - как записаны в файле; результат - индексы с нуля
+    private static void resolveIndices(ArrayList<Integer> indices, int declared, int lineInd) throws ObjReaderException {
+        for (int i = 0; i < indices.size(); i++) {
+            int raw = indices.get(i);
+            if (raw == 0) {
+                throw new ObjReaderException("Face index 0 is invalid (OBJ indices start at 1)", lineInd);
+            }
+            int resolved = raw > 0 ? raw - 1 : declared + raw;
+            if (resolved < 0) {
+                throw new ObjReaderException("Relative index refers before the first element", lineInd);
+            }
+            indices.set(i, resolved);
+        }
+    }
+
     protected static void parseFaceWord(
             String wordInLine,
             ArrayList<Integer> vertexIndices,
@@ -271,25 +295,25 @@ public class ObjReader {
         String[] wordIndices = wordInLine.split("/");
 
         try {
-            // Поддерживаемые форматы: v | v/vt | v//vn | v/vt/vn
+            // Поддерживаемые форматы: v | v/vt | v//vn | v/vt/vn (индексы как в файле, в том числе отрицательные)
             switch (wordIndices.length) {
                 case 1: // v
-                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd) - 1);
+                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd));
                     break;
 
                 case 2: // v/vt or v//
-                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd) - 1);
+                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd));
                     if (!wordIndices[1].isEmpty()) {
-                        textureVertexIndices.add(parseIntSafe(wordIndices[1], lineInd) - 1);
+                        textureVertexIndices.add(parseIntSafe(wordIndices[1], lineInd));
                     }
                     break;
 
                 case 3: // v/vt/vn or v//vn
-                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd) - 1);
+                    vertexIndices.add(parseIntSafe(wordIndices[0], lineInd));
                     if (!wordIndices[1].isEmpty()) {
-                        textureVertexIndices.add(parseIntSafe(wordIndices[1], lineInd) - 1);
+                        textureVertexIndices.add(parseIntSafe(wordIndices[1], lineInd));
                     }
-                    normalIndices.add(parseIntSafe(wordIndices[2], lineInd) - 1);
+                    normalIndices.add(parseIntSafe(wordIndices[2], lineInd));
                     break;
 
                 default:
@@ -305,12 +329,6 @@ public class ObjReader {
             ArrayList<Integer> textureVertexIndices,
             ArrayList<Integer> normalIndices,
             int lineInd) throws ObjReaderException {
-        // Проверка индексов: поддержка только неотрицательных индексов
-        for (int i = 0; i < vertexIndices.size(); i++) {
-            if (vertexIndices.get(i) < 0) {
-                throw new ObjReaderException("Negative vertex index not supported", lineInd);
-            }
-        }
         // Инвариант: если UV/нормали присутствуют, размер списка должен совпадать с числом вершин грани
         if (!textureVertexIndices.isEmpty() && textureVertexIndices.size() != vertexIndices.size()) {
             throw new ObjReaderException("Inconsistent texture coordinate indices", lineInd);
@@ -320,34 +338,36 @@ public class ObjReader {
         }
     }
 
-    private static void validateModel(Model model, ArrayList<String> warnings) {
-        // Валидация модели: наличие используемых UV/нормалей и проверка индексов граней
-        if (!model.getTextureVertices().isEmpty()) {
-            boolean hasTextureFaces = model.getPolygons().stream()
-                    .anyMatch(p -> !p.getTextureVertexIndices().isEmpty());
-            if (!hasTextureFaces) {
-                warnings.add("Model has texture coordinates but no faces use them");
-            }
+    private static void validateModel(Model model, List<String> warnings) {
+        // Валидация модели: наличие используемых UV/нормалей и проверка индексов граней (по буферам, без копий полигонов)
+        MeshBuffers buffers = model.getMeshBuffers();
+        boolean hasTextureFaces = false;
+        boolean hasNormalFaces = false;
+        for (int i = 0; i < buffers.getPolygonCount(); i++) {
+            hasTextureFaces |= buffers.hasTextureIndices(i);
+            hasNormalFaces |= buffers.hasNormalIndices(i);
         }
-        if (!model.getNormals().isEmpty()) {
-            boolean hasNormalFaces = model.getPolygons().stream()
-                    .anyMatch(p -> !p.getNormalIndices().isEmpty());
-            if (!hasNormalFaces) {
-                warnings.add("Model has normals but no faces use them");
-            }
+        if (buffers.getTextureVertexCount() > 0 && !hasTextureFaces) {
+            warnings.add("Model has texture coordinates but no faces use them");
+        }
+        if (buffers.getNormalCount() > 0 && !hasNormalFaces) {
+            warnings.add("Model has normals but no faces use them");
         }
-        for (int i = 0; i < model.getPolygons().size(); i++) {
-            Polygon polygon = model.getPolygons().get(i);
-            for (int vertexIndex : polygon.getVertexIndices()) {
-                if (vertexIndex < 0 || vertexIndex >= model.getVertices().size()) {
+        int vertexCount = buffers.getVertexCount();
+        int[] vertexIndices = buffers.getVertexIndices();
+        for (int i = 0; i < buffers.getPolygonCount(); i++) {
+            int start = buffers.getPolygonStart(i);
+            for (int corner = start; corner < start + buffers.getPolygonSize(i); corner++) {
+                int vertexIndex = vertexIndices[corner];
+                if (vertexIndex < 0 || vertexIndex >= vertexCount) {
                     warnings.add("Face " + (i + 1) + " references vertex " + (vertexIndex + 1) +
-                            " but model only has " + model.getVertices().size() + " vertices");
+                            " but model only has " + vertexCount + " vertices");
                 }
             }
         }
     }
 
-    private static float parseFloatSafe(String value, int lineInd) throws NumberFormatException {
+    static float parseFloatSafe(String value, int lineInd) throws NumberFormatException {
         try {
             return Float.parseFloat(value);
         } catch (NumberFormatException e) {
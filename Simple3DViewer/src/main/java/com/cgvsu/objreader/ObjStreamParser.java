@@ -0,0 +1,572 @@
+package com.cgvsu.objreader;
+
+// потоковый разбор OBJ: байты читаются из канала окном фиксированного размера и разбираются на месте.
+// строка не превращается в String: слова - отрезки [start, end) в окне, числа читаются прямо из байтов.
+// память парсера ограничена окном (растёт только под самую длинную строку) и не зависит от размера файла.
+// геометрия пишется сразу в MeshBuffers модели; правила и сообщения об ошибках совпадают с parseVertex/parseFace.
+
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+final class ObjStreamParser {
+
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    // Степени 10, точно представимые во float: m * 10^e для m < 2^24 округляется одной операцией
+    private static final float[] FLOAT_POW10 = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    // То же для double (Clinger): m < 2^53, |e| <= 22
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ReadableByteChannel channel;
+    private final Model model;
+    private final MeshBuffers buffers;
+    private final List<String> warnings;
+
+    private byte[] window = new byte[WINDOW_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    // Слова текущей строки: отрезки окна
+    private int[] wordStarts = new int[8];
+    private int[] wordEnds = new int[8];
+    private int wordCount;
+
+    // Индексы текущей грани
+    private int[] faceVertices = new int[4];
+    private int[] faceTextures = new int[4];
+    private int[] faceNormals = new int[4];
+    private byte[] faceRelative = new byte[4];
+    private final int[] partStarts = new int[3];
+    private final int[] partEnds = new int[3];
+
+    // Атрибуты индекса грани
+    static final int VERTEX = 0;
+    static final int TEXTURE = 1;
+    static final int NORMAL = 2;
+
+    // Фрагмент параллельного чтения: относительные индексы разрешаются при склейке
+    private final boolean deferRelative;
+    private int[] fixups = new int[0];
+    private int fixupCount;
+
+    // Прогресс/отмена загрузки (null - не отслеживаются)
+    private ReadProgress progress;
+
+    private int lineNumber;
+    private boolean hasContent;
+    private boolean transformedFlagSeen;
+
+    ObjStreamParser(ReadableByteChannel channel, Model model, List<String> warnings) {
+        this(channel, model, warnings, 0, false);
+    }
+
+    // lineBase - число строк файла до начала этого фрагмента (для номеров строк в ошибках/предупреждениях),
+    // deferRelative - фрагмент не знает числа v/vt/vn до себя, относительные индексы сдвигаются при склейке
+    ObjStreamParser(ReadableByteChannel channel, Model model, List<String> warnings, int lineBase,
+                    boolean deferRelative) {
+        this.channel = channel;
+        this.model = model;
+        this.buffers = model.getMeshBuffers();
+        this.warnings = warnings;
+        this.lineNumber = lineBase;
+        this.deferRelative = deferRelative;
+    }
+
+    // Разбор до конца канала; false - во входе нет ни одного непробельного символа
+    boolean parse() throws IOException {
+        int lineStart;
+        while ((lineStart = nextLine()) >= 0) {
+            lineNumber++;
+            int lineEnd = position;
+            // position указывает на '\n' (или конец входа) - следующая строка начнётся за ним
+            if (position < limit) {
+                position++;
+            }
+            parseLine(lineStart, lineEnd);
+        }
+        return hasContent;
+    }
+
+    void setProgress(ReadProgress progress) {
+        this.progress = progress;
+    }
+
+    // Встречался ли во входе комментарий "# TRANSFORMED:" (при склейке фрагментов побеждает последний)
+    boolean isTransformedFlagSeen() {
+        return transformedFlagSeen;
+    }
+
+    // Начало следующей строки; при возврате position - конец строки. -1 - вход исчерпан
+    private int nextLine() throws IOException {
+        if (endOfInput && position >= limit) {
+            return -1;
+        }
+        int lineStart = position;
+        int scan = position;
+        while (true) {
+            while (scan < limit) {
+                if (window[scan] == '\n') {
+                    position = scan;
+                    return lineStart;
+                }
+                scan++;
+            }
+            if (endOfInput) {
+                position = limit;
+                return lineStart;
+            }
+            // Строка не поместилась в остаток окна: сдвиг к началу (и рост, если окно заполнено целиком)
+            int carried = limit - lineStart;
+            if (lineStart > 0) {
+                System.arraycopy(window, lineStart, window, 0, carried);
+            } else if (carried == window.length) {
+                window = Arrays.copyOf(window, window.length * 2);
+            }
+            scan -= lineStart;
+            lineStart = 0;
+            limit = carried;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (progress != null && progress.isCancelled()) {
+            throw new CancellationException("Model loading cancelled");
+        }
+        ByteBuffer target = ByteBuffer.wrap(window, limit, window.length - limit);
+        int read = channel.read(target);
+        while (read == 0) {
+            read = channel.read(target);
+        }
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+            if (progress != null) {
+                progress.advance(read);
+            }
+        }
+    }
+
+    private void parseLine(int start, int end) {
+        splitWords(start, end);
+        if (wordCount == 0) {
+            return;
+        }
+        hasContent = true;
+
+        try {
+            if (tokenEquals(0, ObjReader.OBJ_VERTEX_TOKEN)) {
+                parseVertex();
+            } else if (tokenEquals(0, ObjReader.OBJ_TEXTURE_TOKEN)) {
+                parseTextureVertex();
+            } else if (tokenEquals(0, ObjReader.OBJ_NORMAL_TOKEN)) {
+                parseNormal();
+            } else if (tokenEquals(0, ObjReader.OBJ_FACE_TOKEN)) {
+                parseFace();
+            } else if (tokenEquals(0, ObjReader.OBJ_COMMENT_TOKEN)) {
+                parseComment();
+            } else if (!tokenEquals(0, ObjReader.OBJ_OBJECT_TOKEN) && !tokenEquals(0, ObjReader.OBJ_GROUP_TOKEN)
+                    && !tokenEquals(0, ObjReader.OBJ_USEMTL_TOKEN) && !tokenEquals(0, ObjReader.OBJ_MTLLIB_TOKEN)) {
+                warnings.add("Line " + lineNumber + ": Unknown token '" + word(0) + "' - skipping");
+            }
+        } catch (ObjReaderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ObjReaderException("Unexpected error: " + e.getMessage(), lineNumber);
+        }
+    }
+
+    private void splitWords(int start, int end) {
+        wordCount = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && isWhitespace(window[i])) {
+                i++;
+            }
+            if (i >= end) {
+                break;
+            }
+            int wordStart = i;
+            while (i < end && !isWhitespace(window[i])) {
+                i++;
+            }
+            if (wordCount == wordStarts.length) {
+                wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+                wordEnds = Arrays.copyOf(wordEnds, wordCount * 2);
+            }
+            wordStarts[wordCount] = wordStart;
+            wordEnds[wordCount] = i;
+            wordCount++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private void parseVertex() {
+        int arguments = wordCount - 1;
+        if (arguments < 3) {
+            throw new ObjReaderException("Vertex requires at least 3 coordinates (x, y, z)", lineNumber);
+        }
+        if (arguments > 4) {
+            throw new ObjReaderException("Vertex has too many coordinates (max 4: x, y, z, [w])", lineNumber);
+        }
+        try {
+            float x = parseFloat(1);
+            float y = parseFloat(2);
+            float z = parseFloat(3);
+            if (arguments == 4) {
+                float w = parseFloat(4);
+                if (Math.abs(w) < 1e-6) {
+                    throw new ObjReaderException("Vertex w coordinate cannot be zero", lineNumber);
+                }
+                x /= w;
+                y /= w;
+                z /= w;
+            }
+            buffers.addVertex(x, y, z);
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Invalid vertex coordinate format: " + e.getMessage(), lineNumber);
+        }
+    }
+
+    private void parseTextureVertex() {
+        int arguments = wordCount - 1;
+        if (arguments < 1) {
+            throw new ObjReaderException("Texture vertex requires at least 1 coordinate (u)", lineNumber);
+        }
+        if (arguments > 3) {
+            throw new ObjReaderException("Texture vertex has too many coordinates (max 3: u, [v], [w])", lineNumber);
+        }
+        try {
+            float u = parseFloat(1);
+            float v = arguments >= 2 ? parseFloat(2) : 0.0f;
+            if (arguments == 3) {
+                parseFloat(3);
+            }
+            buffers.addTextureVertex(u, v);
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Invalid texture vertex coordinate format: " + e.getMessage(), lineNumber);
+        }
+    }
+
+    private void parseNormal() {
+        if (wordCount - 1 != 3) {
+            throw new ObjReaderException("Normal requires exactly 3 coordinates (x, y, z)", lineNumber);
+        }
+        try {
+            float x = parseFloat(1);
+            float y = parseFloat(2);
+            float z = parseFloat(3);
+            float length = (float) Math.sqrt(x * x + y * y + z * z);
+            if (length <= 1e-6) {
+                throw new ObjReaderException("Normal vector cannot be zero length", lineNumber);
+            }
+            if (Math.abs(length - 1.0f) > 1e-3) {
+                x /= length;
+                y /= length;
+                z /= length;
+            }
+            buffers.addNormal(x, y, z);
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Invalid normal coordinate format: " + e.getMessage(), lineNumber);
+        }
+    }
+
+    private void parseFace() {
+        int corners = wordCount - 1;
+        if (corners < 3) {
+            throw new ObjReaderException("Face requires at least 3 vertices", lineNumber);
+        }
+        // N-угольник любого размера: массивы грани растут под самую большую грань
+        if (faceVertices.length < corners) {
+            faceVertices = new int[corners];
+            faceTextures = new int[corners];
+            faceNormals = new int[corners];
+            faceRelative = new byte[corners];
+        }
+
+        int vertexCount = 0;
+        int textureCount = 0;
+        int normalCount = 0;
+        try {
+            for (int w = 1; w < wordCount; w++) {
+                // Части через '/': v | v/vt | v//vn | v/vt/vn; пустые хвосты отбрасываются, как в String.split
+                int parts = splitFaceWord(wordStarts[w], wordEnds[w]);
+                if (parts == 0 || parts > 3) {
+                    throw new ObjReaderException("Invalid face vertex format: " + word(w), lineNumber);
+                }
+
+                int corner = vertexCount;
+                faceRelative[corner] = 0;
+                faceVertices[vertexCount++] = resolveIndex(partStarts[0], partEnds[0], VERTEX, corner);
+                if (parts >= 2 && partEnds[1] > partStarts[1]) {
+                    faceTextures[textureCount++] = resolveIndex(partStarts[1], partEnds[1], TEXTURE, corner);
+                }
+                if (parts == 3) {
+                    faceNormals[normalCount++] = resolveIndex(partStarts[2], partEnds[2], NORMAL, corner);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Invalid face index format: " + e.getMessage(), lineNumber);
+        }
+
+        if (textureCount != 0 && textureCount != vertexCount) {
+            throw new ObjReaderException("Inconsistent texture coordinate indices", lineNumber);
+        }
+        if (normalCount != 0 && normalCount != vertexCount) {
+            throw new ObjReaderException("Inconsistent normal indices", lineNumber);
+        }
+
+        int cornerBase = buffers.getCornerCount();
+        buffers.addPolygon(
+                faceVertices,
+                textureCount != 0 ? faceTextures : null,
+                normalCount != 0 ? faceNormals : null,
+                0,
+                vertexCount
+        );
+        if (deferRelative) {
+            for (int i = 0; i < vertexCount; i++) {
+                for (int attribute = VERTEX; attribute <= NORMAL; attribute++) {
+                    if ((faceRelative[i] & (1 << attribute)) != 0) {
+                        addFixup(attribute, cornerBase + i);
+                    }
+                }
+            }
+        }
+    }
+
+    // Индекс OBJ -> индекс с нуля. Положительный - абсолютный (1..N), отрицательный - относительный:
+    // -1 - последний элемент, объявленный до этой строки. Во фрагменте параллельного чтения
+    // относительный индекс считается от начала фрагмента и запоминается для сдвига при склейке.
+    private int resolveIndex(int start, int end, int attribute, int corner) {
+        int raw = parseInt(start, end);
+        if (raw > 0) {
+            return raw - 1;
+        }
+        if (raw == 0) {
+            throw new ObjReaderException("Face index 0 is invalid (OBJ indices start at 1)", lineNumber);
+        }
+        int declared = attribute == VERTEX ? buffers.getVertexCount()
+                : attribute == TEXTURE ? buffers.getTextureVertexCount()
+                : buffers.getNormalCount();
+        int resolved = declared + raw;
+        if (deferRelative) {
+            faceRelative[corner] |= (byte) (1 << attribute);
+        } else if (resolved < 0) {
+            throw new ObjReaderException("Relative index refers before the first element", lineNumber);
+        }
+        return resolved;
+    }
+
+    private void addFixup(int attribute, int corner) {
+        if (fixupCount + 3 > fixups.length) {
+            fixups = Arrays.copyOf(fixups, Math.max(48, fixups.length * 2));
+        }
+        fixups[fixupCount++] = attribute;
+        fixups[fixupCount++] = corner;
+        fixups[fixupCount++] = lineNumber;
+    }
+
+    // Относительные индексы фрагмента: тройки (атрибут VERTEX/TEXTURE/NORMAL, угол, строка)
+    int[] getRelativeFixups() {
+        return fixups;
+    }
+
+    int getRelativeFixupCount() {
+        return fixupCount;
+    }
+
+    // Границы первых трёх частей слова грани; возвращает число частей без пустого хвоста
+    private int splitFaceWord(int start, int end) {
+        int parts = 0;
+        int nonEmptyParts = 0;
+        int partStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || window[i] == '/') {
+                if (parts < partStarts.length) {
+                    partStarts[parts] = partStart;
+                    partEnds[parts] = i;
+                }
+                parts++;
+                if (i > partStart) {
+                    nonEmptyParts = parts;
+                }
+                partStart = i + 1;
+            }
+        }
+        return nonEmptyParts;
+    }
+
+    private void parseComment() {
+        // "# TRANSFORMED: true|false" - флаг сохранённой трансформированной модели
+        if (wordCount >= 3 && tokenEquals(1, "TRANSFORMED:")) {
+            model.setTransformed(tokenEqualsIgnoreCase(2, "true"));
+            transformedFlagSeen = true;
+        }
+    }
+
+    private boolean tokenEquals(int word, String expected) {
+        int start = wordStarts[word];
+        int length = wordEnds[word] - start;
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (window[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tokenEqualsIgnoreCase(int word, String expected) {
+        int start = wordStarts[word];
+        int length = wordEnds[word] - start;
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase((char) window[start + i]) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // String слова - только для сообщений и редких форматов чисел
+    private String word(int word) {
+        return text(wordStarts[word], wordEnds[word]);
+    }
+
+    private String text(int start, int end) {
+        return new String(window, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private float parseFloat(int word) {
+        return parseFloat(wordStarts[word], wordEnds[word]);
+    }
+
+    // Десятичное число [+-]digits[.digits][e[+-]digits] без создания String.
+    // Остальные формы (inf, nan, hex, суффиксы f/d) и случаи, где быстрый путь не гарантирует
+    // правильного округления, уходят в Float.parseFloat - результат всегда совпадает с ним.
+    float parseFloat(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (window[i] == '-' || window[i] == '+')) {
+            negative = window[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        while (i < end && window[i] >= '0' && window[i] <= '9') {
+            anyDigits = true;
+            if (mantissa != 0 || window[i] != '0') {
+                mantissa = mantissa * 10 + (window[i] - '0');
+                significantDigits++;
+            }
+            i++;
+        }
+        if (i < end && window[i] == '.') {
+            i++;
+            while (i < end && window[i] >= '0' && window[i] <= '9') {
+                anyDigits = true;
+                if (mantissa != 0 || window[i] != '0') {
+                    mantissa = mantissa * 10 + (window[i] - '0');
+                    significantDigits++;
+                }
+                exponent--;
+                i++;
+            }
+        }
+        if (anyDigits && i < end && (window[i] == 'e' || window[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (window[i] == '-' || window[i] == '+')) {
+                negativeExponent = window[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            while (i < end && window[i] >= '0' && window[i] <= '9' && explicitExponent < 10000) {
+                explicitExponent = explicitExponent * 10 + (window[i] - '0');
+                i++;
+            }
+            if (i == exponentStart) {
+                return parseFloatFallback(start, end);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!anyDigits || i != end || significantDigits > 18) {
+            return parseFloatFallback(start, end);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+        if (mantissa < (1L << 24) && exponent >= -10 && exponent <= 10) {
+            float value = exponent < 0 ? mantissa / FLOAT_POW10[-exponent] : mantissa * FLOAT_POW10[exponent];
+            return negative ? -value : value;
+        }
+        if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / DOUBLE_POW10[-exponent] : mantissa * DOUBLE_POW10[exponent];
+            // Двойное округление (decimal -> double -> float) ошибается только на середине между float
+            if (!isFloatMidpoint(value)) {
+                return (float) (negative ? -value : value);
+            }
+        }
+        return parseFloatFallback(start, end);
+    }
+
+    private static boolean isFloatMidpoint(double value) {
+        // Нормальный float: 24 бита мантиссы из 53 у double; середина - младшие 29 бит равны 1 << 28
+        long bits = Double.doubleToRawLongBits(value);
+        return (bits & ((1L << 29) - 1)) == (1L << 28);
+    }
+
+    private float parseFloatFallback(int start, int end) {
+        return ObjReader.parseFloatSafe(text(start, end), lineNumber);
+    }
+
+    // Целое со знаком; до 9 цифр - без String, длиннее и ошибки - через Integer.parseInt (то же исключение)
+    int parseInt(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (window[i] == '-' || window[i] == '+')) {
+            negative = window[i] == '-';
+            i++;
+        }
+        int digits = end - i;
+        if (digits < 1 || digits > 9) {
+            return Integer.parseInt(text(start, end));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = window[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(text(start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+}
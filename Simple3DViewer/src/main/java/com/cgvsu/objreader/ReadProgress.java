@@ -0,0 +1,16 @@
+package com.cgvsu.objreader;
+
+// наблюдатель чтения OBJ: прогресс в байтах и отмена.
+// парсер сообщает о каждом прочитанном окне; при параллельном чтении advance вызывается
+// из нескольких потоков одновременно, поэтому реализация должна быть потокобезопасной.
+
+public interface ReadProgress {
+
+    // Разобрано ещё bytes байт входа (приращение, а не итог)
+    void advance(long bytes);
+
+    // Проверяется перед чтением каждого окна: true - разбор прерывается CancellationException
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.cgvsu.objwriter;
+
+// запись двоичного кэша модели (формат - MeshCacheFormat) после разбора OBJ и preprocess.
+// массивы MeshBuffers выгружаются массовыми put через буфер-представление float/int.
+// файл пишется во временный (уникальное имя) и переименовывается: читатель не увидит недописанный кэш,
+// при ошибке записи временный файл удаляется - в каталоге кэша не копятся обрывки.
+
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.MeshCacheFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public final class MeshCacheWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private MeshCacheWriter() {
+    }
+
+    public static void write(Path cacheFile, Path source, Model model) throws IOException {
+        if (cacheFile == null || source == null) {
+            throw new IllegalArgumentException("Cache and source paths cannot be null");
+        }
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+
+        Path directory = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, cacheFile.getFileName() + ".", ".tmp");
+        try {
+            writeTemp(temp, source, model);
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static void writeTemp(Path temp, Path source, Model model) throws IOException {
+        MeshBuffers buffers = model.getMeshBuffers();
+        byte[] path = MeshCacheFormat.sourceKey(source).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(MeshCacheFormat.MAGIC);
+            out.putInt(MeshCacheFormat.VERSION);
+            out.putLong(Files.size(source));
+            out.putLong(Files.getLastModifiedTime(source).toMillis());
+            out.putInt(model.isTransformed() ? MeshCacheFormat.FLAG_TRANSFORMED : 0);
+            out.putInt(buffers.getVertexCount());
+            out.putInt(buffers.getTextureVertexCount());
+            out.putInt(buffers.getNormalCount());
+            out.putInt(buffers.getPolygonCount());
+            out.putInt(buffers.getCornerCount());
+            out.putInt(path.length);
+            putBytes(channel, out, path, path.length);
+            int padding = (int) (MeshCacheFormat.dataOffset(path.length) - MeshCacheFormat.HEADER_SIZE - path.length);
+            putBytes(channel, out, new byte[padding], padding);
+
+            putFloats(channel, out, buffers.getPositions(), buffers.getVertexCount() * 3);
+            putFloats(channel, out, buffers.getTextureCoords(), buffers.getTextureVertexCount() * 2);
+            putFloats(channel, out, buffers.getNormals(), buffers.getNormalCount() * 3);
+            putInts(channel, out, buffers.getPolygonStarts(), buffers.getPolygonCount() + 1);
+            putInts(channel, out, buffers.getVertexIndices(), buffers.getCornerCount());
+            putInts(channel, out, buffers.getTextureIndices(), buffers.getCornerCount());
+            putInts(channel, out, buffers.getNormalIndices(), buffers.getCornerCount());
+            putBytes(channel, out, buffers.getPolygonFlags(), buffers.getPolygonCount());
+            flush(channel, out);
+        }
+    }
+
+    private static void putFloats(FileChannel channel, ByteBuffer out, float[] values, int count) throws IOException {
+        int done = 0;
+        while (done < count) {
+            if (out.remaining() < Float.BYTES) {
+                flush(channel, out);
+            }
+            int n = Math.min(count - done, out.remaining() / Float.BYTES);
+            out.asFloatBuffer().put(values, done, n);
+            out.position(out.position() + n * Float.BYTES);
+            done += n;
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer out, int[] values, int count) throws IOException {
+        int done = 0;
+        while (done < count) {
+            if (out.remaining() < Integer.BYTES) {
+                flush(channel, out);
+            }
+            int n = Math.min(count - done, out.remaining() / Integer.BYTES);
+            out.asIntBuffer().put(values, done, n);
+            out.position(out.position() + n * Integer.BYTES);
+            done += n;
+        }
+    }
+
+    private static void putBytes(FileChannel channel, ByteBuffer out, byte[] values, int count) throws IOException {
+        int done = 0;
+        while (done < count) {
+            if (!out.hasRemaining()) {
+                flush(channel, out);
+            }
+            int n = Math.min(count - done, out.remaining());
+            out.put(values, done, n);
+            done += n;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,142 @@
+package com.cgvsu.objwriter;
+
+// растущий буфер ASCII-байт для записи OBJ: числа форматируются прямо в byte[] без String.format и боксинга.
+// appendFixed6 даёт те же байты, что String.format(Locale.US, "%.6f", f):
+// float - двоичная дробь m * 2^e, поэтому |f| * 10^6 считается точно в long и округляется половиной вверх.
+// Formatter округляет половиной вверх кратчайшую десятичную запись double, но граница округления
+// (k + 1/2) * 10^-6 отстоит от любого float минимум на 2^e - больше половины ulp double,
+// так что обе записи по одну сторону границы и результат совпадает.
+// бесконечности, NaN и |f| >= 2^32 (не помещаются в long после умножения) уходят в String.format.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Locale;
+
+final class ObjTextBuffer {
+
+    private static final int SCALE = 1_000_000;
+    private static final float FAST_LIMIT = 4294967296.0f;
+
+    private byte[] bytes;
+    private int size;
+
+    ObjTextBuffer(int capacity) {
+        bytes = new byte[Math.max(16, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Содержимое для сборной записи (FileChannel.write(ByteBuffer[])) - без копирования
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = asByteBuffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        size = 0;
+    }
+
+    ObjTextBuffer append(char c) {
+        ensure(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+
+    // Только ASCII: метки секций и токены OBJ
+    ObjTextBuffer append(String text) {
+        int length = text.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    ObjTextBuffer appendInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return append(Integer.toString(value));
+        }
+        ensure(11);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        appendDigits(value, 1);
+        return this;
+    }
+
+    ObjTextBuffer appendFixed6(float value) {
+        if (!(Math.abs(value) < FAST_LIMIT)) {
+            return append(String.format(Locale.US, "%.6f", value));
+        }
+
+        int bits = Float.floatToRawIntBits(value);
+        int exponentBits = (bits >>> 23) & 0xff;
+        long mantissa = bits & 0x7fffff;
+        int exponent;
+        if (exponentBits == 0) {
+            exponent = -149;
+        } else {
+            mantissa |= 1 << 23;
+            exponent = exponentBits - 150;
+        }
+
+        // |value| * 10^6 = mantissa * 10^6 * 2^exponent, mantissa * 10^6 < 2^44
+        long scaled = mantissa * SCALE;
+        long rounded;
+        if (exponent >= 0) {
+            rounded = scaled << exponent;
+        } else if (exponent > -62) {
+            int shift = -exponent;
+            rounded = scaled >>> shift;
+            long remainder = scaled & ((1L << shift) - 1);
+            if (remainder >= 1L << (shift - 1)) {
+                rounded++;
+            }
+        } else {
+            rounded = 0;
+        }
+
+        ensure(28);
+        // Знак как у Formatter: -0.0 и малые отрицательные печатаются как "-0.000000"
+        if (bits < 0) {
+            bytes[size++] = '-';
+        }
+        appendDigits(rounded / SCALE, 1);
+        bytes[size++] = '.';
+        appendDigits(rounded % SCALE, 6);
+        return this;
+    }
+
+    // Десятичная запись неотрицательного числа, дополненная нулями слева до minDigits
+    private void appendDigits(long value, int minDigits) {
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        int end = size + digits;
+        for (int i = end - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size = end;
+    }
+
+    private void ensure(int extra) {
+        if (bytes.length - size < extra) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+        }
+    }
+}
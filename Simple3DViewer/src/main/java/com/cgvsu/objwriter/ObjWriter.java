@@ -2,21 +2,69 @@ package com.cgvsu.objwriter;
 
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshBuffers;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public final class ObjWriter {
 
+    // Текст копится в буфере и уходит в канал порциями примерно такого размера
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Элементов секции за один проход форматирования (между проверками заполненности буфера)
+    private static final int BLOCK_SIZE = 1 << 12;
+    // Параллельная запись: моделям меньше этого числа элементов потоки не окупаются
+    static final int MIN_PARALLEL_ELEMENTS = 1 << 16;
+    private static final int PARALLEL_BLOCK_SIZE = 1 << 14;
+    private static final int BLOCKS_PER_THREAD = 4;
+
     private ObjWriter() {
     }
 
     public static void write(final String fileName, final Model model) throws IOException {
+        write(fileName, model, false);
+    }
+
+    // atomicReplace: запись во временный файл рядом с целевым и атомарное переименование -
+    // при сбое на диске остаётся прежний файл, а не наполовину записанная модель
+    public static void write(final String fileName, final Model model, final boolean atomicReplace) throws IOException {
+        writeFile(fileName, model, atomicReplace, ObjWriter::writeModel);
+    }
+
+    public static void writeParallel(final String fileName, final Model model, final boolean atomicReplace) throws IOException {
+        writeParallel(fileName, model, atomicReplace, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Секции форматируются параллельно блоками и пишутся по порядку сборной записью; результат совпадает с write
+    public static void writeParallel(
+            final String fileName,
+            final Model model,
+            final boolean atomicReplace,
+            final int threads) throws IOException {
+        writeFile(fileName, model, atomicReplace, (channel, m) -> writeModelParallel(channel, m, threads));
+    }
+
+    private interface ModelOutput {
+        void write(FileChannel channel, Model model) throws IOException;
+    }
+
+    private static void writeFile(
+            final String fileName,
+            final Model model,
+            final boolean atomicReplace,
+            final ModelOutput output) throws IOException {
         if (fileName == null || fileName.trim().isEmpty()) {
             throw new IllegalArgumentException("File name cannot be empty");
         }
@@ -24,89 +72,266 @@ public final class ObjWriter {
             throw new IllegalArgumentException("Model cannot be null");
         }
 
-        try (FileWriter writer = new FileWriter(fileName)) {
-            writeVertices(writer, model.getVertices());
-            writer.write("\n");
-            List<Vector2f> textureCoords = model.getTextureVertices();
-            if (textureCoords == null || textureCoords.isEmpty()) {
-                textureCoords = generateTextureCoordinates(model.getVertices());
+        Path target = Path.of(fileName);
+        if (!atomicReplace) {
+            try (FileChannel channel = openForWrite(target)) {
+                output.write(channel, model);
             }
-            writeTextureVertices(writer, textureCoords);
-            writer.write("\n");
+            return;
+        }
 
-            List<Vector3f> normals = model.getNormals();
-            if (normals == null || normals.isEmpty()) {
-                normals = calculateNormals(model.getVertices(), model.getPolygons());
+        // Уникальный временный файл рядом с целью: параллельные сохранения и чужой <имя>.tmp не затрагиваются
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = openForWrite(temp)) {
+                output.write(channel, model);
+                channel.force(true);
             }
-            writeNormals(writer, normals);
-            writer.write("\n");
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
 
-            writePolygons(writer, model.getPolygons(), model.getTextureVertices(), model.getNormals());
+    private static FileChannel openForWrite(final Path path) throws IOException {
+        return FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeModel(final FileChannel channel, final Model model) throws IOException {
+        Sections sections = Sections.of(model);
+        ObjTextBuffer out = new ObjTextBuffer(BUFFER_SIZE + BUFFER_SIZE / 4);
+        for (Piece piece : pieces(sections, BLOCK_SIZE)) {
+            piece.format(out, sections);
+            if (out.size() >= BUFFER_SIZE) {
+                out.writeTo(channel);
+            }
         }
+        out.writeTo(channel);
     }
 
-    private static void writeVertices(final FileWriter writer, final List<Vector3f> vertices) throws IOException {
-        writer.write("# Vertices\n");
-        for (Vector3f v : vertices) {
-            writer.write(String.format(Locale.US, "v %.6f %.6f %.6f\n", v.getX(), v.getY(), v.getZ()));
+    private static void writeModelParallel(final FileChannel channel, final Model model, final int threads)
+            throws IOException {
+        Sections sections = Sections.of(model);
+        long elements = (long) sections.vertexCount + sections.textureCount + sections.normalCount
+                + sections.buffers.getPolygonCount();
+        if (threads <= 1 || elements < MIN_PARALLEL_ELEMENTS) {
+            writeModel(channel, model);
+            return;
+        }
+
+        List<Piece> pieces = pieces(sections, PARALLEL_BLOCK_SIZE);
+        // Форматируется волна блоков, затем она целиком уходит в файл - память ограничена размером волны
+        int wave = threads * BLOCKS_PER_THREAD;
+        ObjTextBuffer[] outputs = new ObjTextBuffer[wave];
+        for (int i = 0; i < wave; i++) {
+            outputs[i] = new ObjTextBuffer(PARALLEL_BLOCK_SIZE * 32);
+        }
+        ByteBuffer[] gather = new ByteBuffer[wave];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int first = 0; first < pieces.size(); first += wave) {
+                final int base = first;
+                final int count = Math.min(wave, pieces.size() - first);
+                pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> {
+                    outputs[i].clear();
+                    pieces.get(base + i).format(outputs[i], sections);
+                })).join();
+
+                long remaining = 0;
+                for (int i = 0; i < count; i++) {
+                    gather[i] = outputs[i].asByteBuffer();
+                    remaining += gather[i].remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(gather, 0, count);
+                }
+            }
+        } finally {
+            pool.shutdown();
         }
     }
 
-    private static void writeTextureVertices(final FileWriter writer, final List<Vector2f> textureCoords) throws IOException {
-        writer.write("# Texture coordinates\n");
-        for (Vector2f t : textureCoords) {
-            writer.write(String.format(Locale.US, "vt %.6f %.6f\n", t.getX(), t.getY()));
+    // Порядок вывода: заголовки секций и блоки элементов; одинаков для последовательной и параллельной записи
+    private static List<Piece> pieces(final Sections sections, final int blockSize) {
+        List<Piece> pieces = new ArrayList<>();
+        pieces.add(new Piece("# Vertices\n", Piece.NONE, 0, 0));
+        addBlocks(pieces, Piece.VERTICES, sections.vertexCount, blockSize);
+        pieces.add(new Piece("\n# Texture coordinates\n", Piece.NONE, 0, 0));
+        addBlocks(pieces, Piece.TEXTURE_VERTICES, sections.textureCount, blockSize);
+        pieces.add(new Piece("\n# Normals\n", Piece.NONE, 0, 0));
+        addBlocks(pieces, Piece.NORMALS, sections.normalCount, blockSize);
+        pieces.add(new Piece("\n# Polygons\n", Piece.NONE, 0, 0));
+        addBlocks(pieces, Piece.POLYGONS, sections.buffers.getPolygonCount(), blockSize);
+        return pieces;
+    }
+
+    private static void addBlocks(final List<Piece> pieces, final int kind, final int count, final int blockSize) {
+        for (int from = 0; from < count; from += blockSize) {
+            pieces.add(new Piece(null, kind, from, Math.min(from + blockSize, count)));
         }
     }
 
-    private static void writeNormals(final FileWriter writer, final List<Vector3f> normals) throws IOException {
-        writer.write("# Normals\n");
-        for (Vector3f n : normals) {
-            writer.write(String.format(Locale.US, "vn %.6f %.6f %.6f\n", n.getX(), n.getY(), n.getZ()));
+    // Кусок выходного файла: постоянный текст или диапазон элементов одной секции
+    private static final class Piece {
+        static final int NONE = 0;
+        static final int VERTICES = 1;
+        static final int TEXTURE_VERTICES = 2;
+        static final int NORMALS = 3;
+        static final int POLYGONS = 4;
+
+        final String text;
+        final int kind;
+        final int from;
+        final int to;
+
+        Piece(String text, int kind, int from, int to) {
+            this.text = text;
+            this.kind = kind;
+            this.from = from;
+            this.to = to;
+        }
+
+        void format(final ObjTextBuffer out, final Sections sections) {
+            if (text != null) {
+                out.append(text);
+            }
+            switch (kind) {
+                case VERTICES:
+                    formatVertices(out, sections.positions, from, to);
+                    break;
+                case TEXTURE_VERTICES:
+                    formatTextureVertices(out, sections.textureCoords, from, to);
+                    break;
+                case NORMALS:
+                    formatNormals(out, sections.normals, from, to);
+                    break;
+                case POLYGONS:
+                    formatPolygons(out, sections, from, to);
+                    break;
+                default:
+                    break;
+            }
         }
     }
 
-    private static void writePolygons(
-            final FileWriter writer,
-            final List<Polygon> polygons,
-            final List<Vector2f> textureVertices,
-            final List<Vector3f> normals) throws IOException {
+    // Данные секций: собственные массивы модели или сгенерированные UV/нормали, если их нет
+    static final class Sections {
+        final MeshBuffers buffers;
+        final float[] positions;
+        final int vertexCount;
+        final float[] textureCoords;
+        final int textureCount;
+        final float[] normals;
+        final int normalCount;
+        // Индексы UV/нормалей граней пишутся только если у модели есть собственные UV/нормали
+        final boolean hasTexture;
+        final boolean hasNormals;
 
-        writer.write("# Polygons\n");
+        private Sections(MeshBuffers buffers, float[] textureCoords, int textureCount, float[] normals, int normalCount) {
+            this.buffers = buffers;
+            this.positions = buffers.getPositions();
+            this.vertexCount = buffers.getVertexCount();
+            this.textureCoords = textureCoords;
+            this.textureCount = textureCount;
+            this.normals = normals;
+            this.normalCount = normalCount;
+            this.hasTexture = buffers.getTextureVertexCount() > 0;
+            this.hasNormals = buffers.getNormalCount() > 0;
+        }
 
-        final boolean hasTexture = textureVertices != null && !textureVertices.isEmpty();
-        final boolean hasNormals = normals != null && !normals.isEmpty();
+        static Sections of(final Model model) {
+            MeshBuffers buffers = model.getMeshBuffers();
+            float[] textureCoords = buffers.getTextureCoords();
+            int textureCount = buffers.getTextureVertexCount();
+            if (textureCount == 0) {
+                List<Vector2f> generated = generateTextureCoordinates(model.getVertices());
+                textureCount = generated.size();
+                textureCoords = new float[textureCount * 2];
+                for (int i = 0; i < textureCount; i++) {
+                    textureCoords[i * 2] = generated.get(i).getX();
+                    textureCoords[i * 2 + 1] = generated.get(i).getY();
+                }
+            }
 
-        for (Polygon polygon : polygons) {
-            List<Integer> vIdx = polygon.getVertexIndices();
-            if (vIdx == null || vIdx.size() < 3) {
-                continue;
+            float[] normals = buffers.getNormals();
+            int normalCount = buffers.getNormalCount();
+            if (normalCount == 0) {
+                List<Vector3f> generated = calculateNormals(model.getVertices(), model.getPolygons());
+                normalCount = generated.size();
+                normals = new float[normalCount * 3];
+                for (int i = 0; i < normalCount; i++) {
+                    normals[i * 3] = generated.get(i).getX();
+                    normals[i * 3 + 1] = generated.get(i).getY();
+                    normals[i * 3 + 2] = generated.get(i).getZ();
+                }
             }
+            return new Sections(buffers, textureCoords, textureCount, normals, normalCount);
+        }
+    }
+
+    static void formatVertices(final ObjTextBuffer out, final float[] positions, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            out.append("v ").appendFixed6(positions[i * 3])
+                    .append(' ').appendFixed6(positions[i * 3 + 1])
+                    .append(' ').appendFixed6(positions[i * 3 + 2])
+                    .append('\n');
+        }
+    }
+
+    static void formatTextureVertices(final ObjTextBuffer out, final float[] textureCoords, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            out.append("vt ").appendFixed6(textureCoords[i * 2])
+                    .append(' ').appendFixed6(textureCoords[i * 2 + 1])
+                    .append('\n');
+        }
+    }
+
+    static void formatNormals(final ObjTextBuffer out, final float[] normals, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            out.append("vn ").appendFixed6(normals[i * 3])
+                    .append(' ').appendFixed6(normals[i * 3 + 1])
+                    .append(' ').appendFixed6(normals[i * 3 + 2])
+                    .append('\n');
+        }
+    }
 
-            List<Integer> tIdx = polygon.getTextureVertexIndices();
-            List<Integer> nIdx = polygon.getNormalIndices();
+    static void formatPolygons(final ObjTextBuffer out, final Sections sections, final int from, final int to) {
+        MeshBuffers buffers = sections.buffers;
+        int[] starts = buffers.getPolygonStarts();
+        byte[] flags = buffers.getPolygonFlags();
+        int[] vIdx = buffers.getVertexIndices();
+        int[] tIdx = buffers.getTextureIndices();
+        int[] nIdx = buffers.getNormalIndices();
+
+        for (int p = from; p < to; p++) {
+            int start = starts[p];
+            int end = starts[p + 1];
+            if (end - start < 3) {
+                continue;
+            }
 
-            final boolean polyHasTexture = hasTexture && tIdx != null && !tIdx.isEmpty() && tIdx.size() == vIdx.size();
-            final boolean polyHasNormals = hasNormals && nIdx != null && !nIdx.isEmpty() && nIdx.size() == vIdx.size();
+            final boolean polyHasTexture = sections.hasTexture && (flags[p] & MeshBuffers.HAS_TEXTURE) != 0;
+            final boolean polyHasNormals = sections.hasNormals && (flags[p] & MeshBuffers.HAS_NORMALS) != 0;
 
-            writer.write("f");
-            for (int i = 0; i < vIdx.size(); i++) {
-                int v = vIdx.get(i) + 1;
+            out.append('f');
+            for (int c = start; c < end; c++) {
+                out.append(' ').appendInt(vIdx[c] + 1);
                 if (polyHasTexture && polyHasNormals) {
-                    int vt = tIdx.get(i) + 1;
-                    int vn = nIdx.get(i) + 1;
-                    writer.write(String.format(Locale.US, " %d/%d/%d", v, vt, vn));
+                    out.append('/').appendInt(tIdx[c] + 1).append('/').appendInt(nIdx[c] + 1);
                 } else if (polyHasTexture) {
-                    int vt = tIdx.get(i) + 1;
-                    writer.write(String.format(Locale.US, " %d/%d", v, vt));
+                    out.append('/').appendInt(tIdx[c] + 1);
                 } else if (polyHasNormals) {
-                    int vn = nIdx.get(i) + 1;
-                    writer.write(String.format(Locale.US, " %d//%d", v, vn));
-                } else {
-                    writer.write(String.format(Locale.US, " %d", v));
+                    out.append("//").appendInt(nIdx[c] + 1);
                 }
             }
-            writer.write("\n");
+            out.append('\n');
         }
     }
 
@@ -0,0 +1,13 @@
+package com.cgvsu.render_engine;
+
+// отбрасывание граней по ориентации: лицевая грань - обход против часовой стрелки со стороны камеры
+// (нормаль (v1 - v0) x (v2 - v0) смотрит на камеру).
+
+public enum CullMode {
+    // Рисуются все грани
+    NONE,
+    // Отбрасываются грани, повёрнутые от камеры (замкнутые модели - вдвое меньше растеризации)
+    BACK,
+    // Отбрасываются лицевые грани (видна внутренняя сторона модели)
+    FRONT
+}
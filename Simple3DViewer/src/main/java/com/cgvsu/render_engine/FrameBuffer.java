@@ -0,0 +1,133 @@
+package com.cgvsu.render_engine;
+
+// внеэкранная цель рендера: упакованные пиксели ARGB (premultiplied) + буфер глубины.
+// растеризаторы пишут напрямую в int[], без Color/PixelWriter на каждый пиксель.
+// вывод кадра на Canvas: один вызов PixelWriter.setPixels (IntArgbPre).
+// массив пикселей только растёт (как ZBuffer): кадр занимает первые width*height элементов, строка - width.
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+public class FrameBuffer {
+
+    private int width;
+    private int height;
+    private int[] pixels = new int[0];
+    private ZBuffer zBuffer;
+    // Проекция вершин модели камерой этого вида: своя у каждой цели рендера, переиспользуется моделями кадра
+    private final VertexCache vertexCache = new VertexCache();
+
+    public FrameBuffer(int width, int height) {
+        allocate(Math.max(0, width), Math.max(0, height));
+    }
+
+    // Внешний буфер глубины (тесты: подсчёт сравнений глубины)
+    FrameBuffer(int width, int height, ZBuffer zBuffer) {
+        this.zBuffer = zBuffer;
+        allocate(Math.max(0, width), Math.max(0, height));
+    }
+
+    private void allocate(int width, int height) {
+        this.width = width;
+        this.height = height;
+        // Уменьшение окна (перетаскивание границы) не пересоздаёт кадр: логический размер меньше массива
+        if (pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+        if (zBuffer == null) {
+            this.zBuffer = new ZBuffer(width, height);
+        } else {
+            zBuffer.resize(width, height);
+        }
+    }
+
+    public void resize(int width, int height) {
+        // Пересоздание буферов только при реальном изменении размера Canvas
+        width = Math.max(0, width);
+        height = Math.max(0, height);
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        allocate(width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Длина может превышать width * height после уменьшения: значимы первые width * height пикселей
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public ZBuffer getZBuffer() {
+        return zBuffer;
+    }
+
+    VertexCache getVertexCache() {
+        return vertexCache;
+    }
+
+    public void clear(Color background) {
+        clear(background != null ? toArgb(background) : 0);
+    }
+
+    public void clear(int argb) {
+        Arrays.fill(pixels, 0, width * height, premultiply(argb));
+        zBuffer.clear();
+    }
+
+    public void setPixel(int x, int y, int argb) {
+        pixels[y * width + x] = premultiply(argb);
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public void blit(GraphicsContext graphicsContext) {
+        if (width == 0 || height == 0) {
+            return;
+        }
+        // Вывод кадра: один bulk-вызов вместо setColor на каждый пиксель
+        graphicsContext.getPixelWriter().setPixels(
+                0, 0, width, height,
+                PixelFormat.getIntArgbPreInstance(),
+                pixels, 0, width
+        );
+    }
+
+    public static int toArgb(Color color) {
+        int a = (int) Math.round(color.getOpacity() * 255.0);
+        int r = (int) Math.round(color.getRed() * 255.0);
+        int g = (int) Math.round(color.getGreen() * 255.0);
+        int b = (int) Math.round(color.getBlue() * 255.0);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // Обратное к toArgb (ARGB не premultiplied)
+    static Color toColor(int argb) {
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, (argb >>> 24) / 255.0);
+    }
+
+    static int premultiply(int argb) {
+        int a = argb >>> 24;
+        if (a == 0xFF) {
+            return argb;
+        }
+        if (a == 0) {
+            return 0;
+        }
+        int r = ((argb >> 16) & 0xFF) * a / 255;
+        int g = ((argb >> 8) & 0xFF) * a / 255;
+        int b = (argb & 0xFF) * a / 255;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
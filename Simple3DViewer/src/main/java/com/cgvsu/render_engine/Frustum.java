@@ -0,0 +1,68 @@
+package com.cgvsu.render_engine;
+
+ // пирамида видимости: 6 плоскостей, извлечённых из матрицы projection * view (* model) по Gribb–Hartmann.
+ // плоскость a*x + b*y + c*z + d >= 0 - внутри; координаты - в пространстве, из которого строилась матрица.
+ // проверки консервативные: false только если объём гарантированно снаружи.
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.BoundingBox;
+
+public class Frustum {
+
+    // planes[i] = {a, b, c, d}: left, right, bottom, top, near, far
+    private final float[][] planes = new float[6][4];
+
+    public Frustum(Matrix4f clipMatrix) {
+        for (int col = 0; col < 4; col++) {
+            float row0 = clipMatrix.get(0, col);
+            float row1 = clipMatrix.get(1, col);
+            float row2 = clipMatrix.get(2, col);
+            float row3 = clipMatrix.get(3, col);
+            planes[0][col] = row3 + row0;
+            planes[1][col] = row3 - row0;
+            planes[2][col] = row3 + row1;
+            planes[3][col] = row3 - row1;
+            planes[4][col] = row3 + row2;
+            planes[5][col] = row3 - row2;
+        }
+        // Нормировка: расстояние до плоскости в единицах пространства (нужно для проверки сферы)
+        for (float[] plane : planes) {
+            float length = (float) Math.sqrt(plane[0] * plane[0] + plane[1] * plane[1] + plane[2] * plane[2]);
+            if (length > 1e-12f) {
+                for (int i = 0; i < 4; i++) {
+                    plane[i] /= length;
+                }
+            }
+        }
+    }
+
+    public boolean intersectsSphere(Vector3f center, float radius) {
+        for (float[] plane : planes) {
+            float distance = plane[0] * center.getX() + plane[1] * center.getY() + plane[2] * center.getZ() + plane[3];
+            if (distance < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean intersectsBox(Vector3f min, Vector3f max) {
+        for (float[] plane : planes) {
+            // Самый "внутренний" угол AABB относительно плоскости (p-vertex)
+            float x = plane[0] >= 0 ? max.getX() : min.getX();
+            float y = plane[1] >= 0 ? max.getY() : min.getY();
+            float z = plane[2] >= 0 ? max.getZ() : min.getZ();
+            if (plane[0] * x + plane[1] * y + plane[2] * z + plane[3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean intersects(BoundingBox bounds) {
+        // Сначала дешёвая сфера, затем более плотный AABB
+        return intersectsSphere(bounds.getCenter(), bounds.getRadius())
+                && intersectsBox(bounds.getMin(), bounds.getMax());
+    }
+}
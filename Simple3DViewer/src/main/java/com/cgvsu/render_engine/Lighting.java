@@ -2,6 +2,7 @@ package com.cgvsu.render_engine;
 
  // модель освещения (ambient + diffuse).
  // привязка к камере (cameraPosition -> cameraTarget).
+ // shadeArgb: затенение упакованного ARGB без Color - множитель ambient + diffuse * intensity в fixed-point 16.16.
 
  
 import com.cgvsu.math.Matrix4f;
@@ -47,6 +48,23 @@ public class Lighting {
         return Math.max(0.0f, Math.min(1.0f, diffuse));
     }
 
+    // То же по компонентам - без векторов (вершины Гуро, пиксели Фонга); нулевая нормаль или направление - 0
+    public float computeLightingIntensity(float normalX, float normalY, float normalZ,
+                                          float positionX, float positionY, float positionZ,
+                                          float cameraX, float cameraY, float cameraZ) {
+        float toLightX = cameraX - positionX;
+        float toLightY = cameraY - positionY;
+        float toLightZ = cameraZ - positionZ;
+        float lengths = (float) Math.sqrt(
+                (normalX * normalX + normalY * normalY + normalZ * normalZ)
+                        * (toLightX * toLightX + toLightY * toLightY + toLightZ * toLightZ));
+        if (!(lengths > 0.0f)) {
+            return 0.0f;
+        }
+        float diffuse = (normalX * toLightX + normalY * toLightY + normalZ * toLightZ) / lengths;
+        return Math.max(0.0f, Math.min(1.0f, diffuse));
+    }
+
     public Color shadeColor(Color baseColor, float intensity) {
         double ambientR = baseColor.getRed() * ambientIntensity;
         double ambientG = baseColor.getGreen() * ambientIntensity;
@@ -64,6 +82,19 @@ public class Lighting {
         return new Color(r, g, b, baseColor.getOpacity());
     }
 
+    // То же, что shadeColor, для упакованного ARGB (не premultiplied): альфа сохраняется, каналы насыщаются на 255
+    public int shadeArgb(int argb, float intensity) {
+        // NaN и отрицательная интенсивность - только ambient, как у shadeColor после ограничения
+        float factor = ambientIntensity + diffuseIntensity * (intensity > 0.0f ? intensity : 0.0f);
+        // При множителе >= 255 любой ненулевой канал насыщается - дальше множитель не растёт
+        int scale = (int) (Math.min(factor, 255.0f) * 65536.0f + 0.5f);
+        // c * scale + 0x8000 < 2^32: беззнаковый сдвиг
+        int r = (((argb >> 16) & 0xFF) * scale + 0x8000) >>> 16;
+        int g = (((argb >> 8) & 0xFF) * scale + 0x8000) >>> 16;
+        int b = ((argb & 0xFF) * scale + 0x8000) >>> 16;
+        return (argb & 0xFF000000) | (Math.min(r, 255) << 16) | (Math.min(g, 255) << 8) | Math.min(b, 255);
+    }
+
     public Vector3f getLightDirection() {
         return lightDirection;
     }
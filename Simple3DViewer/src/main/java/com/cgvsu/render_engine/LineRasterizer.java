@@ -1,10 +1,9 @@
 package com.cgvsu.render_engine;
 
-// растеризация отрезка (каркас) с учётом ZBuffer
+// растеризация отрезка (каркас) с учётом ZBuffer, запись в FrameBuffer
 // Интерполяция: шаг по длине, линейная интерполяция Z
+// Отсечение: запись только внутри заданного прямоугольника (тайл/экран)
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelWriter;
 import javafx.scene.paint.Color;
 
 public class LineRasterizer {
@@ -12,16 +11,29 @@ public class LineRasterizer {
     private LineRasterizer() {}
 
     public static void drawLine(
-            GraphicsContext gc,
-            ZBuffer zBuffer,
+            FrameBuffer frameBuffer,
             ScreenVertex a,
             ScreenVertex b,
-            int width,
-            int height,
             Color color,
             double depthBiasScale
     ) {
-        PixelWriter pw = gc.getPixelWriter();
+        drawLine(frameBuffer, a, b, color, depthBiasScale,
+                0, 0, frameBuffer.getWidth() - 1, frameBuffer.getHeight() - 1);
+    }
+
+    public static void drawLine(
+            FrameBuffer frameBuffer,
+            ScreenVertex a,
+            ScreenVertex b,
+            Color color,
+            double depthBiasScale,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY
+    ) {
+        final ZBuffer zBuffer = frameBuffer.getZBuffer();
+        final int argb = FrameBuffer.toArgb(color);
 
         int x0 = Math.round(a.getX());
         int y0 = Math.round(a.getY());
@@ -39,9 +51,9 @@ public class LineRasterizer {
 
         int length = Math.max(dx, dy);
         if (length == 0) {
-            if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+            if (x0 >= clipMinX && x0 <= clipMaxX && y0 >= clipMinY && y0 <= clipMaxY) {
                 if (zBuffer.testAndSet(x0, y0, z0)) {
-                    pw.setColor(x0, y0, color);
+                    frameBuffer.setPixel(x0, y0, argb);
                 }
             }
             return;
@@ -59,10 +71,10 @@ public class LineRasterizer {
 
 
         for (int i = 0; i <= length; ++i) {
-            if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (x >= clipMinX && x <= clipMaxX && y >= clipMinY && y <= clipMaxY) {
                 double zb = z - depthBias;
                 if (zBuffer.testAndSet(x, y, zb)) {
-                    pw.setColor(x, y, color);
+                    frameBuffer.setPixel(x, y, argb);
                 }
             }
 
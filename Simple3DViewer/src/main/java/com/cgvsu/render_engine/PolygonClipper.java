@@ -0,0 +1,197 @@
+package com.cgvsu.render_engine;
+
+// отсечение выпуклого полигона в clip-space (Sutherland–Hodgman) до деления на W.
+// плоскости: near/far и guard-band |x|, |y| <= GUARD_BAND * w - дальше экрана треугольник
+// обрезается не по краю экрана, а с запасом, остальное отсекает растеризатор по bbox.
+// вершина: clip (x, y, z, w), мировая позиция, uv, нормаль, интенсивность освещения (Гуро) - интерполируются линейно.
+// флаг ребра: ребро i -> i+1 лежит на исходном ребре полигона (каркас не рисует рёбра отсечения).
+
+import java.util.Arrays;
+
+final class PolygonClipper {
+
+    // Раскладка атрибутов вершины в плоском массиве
+    static final int CX = 0;
+    static final int CY = 1;
+    static final int CZ = 2;
+    static final int CW = 3;
+    static final int WX = 4;
+    static final int WY = 5;
+    static final int WZ = 6;
+    static final int U = 7;
+    static final int V = 8;
+    static final int NX = 9;
+    static final int NY = 10;
+    static final int NZ = 11;
+    static final int LI = 12;
+    static final int STRIDE = 13;
+
+    // Guard-band: во сколько раз область отсечения шире экрана по x/y
+    static final float GUARD_BAND = 16.0f;
+
+    // Коды плоскостей: видимый объём (отбрасывание целиком) и плоскости, по которым режем
+    static final int OUT_LEFT = 1;
+    static final int OUT_RIGHT = 1 << 1;
+    static final int OUT_BOTTOM = 1 << 2;
+    static final int OUT_TOP = 1 << 3;
+    static final int OUT_NEAR = 1 << 4;
+    static final int OUT_FAR = 1 << 5;
+    static final int OUT_GUARD_LEFT = 1 << 6;
+    static final int OUT_GUARD_RIGHT = 1 << 7;
+    static final int OUT_GUARD_BOTTOM = 1 << 8;
+    static final int OUT_GUARD_TOP = 1 << 9;
+
+    static final int FRUSTUM_MASK = OUT_LEFT | OUT_RIGHT | OUT_BOTTOM | OUT_TOP | OUT_NEAR | OUT_FAR;
+    static final int CLIP_MASK = OUT_NEAR | OUT_FAR
+            | OUT_GUARD_LEFT | OUT_GUARD_RIGHT | OUT_GUARD_BOTTOM | OUT_GUARD_TOP;
+
+    private float[] vertices = new float[16 * STRIDE];
+    private float[] scratch = new float[16 * STRIDE];
+    private boolean[] originalEdges = new boolean[16];
+    private boolean[] scratchEdges = new boolean[16];
+    private int count;
+
+    static int outcode(float x, float y, float z, float w) {
+        int code = 0;
+        if (x < -w) code |= OUT_LEFT;
+        if (x > w) code |= OUT_RIGHT;
+        if (y < -w) code |= OUT_BOTTOM;
+        if (y > w) code |= OUT_TOP;
+        if (z < -w) code |= OUT_NEAR;
+        if (z > w) code |= OUT_FAR;
+        float guard = GUARD_BAND * w;
+        if (x < -guard) code |= OUT_GUARD_LEFT;
+        if (x > guard) code |= OUT_GUARD_RIGHT;
+        if (y < -guard) code |= OUT_GUARD_BOTTOM;
+        if (y > guard) code |= OUT_GUARD_TOP;
+        return code;
+    }
+
+    void reset(int vertexCount) {
+        ensureCapacity(vertexCount);
+        count = vertexCount;
+        Arrays.fill(originalEdges, 0, vertexCount, true);
+    }
+
+    void set(int vertex, int attribute, float value) {
+        vertices[vertex * STRIDE + attribute] = value;
+    }
+
+    float get(int vertex, int attribute) {
+        return vertices[vertex * STRIDE + attribute];
+    }
+
+    boolean isOriginalEdge(int vertex) {
+        return originalEdges[vertex];
+    }
+
+    int getVertexCount() {
+        return count;
+    }
+
+    // Отсечение по всем плоскостям из planes (биты CLIP_MASK); возвращает число вершин результата
+    int clip(int planes) {
+        for (int bit = OUT_NEAR; bit <= OUT_GUARD_TOP && count >= 3; bit <<= 1) {
+            if ((planes & bit) != 0) {
+                clipAgainst(bit);
+            }
+        }
+        if (count < 3) {
+            count = 0;
+        }
+        return count;
+    }
+
+    private void clipAgainst(int plane) {
+        // Выпуклый n-угольник после одной плоскости имеет не больше n + 1 вершин
+        ensureScratch(count + 1);
+        int outCount = 0;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            float di = distance(plane, i);
+            float dj = distance(plane, j);
+            boolean edge = originalEdges[i];
+            if (di >= 0) {
+                copy(i, outCount);
+                scratchEdges[outCount++] = edge;
+                if (dj < 0) {
+                    // Выход из области: точка пересечения начинает новое ребро вдоль плоскости
+                    lerp(i, j, di / (di - dj), outCount);
+                    scratchEdges[outCount++] = false;
+                }
+            } else if (dj >= 0) {
+                // Вход в область: остаток исходного ребра
+                lerp(i, j, di / (di - dj), outCount);
+                scratchEdges[outCount++] = edge;
+            }
+        }
+
+        float[] swap = vertices;
+        vertices = scratch;
+        scratch = swap;
+        boolean[] swapEdges = originalEdges;
+        originalEdges = scratchEdges;
+        scratchEdges = swapEdges;
+        count = outCount;
+    }
+
+    // Знаковое расстояние до плоскости: >= 0 внутри
+    private float distance(int plane, int vertex) {
+        int base = vertex * STRIDE;
+        float x = vertices[base + CX];
+        float y = vertices[base + CY];
+        float z = vertices[base + CZ];
+        float w = vertices[base + CW];
+        switch (plane) {
+            case OUT_NEAR:
+                return z + w;
+            case OUT_FAR:
+                return w - z;
+            case OUT_GUARD_LEFT:
+                return GUARD_BAND * w + x;
+            case OUT_GUARD_RIGHT:
+                return GUARD_BAND * w - x;
+            case OUT_GUARD_BOTTOM:
+                return GUARD_BAND * w + y;
+            case OUT_GUARD_TOP:
+                return GUARD_BAND * w - y;
+            default:
+                throw new IllegalArgumentException("Unknown clip plane: " + plane);
+        }
+    }
+
+    private void copy(int from, int to) {
+        System.arraycopy(vertices, from * STRIDE, scratch, to * STRIDE, STRIDE);
+    }
+
+    private void lerp(int a, int b, float t, int to) {
+        int baseA = a * STRIDE;
+        int baseB = b * STRIDE;
+        int baseOut = to * STRIDE;
+        for (int k = 0; k < STRIDE; k++) {
+            float va = vertices[baseA + k];
+            scratch[baseOut + k] = va + (vertices[baseB + k] - va) * t;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (originalEdges.length < n) {
+            int size = Math.max(n, originalEdges.length * 2);
+            vertices = new float[size * STRIDE];
+            scratch = new float[size * STRIDE];
+            originalEdges = new boolean[size];
+            scratchEdges = new boolean[size];
+        }
+    }
+
+    private void ensureScratch(int n) {
+        if (scratchEdges.length < n) {
+            int size = Math.max(n, scratchEdges.length * 2);
+            scratch = new float[size * STRIDE];
+            scratchEdges = new boolean[size];
+            // Рабочий массив тоже растёт, чтобы после обмена ёмкости совпадали
+            vertices = Arrays.copyOf(vertices, size * STRIDE);
+            originalEdges = Arrays.copyOf(originalEdges, size);
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package com.cgvsu.render_engine;
 
- // программный рендер модели в Canvas.
+ // программный рендер модели во FrameBuffer (и вывод кадра в Canvas).
  // Преобразования: model/view/projection, переход NDC -> экран.
- // запись пикселей через TriangleRasterizer/LineRasterizer + ZBuffer.
+ // запись пикселей через TriangleRasterizer/LineRasterizer в FrameBuffer (цвет + ZBuffer).
+// отбрасывание граней (RenderingModes.cullMode) - по сохранённым плоскостям граней, до отсечения и растеризации.
+// освещение (RenderingModes.shadingMode): FLAT - на грань, GOURAUD - в вершинах (кэш VertexCache на кадр),
+// PHONG - на пиксель в растеризаторе.
  
 import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.math.Vector4f;
+import com.cgvsu.model.BoundingBox;
+import com.cgvsu.model.MeshBuffers;
 import com.cgvsu.model.Model;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class RenderEngine {
 
+    // Пул потоков тайлового рендера: пересоздаётся при смене числа потоков
+    private static ForkJoinPool tilePool;
+
     public static void render(
             final GraphicsContext graphicsContext,
             final Camera camera,
@@ -68,7 +80,137 @@ public class RenderEngine {
             final List<Camera> helperCameras,
             final RenderingModes renderingModes)
     {
-        // Подготовка: матрицы model/view/projection и буфер глубины
+        // Кадр целиком заменяет содержимое Canvas (фон - прозрачный)
+        FrameBuffer frameBuffer = new FrameBuffer(width, height);
+        frameBuffer.clear(0);
+        render(graphicsContext, frameBuffer, camera, mesh, texture, lighting, baseColor, helperCameras, renderingModes);
+    }
+
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final Model mesh,
+            final Texture texture,
+            final Lighting lighting,
+            final Color baseColor,
+            final List<Camera> helperCameras,
+            final RenderingModes renderingModes)
+    {
+        render(frameBuffer, camera, mesh, texture, lighting, baseColor, renderingModes);
+        // Вывод кадра: один bulk-вызов setPixels, затем 2D-маркеры камер поверх
+        frameBuffer.blit(graphicsContext);
+        Matrix4f viewProjectionMatrix = camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+        renderHelperCameras(graphicsContext, helperCameras, camera, viewProjectionMatrix,
+                frameBuffer.getWidth(), frameBuffer.getHeight());
+    }
+
+    public static void render(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final Model mesh,
+            final Texture texture,
+            final Lighting lighting,
+            final Color baseColor,
+            final RenderingModes renderingModes)
+    {
+        // Тайловый режим: примитивы накапливаются по тайлам и растеризуются параллельно в конце кадра
+        TileRenderer tileRenderer = renderingModes.isTiledRendering()
+                ? new TileRenderer(frameBuffer, renderingModes.getTileSize())
+                : null;
+        renderModel(frameBuffer, camera, mesh, texture, lighting, baseColor, renderingModes, tileRenderer);
+        if (tileRenderer != null) {
+            tileRenderer.rasterize(getTilePool(renderingModes.getRenderThreads()));
+        }
+    }
+
+    // Сцена из нескольких моделей: общий FrameBuffer/ZBuffer (очищается вызывающим), вывод в Canvas и маркеры камер
+    public static void renderScene(
+            final GraphicsContext graphicsContext,
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final List<RenderItem> items,
+            final Lighting lighting,
+            final List<Camera> helperCameras,
+            final RenderingModes renderingModes)
+    {
+        renderScene(frameBuffer, camera, items, lighting, renderingModes);
+        frameBuffer.blit(graphicsContext);
+        Matrix4f viewProjectionMatrix = camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+        renderHelperCameras(graphicsContext, helperCameras, camera, viewProjectionMatrix,
+                frameBuffer.getWidth(), frameBuffer.getHeight());
+    }
+
+    // Модели рисуются от ближней к дальней: ранний Z-тест отбрасывает пиксели уже закрытых частей сборки.
+    // В тайловом режиме все модели разбиваются по одним тайлам и растеризуются одним проходом.
+    public static void renderScene(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final List<RenderItem> items,
+            final Lighting lighting,
+            final RenderingModes renderingModes)
+    {
+        TileRenderer tileRenderer = renderingModes.isTiledRendering()
+                ? new TileRenderer(frameBuffer, renderingModes.getTileSize())
+                : null;
+        for (RenderItem item : sortFrontToBack(items, camera.getPosition())) {
+            renderModel(frameBuffer, camera, item.getModel(), item.getTexture(), lighting, item.getBaseColor(),
+                    renderingModes, tileRenderer);
+        }
+        if (tileRenderer != null) {
+            tileRenderer.rasterize(getTilePool(renderingModes.getRenderThreads()));
+        }
+    }
+
+    // Ключ сортировки - расстояние от камеры до передней точки ограничивающей сферы модели в мировых координатах
+    static List<RenderItem> sortFrontToBack(final List<RenderItem> items, final Vector3f cameraPosition) {
+        // Ключи считаются один раз на модель, сортировка устойчива - равноудалённые модели сохраняют порядок
+        IdentityHashMap<RenderItem, Float> keys = new IdentityHashMap<>();
+        for (RenderItem item : items) {
+            keys.put(item, nearDistance(item.getModel(), cameraPosition));
+        }
+        List<RenderItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(keys::get));
+        return sorted;
+    }
+
+    private static float nearDistance(final Model model, final Vector3f cameraPosition) {
+        BoundingBox bounds = model.getBoundingBox();
+        if (bounds == null) {
+            return Float.POSITIVE_INFINITY;
+        }
+        Matrix4f modelMatrix = model.getModelMatrix();
+        Vector3f center = bounds.getCenter();
+        Vector4f world = modelMatrix.multiply(new Vector4f(center));
+        float dx = world.getX() - cameraPosition.getX();
+        float dy = world.getY() - cameraPosition.getY();
+        float dz = world.getZ() - cameraPosition.getZ();
+
+        // Радиус в мировых координатах: наибольший масштаб по осям матрицы модели
+        float maxScale = 0.0f;
+        for (int col = 0; col < 3; col++) {
+            float x = modelMatrix.get(0, col);
+            float y = modelMatrix.get(1, col);
+            float z = modelMatrix.get(2, col);
+            maxScale = Math.max(maxScale, (float) Math.sqrt(x * x + y * y + z * z));
+        }
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz) - bounds.getRadius() * maxScale;
+    }
+
+    private static void renderModel(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final Model mesh,
+            final Texture texture,
+            final Lighting lighting,
+            final Color baseColor,
+            final RenderingModes renderingModes,
+            final TileRenderer tileRenderer)
+    {
+        final int width = frameBuffer.getWidth();
+        final int height = frameBuffer.getHeight();
+
+        // Подготовка: матрицы model/view/projection
         Matrix4f modelMatrix = mesh.getModelMatrix();
         Matrix4f viewMatrix = camera.getViewMatrix(); // система координат камеры
         Matrix4f projectionMatrix = camera.getProjectionMatrix(); // плоскость проецирования
@@ -76,101 +218,230 @@ public class RenderEngine {
         Matrix4f modelViewMatrix = viewMatrix.multiply(modelMatrix);
         Matrix4f modelViewProjectionMatrix = projectionMatrix.multiply(modelViewMatrix);
 
-        ZBuffer zBuffer = new ZBuffer(width, height);
+        // Отсечение модели целиком: ограничивающий объём (локальные координаты) против плоскостей MVP
+        BoundingBox bounds = mesh.getBoundingBox();
+        if (bounds == null || !new Frustum(modelViewProjectionMatrix).intersects(bounds)) {
+            return;
+        }
 
         Color wireColor = Color.BLACK;
 
-        final int nPolygons = mesh.getPolygons().size();
+        // Удерживаемые данные модели: мировые позиции/нормали, UV, нормали граней - пересчитываются
+        // только после изменения модели; каждый кадр вершины лишь проецируются текущей камерой
+        MeshBuffers buffers = mesh.getMeshBuffers();
+        RenderableMesh renderable = RenderableMesh.of(mesh);
+        // Проекция - в буферах цели рендера: другой вид той же модели её не перезапишет
+        VertexCache vertexCache = frameBuffer.getVertexCache();
+        final int nVertices = renderable.getVertexCount();
+        // Reversed-Z: z_ndc = -p22 + p23 * invW, константа отбрасывается - остаётся p23 * invW
+        vertexCache.project(renderable.getWorldPositions(), nVertices, projectionMatrix.multiply(viewMatrix),
+                width, height, renderingModes.isReversedZ(), projectionMatrix.get(2, 3));
+
+        final int nNormals = buffers.getNormalCount();
+        final int nTextureVertices = buffers.getTextureVertexCount();
+        Vector3f cameraPosition = camera.getPosition();
+
+        // Отсечение в clip-space: буферы переиспользуются всеми полигонами модели
+        PolygonClipper clipper = new PolygonClipper();
+        // Буферы углов полигона (UV, нормали, интенсивности FLAT/GOURAUD) и вершин экрана: одни на все
+        // полигоны модели, растут до самого большого полигона (после отсечения)
+        Vector2f[] cornerTextureCoords = new Vector2f[16];
+        Vector3f[] cornerNormals = new Vector3f[16];
+        float[] cornerIntensities = new float[16];
+        ScreenVertex[] screenVertices = new ScreenVertex[16];
+        boolean[] originalEdges = new boolean[16];
+        // Тайловый рендер хранит треугольники до растеризации - вершины не переиспользуются
+        final boolean retainVertices = tileRenderer != null;
+        final boolean reversedZ = renderingModes.isReversedZ();
+        final float depthScale = projectionMatrix.get(2, 3);
+
+        // Индексы полигонов: плоские массивы, полигон - отрезок [start, start + size)
+        final int[] vertexIndices = buffers.getVertexIndices();
+        final int[] textureIndices = buffers.getTextureIndices();
+        final int[] normalIndices = buffers.getNormalIndices();
+
+        // Плоскости граней нужны для отбрасывания и depth-bias каркаса; хранятся между кадрами
+        final CullMode cullMode = renderingModes.getCullMode();
+        final boolean cullBack = cullMode == CullMode.BACK;
+        final boolean cullFront = cullMode == CullMode.FRONT;
+        final boolean lit = renderingModes.isUseLighting() && lighting != null;
+        final boolean flatShading = lit && renderingModes.getShadingMode() == ShadingMode.FLAT;
+        final boolean gouraudShading = lit && renderingModes.getShadingMode() == ShadingMode.GOURAUD;
+        final float[] facePlanes = cullBack || cullFront || flatShading || renderingModes.isDrawWireframe()
+                ? renderable.getFacePlanes() : null;
+        final float cameraX = cameraPosition.getX();
+        final float cameraY = cameraPosition.getY();
+        final float cameraZ = cameraPosition.getZ();
+        if (gouraudShading) {
+            vertexCache.clearIntensities();
+        }
+
+        final int nPolygons = buffers.getPolygonCount();
         for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
-            ArrayList<Integer> vertexIndices = new ArrayList<>(mesh.getPolygons().get(polygonInd).getVertexIndices());
-            final int nVerticesInPolygon = vertexIndices.size();
+            final int start = buffers.getPolygonStart(polygonInd);
+            final int nVerticesInPolygon = buffers.getPolygonSize(polygonInd);
 
             if (nVerticesInPolygon < 3) {
                 continue;
             }
 
-            Vector3f v0World = mesh.getVertices().get(vertexIndices.get(0));
-            Vector3f v1World = mesh.getVertices().get(vertexIndices.get(1));
-            Vector3f v2World = mesh.getVertices().get(vertexIndices.get(2));
-            Vector3f v0View = GraphicConveyor.multiplyMatrix4ByVector3(modelViewMatrix, v0World);
-            Vector3f v1View = GraphicConveyor.multiplyMatrix4ByVector3(modelViewMatrix, v1World);
-            Vector3f v2View = GraphicConveyor.multiplyMatrix4ByVector3(modelViewMatrix, v2World);
-
-            Vector3f edge1 = v1View.subtract(v0View);
-            Vector3f edge2 = v2View.subtract(v0View);
-            Vector3f faceNormal = edge1.cross(edge2);
+            // Отбрасывание по ориентации - до отсечения и подготовки вершин (лицевая сторона: n·C > d)
+            if (cullFront || cullBack) {
+                int face = polygonInd * RenderableMesh.FACE_STRIDE;
+                float facing = facePlanes[face] * cameraX + facePlanes[face + 1] * cameraY
+                        + facePlanes[face + 2] * cameraZ - facePlanes[face + 3];
+                if (cullBack ? facing < 0.0f : facing > 0.0f) {
+                    continue;
+                }
+            }
 
-            Vector3f toCamera = v0View.multiply(-1.0f);
-            boolean frontFacing = faceNormal.dot(toCamera) > 0.0f;
+            // Коды плоскостей: все вершины снаружи одной плоскости видимого объёма - полигон не виден
+            int outsideAll = PolygonClipper.FRUSTUM_MASK;
+            int outsideAny = 0;
+            for (int corner = start; corner < start + nVerticesInPolygon; ++corner) {
+                int vertexIndex = vertexIndices[corner];
+                if (vertexIndex < 0 || vertexIndex >= nVertices) {
+                    throw new IndexOutOfBoundsException("Vertex index out of bounds: " + vertexIndex);
+                }
+                int code = vertexCache.outcode(vertexIndex);
+                outsideAll &= code;
+                outsideAny |= code;
+            }
+            if (outsideAll != 0) {
+                continue;
+            }
 
-            // Проверка: отсечение обратных граней (back-face culling).
-            ArrayList<Integer> textureIndices = new ArrayList<>(mesh.getPolygons().get(polygonInd).getTextureVertexIndices());
-            ArrayList<Integer> normalIndices = new ArrayList<>(mesh.getPolygons().get(polygonInd).getNormalIndices());
+            boolean hasTextureCoords = buffers.hasTextureIndices(polygonInd);
+            boolean hasNormals = buffers.hasNormalIndices(polygonInd);
 
-            boolean hasTextureCoords = !textureIndices.isEmpty() && textureIndices.size() == vertexIndices.size();
-            boolean hasNormals = !normalIndices.isEmpty() && normalIndices.size() == vertexIndices.size();
+            if (cornerTextureCoords.length < nVerticesInPolygon) {
+                cornerTextureCoords = new Vector2f[nVerticesInPolygon];
+                cornerNormals = new Vector3f[nVerticesInPolygon];
+                cornerIntensities = new float[nVerticesInPolygon];
+            }
+            for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+                int textureIndex = textureIndices[start + vertexInPolygonInd];
+                cornerTextureCoords[vertexInPolygonInd] = hasTextureCoords && textureIndex >= 0 && textureIndex < nTextureVertices
+                        ? renderable.textureVertex(textureIndex) : null;
 
-            ArrayList<ScreenVertex> screenVertices = new ArrayList<>(nVerticesInPolygon);
-            Vector3f cameraPosition = camera.getPosition();
+                int normalIndex = normalIndices[start + vertexInPolygonInd];
+                cornerNormals[vertexInPolygonInd] = hasNormals && normalIndex >= 0 && normalIndex < nNormals
+                        ? renderable.worldNormal(normalIndex) : null;
+            }
 
-            // Подготовка вершин: clip-space -> NDC (деление на W) -> screen-space.
-            for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                Vector3f modelVertex = mesh.getVertices().get(vertexIndices.get(vertexInPolygonInd));
-                Vector3f worldPosition = GraphicConveyor.multiplyMatrix4ByVector3(modelMatrix, modelVertex);
-                Vector4f clipPos = modelViewProjectionMatrix.multiply(
-                    new Vector4f(modelVertex.getX(), modelVertex.getY(), modelVertex.getZ(), 1.0f));
-                float w = clipPos.getW();
-                float invW = (Math.abs(w) > 1e-7f) ? (1.0f / w) : 1.0f;
-                Vector3f transformed = new Vector3f(
-                        clipPos.getX() * invW,
-                        clipPos.getY() * invW,
-                        clipPos.getZ() * invW
-                );
-
-                Vector2f textureCoords = null;
-                if (hasTextureCoords && textureIndices.get(vertexInPolygonInd) < mesh.getTextureVertices().size()) {
-                    textureCoords = mesh.getTextureVertices().get(textureIndices.get(vertexInPolygonInd));
+            // Освещение до растеризации: FLAT - по плоскости грани, GOURAUD - в вершинах (cornersLit = false - без освещения)
+            boolean cornersLit = false;
+            if (flatShading || gouraudShading) {
+                if (flatShading) {
+                    int face = polygonInd * RenderableMesh.FACE_STRIDE;
+                    int v0 = vertexIndices[start];
+                    float faceIntensity = lighting.computeLightingIntensity(
+                            facePlanes[face], facePlanes[face + 1], facePlanes[face + 2],
+                            renderable.worldX(v0), renderable.worldY(v0), renderable.worldZ(v0),
+                            cameraX, cameraY, cameraZ);
+                    Arrays.fill(cornerIntensities, 0, nVerticesInPolygon, faceIntensity);
+                    cornersLit = true;
+                } else {
+                    cornersLit = gouraudIntensities(vertexCache, renderable, lighting, vertexIndices, normalIndices,
+                            start, cornerNormals, nVerticesInPolygon, cameraX, cameraY, cameraZ, cornerIntensities);
                 }
+            }
 
-                Vector3f worldNormal = null;
-                if (hasNormals && normalIndices.get(vertexInPolygonInd) < mesh.getNormals().size()) {
-                    Vector3f modelNormal = mesh.getNormals().get(normalIndices.get(vertexInPolygonInd));
-                    // Преобразование нормали: только rotate/scale (без translation).
-                    Matrix4f rotationScaleMatrix = Matrix4f.modelMatrix(
-                        new Vector3f(0, 0, 0),
-                        mesh.getRotation(),
-                        mesh.getScale()
+            final int nScreenVertices;
+            // false - все рёбра исходные (полигон не отсекался)
+            boolean clipped = false;
+
+            int clipPlanes = outsideAny & PolygonClipper.CLIP_MASK;
+            if (clipPlanes == 0) {
+                // Полигон внутри near/far и guard-band: вершины берутся из кэша (clip-space -> NDC -> screen-space уже посчитаны)
+                nScreenVertices = nVerticesInPolygon;
+                screenVertices = ensureVertices(screenVertices, nScreenVertices);
+                for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+                    int vertexIndex = vertexIndices[start + vertexInPolygonInd];
+                    vertexSlot(screenVertices, vertexInPolygonInd, retainVertices).set(
+                            vertexCache.screenX(vertexIndex),
+                            vertexCache.screenY(vertexIndex),
+                            vertexCache.screenZ(vertexIndex),
+                            vertexCache.invW(vertexIndex),
+                            cornerTextureCoords[vertexInPolygonInd],
+                            cornerNormals[vertexInPolygonInd],
+                            renderable.worldPosition(vertexIndex),
+                            cornersLit ? cornerIntensities[vertexInPolygonInd] : Float.NaN
                     );
-                    worldNormal = GraphicConveyor.multiplyMatrix4ByVector3(rotationScaleMatrix, modelNormal).normalize();
+                }
+            } else {
+                // Полигон пересекает near/far или выходит за guard-band: отсечение Sutherland–Hodgman до деления на W
+                boolean clipTextureCoords = true;
+                boolean clipNormals = true;
+                clipper.reset(nVerticesInPolygon);
+                for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
+                    int vertexIndex = vertexIndices[start + vertexInPolygonInd];
+                    clipper.set(vertexInPolygonInd, PolygonClipper.CX, vertexCache.clipX(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.CY, vertexCache.clipY(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.CZ, vertexCache.clipZ(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.CW, vertexCache.clipW(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.WX, renderable.worldX(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.WY, renderable.worldY(vertexIndex));
+                    clipper.set(vertexInPolygonInd, PolygonClipper.WZ, renderable.worldZ(vertexIndex));
+
+                    Vector2f textureCoords = cornerTextureCoords[vertexInPolygonInd];
+                    if (textureCoords != null) {
+                        clipper.set(vertexInPolygonInd, PolygonClipper.U, textureCoords.getX());
+                        clipper.set(vertexInPolygonInd, PolygonClipper.V, textureCoords.getY());
+                    } else {
+                        clipTextureCoords = false;
+                    }
+                    Vector3f worldNormal = cornerNormals[vertexInPolygonInd];
+                    if (worldNormal != null) {
+                        clipper.set(vertexInPolygonInd, PolygonClipper.NX, worldNormal.getX());
+                        clipper.set(vertexInPolygonInd, PolygonClipper.NY, worldNormal.getY());
+                        clipper.set(vertexInPolygonInd, PolygonClipper.NZ, worldNormal.getZ());
+                    } else {
+                        clipNormals = false;
+                    }
+                    if (cornersLit) {
+                        clipper.set(vertexInPolygonInd, PolygonClipper.LI, cornerIntensities[vertexInPolygonInd]);
+                    }
                 }
 
-                ScreenVertex screenVertex = toScreenVertex(
-                        transformed,
-                        width,
-                        height,
-                        invW,
-                        textureCoords,
-                        worldNormal,
-                        worldPosition,
-                        null
-                );
-                screenVertices.add(screenVertex);
+                int nClipped = clipper.clip(clipPlanes);
+                if (nClipped < 3) {
+                    continue;
+                }
+                nScreenVertices = nClipped;
+                clipped = true;
+                screenVertices = ensureVertices(screenVertices, nClipped);
+                if (originalEdges.length < nClipped) {
+                    originalEdges = new boolean[screenVertices.length];
+                }
+                for (int i = 0; i < nClipped; ++i) {
+                    toScreenVertex(vertexSlot(screenVertices, i, retainVertices), clipper, i, width, height,
+                            reversedZ, depthScale, clipTextureCoords, clipNormals, cornersLit);
+                    originalEdges[i] = clipper.isOriginalEdge(i);
+                }
             }
 
             // Триангуляция полигона
-            for (int i = 1; i < nVerticesInPolygon - 1; ++i) {
-                ScreenVertex sv0 = screenVertices.get(0);
-                ScreenVertex sv1 = screenVertices.get(i);
-                ScreenVertex sv2 = screenVertices.get(i + 1);
-                if (renderingModes.isUseTexture() || renderingModes.isUseLighting()) {
+            for (int i = 1; i < nScreenVertices - 1; ++i) {
+                ScreenVertex sv0 = screenVertices[0];
+                ScreenVertex sv1 = screenVertices[i];
+                ScreenVertex sv2 = screenVertices[i + 1];
+                if (tileRenderer != null) {
+                    if (renderingModes.isUseTexture() || renderingModes.isUseLighting()) {
+                        tileRenderer.addTriangle(sv0, sv1, sv2,
+                                renderingModes.isUseTexture() ? texture : null,
+                                renderingModes.isUseLighting() ? lighting : null,
+                                baseColor,
+                                cameraPosition);
+                    } else {
+                        tileRenderer.addTriangle(sv0, sv1, sv2, baseColor);
+                    }
+                } else if (renderingModes.isUseTexture() || renderingModes.isUseLighting()) {
                     TriangleRasterizer.fillTriangle(
-                            graphicsContext,
-                            zBuffer,
+                            frameBuffer,
                             sv0,
                             sv1,
                             sv2,
-                            width,
-                            height,
                             renderingModes.isUseTexture() ? texture : null,
                             renderingModes.isUseLighting() ? lighting : null,
                             baseColor,
@@ -178,13 +449,10 @@ public class RenderEngine {
                     );
                 } else {
                     TriangleRasterizer.fillTriangle(
-                            graphicsContext,
-                            zBuffer,
+                            frameBuffer,
                             sv0,
                             sv1,
                             sv2,
-                            width,
-                            height,
                             baseColor
                     );
                 }
@@ -192,35 +460,54 @@ public class RenderEngine {
 
             // Каркас: отрисовка рёбер с depth-bias
             if (renderingModes.isDrawWireframe()) {
-                Vector3f normalViewNorm = faceNormal.normalize();
-                Vector3f toCameraNorm = toCamera.normalize();
-                float cosTheta = Math.abs(normalViewNorm.dot(toCameraNorm));
+                // Плоскость грани (сохраняется между кадрами) и расстояние до камеры - в мировых координатах
+                int v0 = vertexIndices[start];
+                float toCameraX = cameraX - renderable.worldX(v0);
+                float toCameraY = cameraY - renderable.worldY(v0);
+                float toCameraZ = cameraZ - renderable.worldZ(v0);
+                float distance = (float) Math.sqrt(toCameraX * toCameraX + toCameraY * toCameraY + toCameraZ * toCameraZ);
+
+                int face = polygonInd * RenderableMesh.FACE_STRIDE;
+                float facing = facePlanes[face] * cameraX + facePlanes[face + 1] * cameraY
+                        + facePlanes[face + 2] * cameraZ - facePlanes[face + 3];
+                float cosTheta = distance > 0.0f ? Math.min(1.0f, Math.abs(facing) / distance) : 1.0f;
                 float grazing = 1.0f - cosTheta;
                 double angleScale = 1.0 + 8.0 * Math.pow(grazing, 5.0);
-                float distance = toCamera.length();
                 double depthFactor = 1.0 / (1.0 + 0.15 * distance);
 
                 double depthBiasScale = angleScale * depthFactor;
 
-                for (int i = 0; i < nVerticesInPolygon; ++i) {
-                    ScreenVertex a = screenVertices.get(i);
-                    ScreenVertex b = screenVertices.get((i + 1) % nVerticesInPolygon);
+                for (int i = 0; i < nScreenVertices; ++i) {
+                    // Рёбра, созданные отсечением, не являются рёбрами модели
+                    if (clipped && !originalEdges[i]) {
+                        continue;
+                    }
+                    ScreenVertex a = screenVertices[i];
+                    ScreenVertex b = screenVertices[(i + 1) % nScreenVertices];
+                    if (tileRenderer != null) {
+                        tileRenderer.addLine(a, b, wireColor, depthBiasScale);
+                        continue;
+                    }
                     LineRasterizer.drawLine(
-                            graphicsContext,
-                            zBuffer,
+                            frameBuffer,
                             a,
                             b,
-                            width,
-                            height,
                             wireColor,
                             depthBiasScale
                     );
                 }
             }
         }
+    }
 
-        // Маркеры камер: отрисовка позиций helper-cameras в screen-space
-        renderHelperCameras(graphicsContext, helperCameras, camera, projectionMatrix.multiply(viewMatrix), width, height);
+    private static synchronized ForkJoinPool getTilePool(final int threads) {
+        if (tilePool == null || tilePool.getParallelism() != threads) {
+            if (tilePool != null) {
+                tilePool.shutdown();
+            }
+            tilePool = new ForkJoinPool(threads);
+        }
+        return tilePool;
     }
 
     public static void render(
@@ -233,22 +520,95 @@ public class RenderEngine {
         render(graphicsContext, camera, mesh, width, height, null, null, Color.LIGHTGRAY);
     }
 
-    private static ScreenVertex toScreenVertex(
-            final Vector3f vertex,
+    // Буфер вершин экрана не меньше size (существующие вершины сохраняются)
+    private static ScreenVertex[] ensureVertices(final ScreenVertex[] vertices, final int size) {
+        return vertices.length < size ? Arrays.copyOf(vertices, Math.max(size, vertices.length * 2)) : vertices;
+    }
+
+    // Вершина для заполнения: переиспользуемая из буфера или новая, если примитив хранится до растеризации
+    private static ScreenVertex vertexSlot(final ScreenVertex[] vertices, final int index, final boolean retain) {
+        ScreenVertex vertex = vertices[index];
+        if (vertex == null || retain) {
+            vertex = new ScreenVertex(0.0f, 0.0f, 0.0f);
+            vertices[index] = vertex;
+        }
+        return vertex;
+    }
+
+    private static void toScreenVertex(
+            final ScreenVertex target,
+            final PolygonClipper clipper,
+            final int vertex,
             final int width,
             final int height,
-            final float invW,
-            final Vector2f textureCoords,
-            final Vector3f worldNormal,
-            final Vector3f worldPosition,
-            final Float lightingIntensity) {
-        float ndcX = vertex.getX();
-        float ndcY = vertex.getY();
-        float ndcZ = vertex.getZ();
-        float screenX = (ndcX + 1.0f) * 0.5f * (width - 1.0f);
-        float screenY = (1.0f - ndcY) * 0.5f * (height - 1.0f);
-
-        return new ScreenVertex(screenX, screenY, ndcZ, invW, textureCoords, worldNormal, worldPosition, lightingIntensity);
+            final boolean reversedZ,
+            final float depthScale,
+            final boolean hasTextureCoords,
+            final boolean hasNormals,
+            final boolean hasIntensity) {
+        // Вершина после отсечения: деление на W + переход NDC -> screen-space (как в VertexCache)
+        float w = clipper.get(vertex, PolygonClipper.CW);
+        float invW = (Math.abs(w) > 1e-7f) ? (1.0f / w) : 1.0f;
+        float screenX = (clipper.get(vertex, PolygonClipper.CX) * invW + 1.0f) * 0.5f * (width - 1.0f);
+        float screenY = (1.0f - clipper.get(vertex, PolygonClipper.CY) * invW) * 0.5f * (height - 1.0f);
+        float depth = reversedZ ? depthScale * invW : clipper.get(vertex, PolygonClipper.CZ) * invW;
+
+        Vector2f textureCoords = hasTextureCoords
+                ? new Vector2f(clipper.get(vertex, PolygonClipper.U), clipper.get(vertex, PolygonClipper.V))
+                : null;
+        Vector3f normal = null;
+        if (hasNormals) {
+            normal = new Vector3f(
+                    clipper.get(vertex, PolygonClipper.NX),
+                    clipper.get(vertex, PolygonClipper.NY),
+                    clipper.get(vertex, PolygonClipper.NZ));
+            if (normal.length() > 1e-12f) {
+                normal = normal.normalize();
+            }
+        }
+        Vector3f worldPosition = new Vector3f(
+                clipper.get(vertex, PolygonClipper.WX),
+                clipper.get(vertex, PolygonClipper.WY),
+                clipper.get(vertex, PolygonClipper.WZ));
+
+        float intensity = hasIntensity ? clipper.get(vertex, PolygonClipper.LI) : Float.NaN;
+
+        target.set(screenX, screenY, depth, invW, textureCoords, normal, worldPosition, intensity);
+    }
+
+    // Гуро: интенсивности углов в intensities - из кэша вершины за кадр; false - у угла нет нормали,
+    // весь полигон без освещения
+    private static boolean gouraudIntensities(
+            final VertexCache vertexCache,
+            final RenderableMesh renderable,
+            final Lighting lighting,
+            final int[] vertexIndices,
+            final int[] normalIndices,
+            final int start,
+            final Vector3f[] cornerNormals,
+            final int nCorners,
+            final float cameraX,
+            final float cameraY,
+            final float cameraZ,
+            final float[] intensities) {
+        for (int corner = 0; corner < nCorners; ++corner) {
+            Vector3f normal = cornerNormals[corner];
+            if (normal == null) {
+                return false;
+            }
+            int vertex = vertexIndices[start + corner];
+            int normalIndex = normalIndices[start + corner];
+            float intensity = vertexCache.intensity(vertex, normalIndex);
+            if (Float.isNaN(intensity)) {
+                intensity = lighting.computeLightingIntensity(
+                        normal.getX(), normal.getY(), normal.getZ(),
+                        renderable.worldX(vertex), renderable.worldY(vertex), renderable.worldZ(vertex),
+                        cameraX, cameraY, cameraZ);
+                vertexCache.setIntensity(vertex, normalIndex, intensity);
+            }
+            intensities[corner] = intensity;
+        }
+        return true;
     }
 
     private static void renderHelperCameras(
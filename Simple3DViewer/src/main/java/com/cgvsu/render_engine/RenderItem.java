@@ -0,0 +1,35 @@
+package com.cgvsu.render_engine;
+
+// элемент сцены для RenderEngine.renderScene: модель (со своей матрицей модели), её текстура и базовый цвет.
+
+import com.cgvsu.model.Model;
+import javafx.scene.paint.Color;
+
+public final class RenderItem {
+
+    private final Model model;
+    private final Texture texture;
+    private final Color baseColor;
+
+    public RenderItem(Model model, Texture texture, Color baseColor) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        this.model = model;
+        this.texture = texture;
+        this.baseColor = baseColor != null ? baseColor : Color.LIGHTGRAY;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    // null - модель без текстуры (рисуется базовым цветом даже при включённом режиме текстуры)
+    public Texture getTexture() {
+        return texture;
+    }
+
+    public Color getBaseColor() {
+        return baseColor;
+    }
+}
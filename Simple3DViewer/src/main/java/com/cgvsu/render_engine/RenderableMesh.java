@@ -0,0 +1,218 @@
+package com.cgvsu.render_engine;
+
+// данные модели для рендера, сохраняемые между кадрами: мировые позиции вершин, мировые нормали,
+// объекты UV и плоскости граней (плоский float[]: отбрасывание граней и depth-bias каркаса).
+// при вращении камеры модель не меняется - кадр пересчитывает только clip/screen (VertexCache.project).
+// сброс - по счётчикам: MeshBuffers.getVersion (геометрия) и Model.getTransformVersion (матрица модели).
+// кэш привязан к модели слабой ссылкой: удалённая из сцены модель освобождается вместе с ним.
+// только мировые данные, не зависящие от камеры: одновременные рендеры модели (несколько видов) читают
+// их вместе - пересчёт и плоскости граней под блокировкой, ленивые векторы одинаковы в любом потоке.
+
+import com.cgvsu.math.Matrix3f;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+final class RenderableMesh {
+
+    private static final Map<Model, RenderableMesh> CACHE = new WeakHashMap<>();
+
+    // Мировые позиции вершин: x, y, z на вершину
+    private float[] world = new float[0];
+    private int vertexCount;
+    private int meshVersion;
+    private int transformVersion;
+    private boolean built;
+
+    // Заполняются лениво (по первому обращению полигона) и живут до изменения модели
+    private Vector3f[] worldPositions = new Vector3f[0];
+    private Vector3f[] worldNormals = new Vector3f[0];
+    private Vector2f[] textureVertices = new Vector2f[0];
+    // Плоскости граней: по FACE_STRIDE float на полигон, строятся целиком при первом запросе
+    static final int FACE_STRIDE = 4;
+    private float[] facePlanes;
+
+    private MeshBuffers buffers;
+    private Matrix3f normalMatrix;
+
+    private RenderableMesh() {
+    }
+
+    // Кэш модели, приведённый к её текущему состоянию
+    static RenderableMesh of(final Model model) {
+        RenderableMesh mesh;
+        synchronized (CACHE) {
+            mesh = CACHE.computeIfAbsent(model, m -> new RenderableMesh());
+        }
+        synchronized (mesh) {
+            mesh.update(model);
+        }
+        return mesh;
+    }
+
+    private void update(final Model model) {
+        MeshBuffers current = model.getMeshBuffers();
+        boolean meshChanged = !built || current.getVersion() != meshVersion;
+        boolean transformChanged = !built || model.getTransformVersion() != transformVersion;
+        if (!meshChanged && !transformChanged) {
+            return;
+        }
+
+        buffers = current;
+        normalMatrix = model.getNormalMatrix();
+        updateWorld(current.getPositions(), current.getVertexCount(), model.getModelMatrix());
+        worldPositions = new Vector3f[current.getVertexCount()];
+        worldNormals = new Vector3f[current.getNormalCount()];
+        facePlanes = null;
+        if (meshChanged) {
+            textureVertices = new Vector2f[current.getTextureVertexCount()];
+        }
+
+        meshVersion = current.getVersion();
+        transformVersion = model.getTransformVersion();
+        built = true;
+    }
+
+    private void updateWorld(final float[] positions, final int n, final Matrix4f modelMatrix) {
+        if (world.length < n * 3) {
+            world = new float[n * 3];
+        }
+        vertexCount = n;
+
+        final float m00 = modelMatrix.get(0, 0), m01 = modelMatrix.get(0, 1), m02 = modelMatrix.get(0, 2), m03 = modelMatrix.get(0, 3);
+        final float m10 = modelMatrix.get(1, 0), m11 = modelMatrix.get(1, 1), m12 = modelMatrix.get(1, 2), m13 = modelMatrix.get(1, 3);
+        final float m20 = modelMatrix.get(2, 0), m21 = modelMatrix.get(2, 1), m22 = modelMatrix.get(2, 2), m23 = modelMatrix.get(2, 3);
+
+        for (int i = 0; i < n; i++) {
+            int w3 = i * 3;
+            float x = positions[w3];
+            float y = positions[w3 + 1];
+            float z = positions[w3 + 2];
+            world[w3] = m00 * x + m01 * y + m02 * z + m03;
+            world[w3 + 1] = m10 * x + m11 * y + m12 * z + m13;
+            world[w3 + 2] = m20 * x + m21 * y + m22 * z + m23;
+        }
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    // Плоский массив мировых позиций (вход VertexCache.project)
+    float[] getWorldPositions() {
+        return world;
+    }
+
+    float worldX(int vertex) {
+        return world[vertex * 3];
+    }
+
+    float worldY(int vertex) {
+        return world[vertex * 3 + 1];
+    }
+
+    float worldZ(int vertex) {
+        return world[vertex * 3 + 2];
+    }
+
+    Vector3f worldPosition(final int vertex) {
+        Vector3f position = worldPositions[vertex];
+        if (position == null) {
+            position = new Vector3f(worldX(vertex), worldY(vertex), worldZ(vertex));
+            worldPositions[vertex] = position;
+        }
+        return position;
+    }
+
+    Vector3f worldNormal(final int normal) {
+        Vector3f worldNormal = worldNormals[normal];
+        if (worldNormal == null) {
+            float[] normals = buffers.getNormals();
+            worldNormal = normalMatrix.multiply(new Vector3f(
+                    normals[normal * 3],
+                    normals[normal * 3 + 1],
+                    normals[normal * 3 + 2]
+            )).normalize();
+            worldNormals[normal] = worldNormal;
+        }
+        return worldNormal;
+    }
+
+    Vector2f textureVertex(final int textureVertex) {
+        Vector2f coords = textureVertices[textureVertex];
+        if (coords == null) {
+            float[] textureCoords = buffers.getTextureCoords();
+            coords = new Vector2f(textureCoords[textureVertex * 2], textureCoords[textureVertex * 2 + 1]);
+            textureVertices[textureVertex] = coords;
+        }
+        return coords;
+    }
+
+    // Плоскости граней в мировых координатах: единичная нормаль Ньюэла по всем вершинам (nx, ny, nz)
+    // и d = n·c (c - центр вершин). Нормаль Ньюэла, как в ModelProcessor.triangulatePolygon, верно
+    // ориентирована и у невыпуклых/неплоских n-угольников (первый угол может быть вогнутым).
+    // Знак n·C - d - с какой стороны грани камера C. Один плотный проход без объектов;
+    // вырожденная грань, полигон < 3 вершин или неверный индекс - нулевая плоскость (не отбрасывается)
+    synchronized float[] getFacePlanes() {
+        if (facePlanes == null) {
+            int polygonCount = buffers.getPolygonCount();
+            int[] starts = buffers.getPolygonStarts();
+            int[] vertexIndices = buffers.getVertexIndices();
+            float[] planes = new float[polygonCount * FACE_STRIDE];
+            for (int polygon = 0; polygon < polygonCount; polygon++) {
+                int start = starts[polygon];
+                int count = starts[polygon + 1] - start;
+                if (count < 3 || !indicesInRange(vertexIndices, start, count)) {
+                    continue;
+                }
+                // Координаты относительно первой вершины: меньше потерь точности у далёких моделей
+                int i0 = vertexIndices[start];
+                float x0 = worldX(i0);
+                float y0 = worldY(i0);
+                float z0 = worldZ(i0);
+                float nx = 0.0f, ny = 0.0f, nz = 0.0f;
+                float cx = 0.0f, cy = 0.0f, cz = 0.0f;
+                for (int i = 0; i < count; i++) {
+                    int a = vertexIndices[start + i];
+                    int b = vertexIndices[start + (i + 1) % count];
+                    float ax = worldX(a) - x0, ay = worldY(a) - y0, az = worldZ(a) - z0;
+                    float bx = worldX(b) - x0, by = worldY(b) - y0, bz = worldZ(b) - z0;
+                    nx += (ay - by) * (az + bz);
+                    ny += (az - bz) * (ax + bx);
+                    nz += (ax - bx) * (ay + by);
+                    cx += ax;
+                    cy += ay;
+                    cz += az;
+                }
+                float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length > 0.0f) {
+                    nx /= length;
+                    ny /= length;
+                    nz /= length;
+                    int base = polygon * FACE_STRIDE;
+                    planes[base] = nx;
+                    planes[base + 1] = ny;
+                    planes[base + 2] = nz;
+                    planes[base + 3] = nx * (x0 + cx / count) + ny * (y0 + cy / count) + nz * (z0 + cz / count);
+                }
+            }
+            facePlanes = planes;
+        }
+        return facePlanes;
+    }
+
+    private boolean indicesInRange(int[] vertexIndices, int start, int count) {
+        for (int corner = start; corner < start + count; corner++) {
+            int index = vertexIndices[corner];
+            if (index < 0 || index >= vertexCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,11 +1,22 @@
 package com.cgvsu.render_engine;
 
 //  флаги режимов рендера (каркас/текстура/освещение).
+//  параметры тайлового рендера: число потоков и размер тайла.
+//  reversed-Z: глубина хранится как p23 * invW (0 на бесконечности) - точнее при большом far/near.
+//  cullMode: отбрасывание задних/лицевых граней до растеризации.
+//  shadingMode: освещение на грань / в вершинах / на пиксель (по умолчанию - на пиксель).
 
 public class RenderingModes {
+    public static final int DEFAULT_TILE_SIZE = 64;
+
     private boolean drawWireframe;
     private boolean useTexture;
     private boolean useLighting;
+    private int renderThreads = 1;
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private boolean reversedZ;
+    private CullMode cullMode = CullMode.NONE;
+    private ShadingMode shadingMode = ShadingMode.PHONG;
 
     public RenderingModes() {
         this.drawWireframe = false;
@@ -46,5 +57,61 @@ public class RenderingModes {
     public boolean hasAnyModeEnabled() {
         return useTexture || useLighting;
     }
-}
 
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    public void setRenderThreads(int renderThreads) {
+        // 1 поток - последовательный рендер без разбиения на тайлы
+        if (renderThreads < 1) {
+            throw new IllegalArgumentException("Render thread count must be positive");
+        }
+        this.renderThreads = renderThreads;
+    }
+
+    public boolean isTiledRendering() {
+        return renderThreads > 1;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.tileSize = tileSize;
+    }
+
+    public boolean isReversedZ() {
+        return reversedZ;
+    }
+
+    public void setReversedZ(boolean reversedZ) {
+        this.reversedZ = reversedZ;
+    }
+
+    public CullMode getCullMode() {
+        return cullMode;
+    }
+
+    public void setCullMode(CullMode cullMode) {
+        if (cullMode == null) {
+            throw new IllegalArgumentException("Cull mode cannot be null");
+        }
+        this.cullMode = cullMode;
+    }
+
+    public ShadingMode getShadingMode() {
+        return shadingMode;
+    }
+
+    public void setShadingMode(ShadingMode shadingMode) {
+        if (shadingMode == null) {
+            throw new IllegalArgumentException("Shading mode cannot be null");
+        }
+        this.shadingMode = shadingMode;
+    }
+}
@@ -3,19 +3,21 @@ package com.cgvsu.render_engine;
 // упакованные данные вершины после проекции (screen x/y + ndc z)
 // данные для шейдинга: invW, UV, normal, worldPosition, lightingIntensity
 // вход TriangleRasterizer/LineRasterizer
+// set - перезапись на месте: RenderEngine переиспользует вершины между полигонами (без тайлов)
 
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 
 public class ScreenVertex {
-    private final float x;
-    private final float y;
-    private final float z;
-    private final float invW;
-    private final Vector2f textureCoords;
-    private final Vector3f normal;
-    private final Vector3f worldPosition;
-    private final Float lightingIntensity;
+    private float x;
+    private float y;
+    private float z;
+    private float invW;
+    private Vector2f textureCoords;
+    private Vector3f normal;
+    private Vector3f worldPosition;
+    // NaN - интенсивность не задана (освещение считается на пикселе или не считается)
+    private float lightingIntensity;
 
     public ScreenVertex(float x, float y, float z) {
         this(x, y, z, 1.0f, null, null, null, null);
@@ -24,6 +26,20 @@ public class ScreenVertex {
     public ScreenVertex(float x, float y, float z, float invW,
                         Vector2f textureCoords, Vector3f normal,
                         Vector3f worldPosition, Float lightingIntensity) {
+        this(x, y, z, invW, textureCoords, normal, worldPosition,
+                lightingIntensity != null ? lightingIntensity : Float.NaN);
+    }
+
+    // Интенсивность без упаковки в Float (FLAT/GOURAUD на каждом углу): NaN - нет интенсивности
+    public ScreenVertex(float x, float y, float z, float invW,
+                        Vector2f textureCoords, Vector3f normal,
+                        Vector3f worldPosition, float lightingIntensity) {
+        set(x, y, z, invW, textureCoords, normal, worldPosition, lightingIntensity);
+    }
+
+    void set(float x, float y, float z, float invW,
+             Vector2f textureCoords, Vector3f normal,
+             Vector3f worldPosition, float lightingIntensity) {
         this.x = x;
         this.y = y;
         this.z = z;
@@ -74,12 +90,12 @@ public class ScreenVertex {
         return worldPosition != null;
     }
 
-    public Float getLightingIntensity() {
+    public float getLightingIntensity() {
         return lightingIntensity;
     }
 
     public boolean hasLightingIntensity() {
-        return lightingIntensity != null;
+        return !Float.isNaN(lightingIntensity);
     }
 }
 
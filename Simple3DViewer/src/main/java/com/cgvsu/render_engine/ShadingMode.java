@@ -0,0 +1,12 @@
+package com.cgvsu.render_engine;
+
+// где считается освещение (RenderingModes.shadingMode): чем раньше, тем дешевле и грубее.
+
+public enum ShadingMode {
+    // Одна интенсивность на грань - по нормали грани
+    FLAT,
+    // Интенсивность в вершинах (один раз за кадр), интерполяция по треугольнику
+    GOURAUD,
+    // Интерполяция нормали и позиции, интенсивность на каждом пикселе
+    PHONG
+}
@@ -1,31 +1,80 @@
 package com.cgvsu.render_engine;
 
+// текстура модели: базовое изображение + слой покраски, композиция хранится упакованным ARGB int[].
+// выборка в растеризаторе - sampleArgb без PixelReader и Color: nearest или bilinear (fixed-point 8 бит),
+// режим краёв clamp/repeat. JavaFX Image собирается из массива только по запросу UI (getImage).
+// mip-пирамида (уровни 2x2 box-фильтром) строится в конструкторе, покраска обновляет только свой прямоугольник;
+// уровень выбирается по lod из производных UV (TriangleRasterizer), trilinear - смешивание двух уровней.
+// раскладка уровней для выборки: построчная или плитки 8x8 (Layout.TILED) - соседние по вертикали тексели
+// в одной строке кэша; покраска, снимки и Image работают с построчными массивами, плитки обновляются вслед.
 
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 
 import java.util.Arrays;
-import javafx.scene.image.PixelFormat;
-import java.nio.IntBuffer;
-import javafx.scene.image.WritablePixelFormat;
 
 public class Texture {
+
+    // Фильтрация выборки
+    public enum Filter {
+        NEAREST,
+        BILINEAR,
+        // bilinear на двух соседних mip-уровнях + смешивание по дробной части lod
+        TRILINEAR
+    }
+
+    // Поведение UV за пределами [0, 1]
+    public enum WrapMode {
+        CLAMP,
+        REPEAT
+    }
+
+    // Раскладка текселей mip-уровней в памяти
+    public enum Layout {
+        ROW_MAJOR,
+        // плитки TILE_SIZE x TILE_SIZE, внутри плитки - построчно
+        TILED
+    }
+
+    static final int TILE_SHIFT = 3;
+    static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
     private final Image baseImage;
-    private final PixelReader baseReader;
-    private final WritableImage paintLayer;
-    private final PixelReader paintReader;
-    private final PixelWriter paintWriter;
-    private final WritableImage compositeImage;
-    private final PixelReader compositeReader;
-    private final PixelWriter compositeWriter;
+    private final int[] basePixels;
+    private final int[] paintPixels;
+    private final int[] compositePixels;
+
+    // Mip-уровни: каждый следующий вдвое меньше (минимум 1x1); при ROW_MAJOR levels[0] - сам compositePixels
+    private final Layout layout;
+    private final int[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+    // Плиток в строке уровня (только TILED)
+    private final int[] levelTileColumns;
+
+    // Изображение для UI: создаётся лениво, обновляется из compositePixels после изменений
+    private WritableImage compositeImage;
+    private boolean imageDirty = true;
 
     private final int width;
     private final int height;
 
+    private Filter filter = Filter.NEAREST;
+    private WrapMode wrapMode = WrapMode.CLAMP;
+
     public Texture(Image image) {
+        this(image, Layout.ROW_MAJOR);
+    }
+
+    public Texture(Image image, Layout layout) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout cannot be null");
+        }
+        this.layout = layout;
         if (image == null) {
             throw new IllegalArgumentException("Image cannot be null");
         }
@@ -37,31 +86,83 @@ public class Texture {
         if (reader == null) {
             throw new IllegalArgumentException("Image pixel reader cannot be null");
         }
-        this.baseReader = reader;
 
-        this.paintLayer = new WritableImage(width, height);
-        this.paintReader = paintLayer.getPixelReader();
-        this.paintWriter = paintLayer.getPixelWriter();
+        // Пиксели читаются один раз; дальше PixelReader не используется
+        this.basePixels = new int[width * height];
+        reader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), basePixels, 0, width);
+        this.paintPixels = new int[width * height];
+        this.compositePixels = basePixels.clone();
 
-        this.compositeImage = new WritableImage(baseReader, width, height);
-        this.compositeReader = compositeImage.getPixelReader();
-        this.compositeWriter = compositeImage.getPixelWriter();
+        int levelCount = 1;
+        for (int size = Math.max(width, height); size > 1; size >>= 1) {
+            levelCount++;
+        }
+        this.levels = new int[levelCount][];
+        this.levelWidths = new int[levelCount];
+        this.levelHeights = new int[levelCount];
+        this.levelTileColumns = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            levelWidths[level] = level == 0 ? width : Math.max(1, levelWidths[level - 1] >> 1);
+            levelHeights[level] = level == 0 ? height : Math.max(1, levelHeights[level - 1] >> 1);
+            if (layout == Layout.TILED) {
+                // Уровень дополняется до целых плиток
+                int tileColumns = (levelWidths[level] + TILE_MASK) >> TILE_SHIFT;
+                int tileRows = (levelHeights[level] + TILE_MASK) >> TILE_SHIFT;
+                levelTileColumns[level] = tileColumns;
+                levels[level] = new int[tileColumns * tileRows * TILE_SIZE * TILE_SIZE];
+            } else {
+                levels[level] = level == 0 ? compositePixels : new int[levelWidths[level] * levelHeights[level]];
+            }
+        }
+        updateMipLevels(0, 0, width - 1, height - 1);
     }
 
-    public Image getImage() {
-        return compositeImage;
+    public synchronized Image getImage() {
+        return getWritableImage();
     }
 
-    public WritableImage getWritableImage() {
+    public synchronized WritableImage getWritableImage() {
+        if (compositeImage == null) {
+            compositeImage = new WritableImage(Math.max(1, width), Math.max(1, height));
+            imageDirty = true;
+        }
+        if (imageDirty) {
+            compositeImage.getPixelWriter().setPixels(0, 0, width, height,
+                    PixelFormat.getIntArgbInstance(), compositePixels, 0, width);
+            imageDirty = false;
+        }
         return compositeImage;
     }
 
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Filter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null");
+        }
+        this.filter = filter;
+    }
+
+    public WrapMode getWrapMode() {
+        return wrapMode;
+    }
+
+    public void setWrapMode(WrapMode wrapMode) {
+        if (wrapMode == null) {
+            throw new IllegalArgumentException("Wrap mode cannot be null");
+        }
+        this.wrapMode = wrapMode;
+    }
+
     public int[] snapshotPaintLayerArgb() {
-        // Снимок слоя покраски: выгрузка пикселей ARGB в массив (undo/redo)
-        final int[] pixels = new int[width * height];
-        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
-        paintReader.getPixels(0, 0, width, height, format, pixels, 0, width);
-        return pixels;
+        // Снимок слоя покраски: копия пикселей ARGB (undo/redo)
+        return paintPixels.clone();
     }
 
     public void restorePaintLayerArgb(final int[] pixels) {
@@ -69,69 +170,40 @@ public class Texture {
         if (pixels == null || pixels.length != width * height) {
             throw new IllegalArgumentException("Invalid paint layer snapshot");
         }
-        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
-        paintWriter.setPixels(0, 0, width, height, format, pixels, 0, width);
+        System.arraycopy(pixels, 0, paintPixels, 0, pixels.length);
         rebuildCompositeFromPaint();
     }
 
     public void clearPaintLayer() {
-        final int[] rowTransparent = new int[width];
-        Arrays.fill(rowTransparent, 0x00000000);
-
-        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
-        for (int y = 0; y < height; y++) {
-            paintWriter.setPixels(0, y, width, 1, format, rowTransparent, 0, width);
-        }
-
+        Arrays.fill(paintPixels, 0x00000000);
         copyBaseToComposite();
     }
 
     private void copyBaseToComposite() {
-        final int[] row = new int[width];
-        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
-        for (int y = 0; y < height; y++) {
-            baseReader.getPixels(0, y, width, 1, format, row, 0, width);
-            compositeWriter.setPixels(0, y, width, 1, format, row, 0, width);
-        }
+        System.arraycopy(basePixels, 0, compositePixels, 0, basePixels.length);
+        updateMipLevels(0, 0, width - 1, height - 1);
+        markDirty();
     }
 
     private void rebuildCompositeFromPaint() {
-        final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
-        final int[] baseRow = new int[width];
-        final int[] paintRow = new int[width];
-        final int[] outRow = new int[width];
-
-        for (int y = 0; y < height; y++) {
-            baseReader.getPixels(0, y, width, 1, format, baseRow, 0, width);
-            paintReader.getPixels(0, y, width, 1, format, paintRow, 0, width);
-            for (int x = 0; x < width; x++) {
-                outRow[x] = blendArgbOver(baseRow[x], paintRow[x]);
-            }
-            compositeWriter.setPixels(0, y, width, 1, format, outRow, 0, width);
+        for (int i = 0; i < compositePixels.length; i++) {
+            compositePixels[i] = blendArgbOver(basePixels[i], paintPixels[i]);
         }
+        updateMipLevels(0, 0, width - 1, height - 1);
+        markDirty();
+    }
+
+    private synchronized void markDirty() {
+        imageDirty = true;
     }
 
     public void stampCircle(final int centerX, final int centerY, final int radius, final Color color) {
         if (color == null) {
             return;
         }
-        final int r2 = radius * radius;
-        for (int dy = -radius; dy <= radius; dy++) {
-            int y = centerY + dy;
-            if (y < 0 || y >= height) {
-                continue;
-            }
-            for (int dx = -radius; dx <= radius; dx++) {
-                if (dx * dx + dy * dy > r2) {
-                    continue;
-                }
-                int x = centerX + dx;
-                if (x < 0 || x >= width) {
-                    continue;
-                }
-                applyPaintPixel(x, y, color);
-            }
-        }
+        paintCircle(centerX, centerY, radius, FrameBuffer.toArgb(color));
+        updateMipLevels(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        markDirty();
     }
 
     public void drawStrokeSegment(
@@ -152,76 +224,240 @@ public class Texture {
             stampCircle(x0, y0, radius, color);
             return;
         }
+        final int brush = FrameBuffer.toArgb(color);
         double step = Math.max(1.0, radius * 0.5);
         int steps = (int) Math.ceil(dist / step);
         for (int i = 0; i <= steps; i++) {
             double t = (steps == 0) ? 0.0 : (double) i / (double) steps;
             int x = (int) Math.round(x0 + dx * t);
             int y = (int) Math.round(y0 + dy * t);
-            stampCircle(x, y, radius, color);
+            paintCircle(x, y, radius, brush);
+        }
+        // Mip-уровни и Image - один раз на весь отрезок, по его bbox с запасом на радиус кисти
+        updateMipLevels(Math.min(x0, x1) - radius, Math.min(y0, y1) - radius,
+                Math.max(x0, x1) + radius, Math.max(y0, y1) + radius);
+        markDirty();
+    }
+
+    // Круг кисти только в слоях покраски и композиции; mip-уровни обновляет вызывающий
+    private void paintCircle(final int centerX, final int centerY, final int radius, final int brush) {
+        final int r2 = radius * radius;
+        for (int dy = -radius; dy <= radius; dy++) {
+            int y = centerY + dy;
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            for (int dx = -radius; dx <= radius; dx++) {
+                if (dx * dx + dy * dy > r2) {
+                    continue;
+                }
+                int x = centerX + dx;
+                if (x < 0 || x >= width) {
+                    continue;
+                }
+                applyPaintPixel(x, y, brush);
+            }
         }
     }
 
     public Color sample(float u, float v) {
+        return FrameBuffer.toColor(sampleArgb(u, v));
+    }
+
+    public int getMipLevelCount() {
+        return levels.length;
+    }
+
+    // Цвет текстуры (ARGB, не premultiplied) в точке UV на уровне 0: без объектов, безопасно из нескольких потоков.
+    // Центр текселя 0 - u = 0, последнего - u = 1; v направлена вверх (строка 0 - v = 1)
+    public int sampleArgb(float u, float v) {
+        return sampleArgb(u, v, 0.0f);
+    }
+
+    // Выборка с уровнем детализации lod = log2(текселей на пиксель): lod <= 0 - уровень 0,
+    // NEAREST/BILINEAR берут ближайший уровень, TRILINEAR смешивает floor(lod) и floor(lod) + 1
+    public int sampleArgb(float u, float v, float lod) {
+        if (wrapMode == WrapMode.REPEAT) {
+            u -= (float) Math.floor(u);
+            v -= (float) Math.floor(v);
+        }
+        // NaN проходит через min/max и при приведении к int даёт 0
         u = Math.max(0.0f, Math.min(1.0f, u));
         v = Math.max(0.0f, Math.min(1.0f, v));
 
-        int x = (int) (u * (width - 1));
-        int y = (int) ((1.0f - v) * (height - 1));
+        final int maxLevel = levels.length - 1;
+        if (!(lod > 0.0f)) {
+            lod = 0.0f;
+        } else if (lod > maxLevel) {
+            lod = maxLevel;
+        }
+        if (filter != Filter.TRILINEAR) {
+            int level = (int) (lod + 0.5f);
+            return filter == Filter.NEAREST ? sampleNearest(level, u, v) : sampleBilinear(level, u, v);
+        }
+        int level = (int) lod;
+        int fraction = (int) ((lod - level) * 256.0f);
+        int near = sampleBilinear(level, u, v);
+        if (fraction == 0 || level == maxLevel) {
+            return near;
+        }
+        return lerpArgb(near, sampleBilinear(level + 1, u, v), fraction);
+    }
 
-        x = Math.max(0, Math.min(width - 1, x));
-        y = Math.max(0, Math.min(height - 1, y));
+    // lod по квадрату наибольшей длины производной UV (в текселях уровня 0 на пиксель):
+    // 0.5 * log2(rho2) через показатель и мантиссу float - без Math.log на каждый пиксель
+    static float lodFromRho2(float rho2) {
+        if (!(rho2 > 1.0f)) {
+            return 0.0f;
+        }
+        return (Float.floatToRawIntBits(rho2) * (1.0f / (1 << 23)) - 127.0f) * 0.5f;
+    }
 
-        return compositeReader.getColor(x, y);
+    private int sampleNearest(int level, float u, float v) {
+        int levelWidth = levelWidths[level];
+        int levelHeight = levelHeights[level];
+        int x = Math.max(0, Math.min(levelWidth - 1, (int) (u * (levelWidth - 1))));
+        int y = Math.max(0, Math.min(levelHeight - 1, (int) ((1.0f - v) * (levelHeight - 1))));
+        return levels[level][texelIndex(level, x, y)];
     }
 
-    public boolean isLoaded() {
-        return baseImage != null;
+    // Положение текселя (x, y) уровня level в его массиве
+    private int texelIndex(int level, int x, int y) {
+        if (layout == Layout.TILED) {
+            int tile = (y >> TILE_SHIFT) * levelTileColumns[level] + (x >> TILE_SHIFT);
+            return (tile << (2 * TILE_SHIFT)) | ((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK);
+        }
+        return y * levelWidths[level] + x;
     }
 
-    public int getWidth() {
-        return width;
+    // Bilinear: дробная часть - 8 бит, веса четырёх текселей в сумме 65536
+    private int sampleBilinear(int level, float u, float v) {
+        final int levelWidth = levelWidths[level];
+        final int levelHeight = levelHeights[level];
+        final int[] pixels = levels[level];
+        int fx = (int) (u * (levelWidth - 1) * 256.0f);
+        int fy = (int) ((1.0f - v) * (levelHeight - 1) * 256.0f);
+        int x0 = Math.max(0, Math.min(levelWidth - 1, fx >> 8));
+        int y0 = Math.max(0, Math.min(levelHeight - 1, fy >> 8));
+        int ax = fx & 0xFF;
+        int ay = fy & 0xFF;
+
+        int x1;
+        int y1;
+        if (wrapMode == WrapMode.REPEAT) {
+            x1 = x0 + 1 < levelWidth ? x0 + 1 : 0;
+            y1 = y0 + 1 < levelHeight ? y0 + 1 : 0;
+        } else {
+            x1 = Math.min(levelWidth - 1, x0 + 1);
+            y1 = Math.min(levelHeight - 1, y0 + 1);
+        }
+
+        int p00 = pixels[texelIndex(level, x0, y0)];
+        int p10 = pixels[texelIndex(level, x1, y0)];
+        int p01 = pixels[texelIndex(level, x0, y1)];
+        int p11 = pixels[texelIndex(level, x1, y1)];
+
+        int w00 = (256 - ax) * (256 - ay);
+        int w10 = ax * (256 - ay);
+        int w01 = (256 - ax) * ay;
+        int w11 = ax * ay;
+
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int c = ((p00 >>> shift) & 0xFF) * w00
+                    + ((p10 >>> shift) & 0xFF) * w10
+                    + ((p01 >>> shift) & 0xFF) * w01
+                    + ((p11 >>> shift) & 0xFF) * w11;
+            result |= ((c + 0x8000) >>> 16) << shift;
+        }
+        return result;
     }
 
-    public int getHeight() {
-        return height;
+    // a + (b - a) * t / 256 по каналам
+    private static int lerpArgb(int a, int b, int t) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xFF;
+            int cb = (b >>> shift) & 0xFF;
+            result |= ((ca * (256 - t) + cb * t + 128) >> 8) << shift;
+        }
+        return result;
     }
 
-    private void applyPaintPixel(final int x, final int y, final Color brushColor) {
-        if (x < 0 || y < 0 || x >= width || y >= height) {
+    // Пересчёт mip-уровней над прямоугольником [x0, x1] x [y0, y1] уровня 0 (границы включительно)
+    private void updateMipLevels(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width - 1, x1);
+        y1 = Math.min(height - 1, y1);
+        if (x0 > x1 || y0 > y1) {
             return;
         }
-        Color prevOverlay = paintReader.getColor(x, y);
-        Color newOverlay = alphaOver(prevOverlay, brushColor);
-        paintWriter.setColor(x, y, newOverlay);
-        Color base = baseReader.getColor(x, y);
-        Color out = alphaOver(base, newOverlay);
-        compositeWriter.setColor(x, y, out);
+        if (layout == Layout.TILED) {
+            // Уровень 0 в плитках - копия построчной композиции
+            final int[] tiled = levels[0];
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    tiled[texelIndex(0, x, y)] = compositePixels[y * width + x];
+                }
+            }
+        }
+        for (int level = 1; level < levels.length; level++) {
+            x0 >>= 1;
+            y0 >>= 1;
+            x1 = Math.min(levelWidths[level] - 1, x1 >> 1);
+            y1 = Math.min(levelHeights[level] - 1, y1 >> 1);
+            downsample(level, x0, y0, x1, y1);
+        }
     }
 
-    private static Color alphaOver(final Color dst, final Color src) {
-        double sa = src.getOpacity();
-        double da = dst.getOpacity();
-
-        double outA = sa + da * (1.0 - sa);
-        if (outA <= 1e-9) {
-            return Color.color(0, 0, 0, 0);
+    // Тексель уровня level - среднее 2x2 текселей уровня level - 1 (у нечётного края - повтор последнего)
+    private void downsample(int level, int x0, int y0, int x1, int y1) {
+        final int[] src = levels[level - 1];
+        final int srcWidth = levelWidths[level - 1];
+        final int srcHeight = levelHeights[level - 1];
+        final int[] dst = levels[level];
+        for (int y = y0; y <= y1; y++) {
+            int sy0 = Math.min(srcHeight - 1, 2 * y);
+            int sy1 = Math.min(srcHeight - 1, 2 * y + 1);
+            for (int x = x0; x <= x1; x++) {
+                int sx0 = Math.min(srcWidth - 1, 2 * x);
+                int sx1 = Math.min(srcWidth - 1, 2 * x + 1);
+                int p00 = src[texelIndex(level - 1, sx0, sy0)];
+                int p10 = src[texelIndex(level - 1, sx1, sy0)];
+                int p01 = src[texelIndex(level - 1, sx0, sy1)];
+                int p11 = src[texelIndex(level - 1, sx1, sy1)];
+                int result = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int c = ((p00 >>> shift) & 0xFF) + ((p10 >>> shift) & 0xFF)
+                            + ((p01 >>> shift) & 0xFF) + ((p11 >>> shift) & 0xFF);
+                    result |= ((c + 2) >> 2) << shift;
+                }
+                dst[texelIndex(level, x, y)] = result;
+            }
         }
+    }
 
-        double outR = (src.getRed() * sa + dst.getRed() * da * (1.0 - sa)) / outA;
-        double outG = (src.getGreen() * sa + dst.getGreen() * da * (1.0 - sa)) / outA;
-        double outB = (src.getBlue() * sa + dst.getBlue() * da * (1.0 - sa)) / outA;
-        return new Color(clamp01(outR), clamp01(outG), clamp01(outB), clamp01(outA));
+    public boolean isLoaded() {
+        return baseImage != null;
     }
 
-    private static double clamp01(final double v) {
-        if (v < 0.0) {
-            return 0.0;
-        }
-        if (v > 1.0) {
-            return 1.0;
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private void applyPaintPixel(final int x, final int y, final int brush) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
         }
-        return v;
+        int i = y * width + x;
+        int overlay = blendArgbOver(paintPixels[i], brush);
+        paintPixels[i] = overlay;
+        compositePixels[i] = blendArgbOver(basePixels[i], overlay);
     }
 
     private static int blendArgbOver(final int dst, final int src) {
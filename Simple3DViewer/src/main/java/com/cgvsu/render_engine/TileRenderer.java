@@ -0,0 +1,160 @@
+package com.cgvsu.render_engine;
+
+// тайловый рендер: проход подготовки раскладывает примитивы по тайлам экрана,
+// затем тайлы растеризуются параллельно в ForkJoinPool.
+// каждый тайл пишет только в свои пиксели FrameBuffer/ZBuffer - блокировки не нужны.
+// порядок примитивов внутри тайла = порядок отправки, результат совпадает с последовательным рендером.
+
+import com.cgvsu.math.Vector3f;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+final class TileRenderer {
+
+    private static final class Primitive {
+        final boolean line;
+        final boolean shaded;
+        final ScreenVertex v0;
+        final ScreenVertex v1;
+        final ScreenVertex v2;
+        final Texture texture;
+        final Lighting lighting;
+        final Color color;
+        final Vector3f cameraPosition;
+        final double depthBiasScale;
+
+        Primitive(boolean line, boolean shaded, ScreenVertex v0, ScreenVertex v1, ScreenVertex v2,
+                  Texture texture, Lighting lighting, Color color, Vector3f cameraPosition, double depthBiasScale) {
+            this.line = line;
+            this.shaded = shaded;
+            this.v0 = v0;
+            this.v1 = v1;
+            this.v2 = v2;
+            this.texture = texture;
+            this.lighting = lighting;
+            this.color = color;
+            this.cameraPosition = cameraPosition;
+            this.depthBiasScale = depthBiasScale;
+        }
+    }
+
+    private final FrameBuffer frameBuffer;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+    private final List<Primitive> primitives = new ArrayList<>();
+    private final int[][] bins;
+    private final int[] binSizes;
+
+    TileRenderer(FrameBuffer frameBuffer, int tileSize) {
+        this.frameBuffer = frameBuffer;
+        // Размер тайла кратен блоку ZBuffer: блоки иерархического Z не делятся между потоками
+        this.tileSize = (tileSize + ZBuffer.BLOCK_SIZE - 1) / ZBuffer.BLOCK_SIZE * ZBuffer.BLOCK_SIZE;
+        this.tilesX = (frameBuffer.getWidth() + this.tileSize - 1) / this.tileSize;
+        this.tilesY = (frameBuffer.getHeight() + this.tileSize - 1) / this.tileSize;
+        this.bins = new int[tilesX * tilesY][];
+        this.binSizes = new int[tilesX * tilesY];
+    }
+
+    void addTriangle(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2, Color color) {
+        bin(new Primitive(false, false, v0, v1, v2, null, null, color, null, 0.0),
+                Math.min(v0.getX(), Math.min(v1.getX(), v2.getX())),
+                Math.min(v0.getY(), Math.min(v1.getY(), v2.getY())),
+                Math.max(v0.getX(), Math.max(v1.getX(), v2.getX())),
+                Math.max(v0.getY(), Math.max(v1.getY(), v2.getY())));
+    }
+
+    void addTriangle(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2,
+                     Texture texture, Lighting lighting, Color baseColor, Vector3f cameraPosition) {
+        bin(new Primitive(false, true, v0, v1, v2, texture, lighting, baseColor, cameraPosition, 0.0),
+                Math.min(v0.getX(), Math.min(v1.getX(), v2.getX())),
+                Math.min(v0.getY(), Math.min(v1.getY(), v2.getY())),
+                Math.max(v0.getX(), Math.max(v1.getX(), v2.getX())),
+                Math.max(v0.getY(), Math.max(v1.getY(), v2.getY())));
+    }
+
+    void addLine(ScreenVertex a, ScreenVertex b, Color color, double depthBiasScale) {
+        // Запас в 1 пиксель: LineRasterizer округляет концы отрезка
+        bin(new Primitive(true, false, a, b, null, null, null, color, null, depthBiasScale),
+                Math.min(a.getX(), b.getX()) - 1.0f,
+                Math.min(a.getY(), b.getY()) - 1.0f,
+                Math.max(a.getX(), b.getX()) + 1.0f,
+                Math.max(a.getY(), b.getY()) + 1.0f);
+    }
+
+    private void bin(Primitive primitive, float minX, float minY, float maxX, float maxY) {
+        // Раскладка по тайлам: bbox примитива -> диапазон тайлов (с отсечением по экрану)
+        int width = frameBuffer.getWidth();
+        int height = frameBuffer.getHeight();
+        if (!(maxX >= 0 && maxY >= 0 && minX <= width - 1 && minY <= height - 1)) {
+            return;
+        }
+        int index = primitives.size();
+        primitives.add(primitive);
+
+        int tileMinX = (int) Math.max(0, Math.floor(minX)) / tileSize;
+        int tileMinY = (int) Math.max(0, Math.floor(minY)) / tileSize;
+        int tileMaxX = (int) Math.min(width - 1, Math.ceil(maxX)) / tileSize;
+        int tileMaxY = (int) Math.min(height - 1, Math.ceil(maxY)) / tileSize;
+
+        for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+            for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                append(ty * tilesX + tx, index);
+            }
+        }
+    }
+
+    private void append(int tile, int primitiveIndex) {
+        int[] bin = bins[tile];
+        int size = binSizes[tile];
+        if (bin == null) {
+            bin = new int[16];
+            bins[tile] = bin;
+        } else if (size == bin.length) {
+            bin = Arrays.copyOf(bin, size * 2);
+            bins[tile] = bin;
+        }
+        bin[size] = primitiveIndex;
+        binSizes[tile] = size + 1;
+    }
+
+    void rasterize(ForkJoinPool pool) {
+        if (primitives.isEmpty()) {
+            return;
+        }
+        // Параллельный проход: каждый тайл обрабатывается одной задачей
+        pool.submit(() -> IntStream.range(0, bins.length).parallel().forEach(this::rasterizeTile)).join();
+    }
+
+    private void rasterizeTile(int tile) {
+        int size = binSizes[tile];
+        if (size == 0) {
+            return;
+        }
+        int[] bin = bins[tile];
+        int clipMinX = (tile % tilesX) * tileSize;
+        int clipMinY = (tile / tilesX) * tileSize;
+        int clipMaxX = Math.min(frameBuffer.getWidth(), clipMinX + tileSize) - 1;
+        int clipMaxY = Math.min(frameBuffer.getHeight(), clipMinY + tileSize) - 1;
+
+        for (int i = 0; i < size; i++) {
+            Primitive p = primitives.get(bin[i]);
+            if (p.line) {
+                LineRasterizer.drawLine(frameBuffer, p.v0, p.v1, p.color, p.depthBiasScale,
+                        clipMinX, clipMinY, clipMaxX, clipMaxY);
+            } else if (p.shaded) {
+                TriangleRasterizer.fillTriangle(frameBuffer, p.v0, p.v1, p.v2,
+                        p.texture, p.lighting, p.color, p.cameraPosition,
+                        clipMinX, clipMinY, clipMaxX, clipMaxY);
+            } else {
+                TriangleRasterizer.fillTriangle(frameBuffer, p.v0, p.v1, p.v2, p.color,
+                        clipMinX, clipMinY, clipMaxX, clipMaxY);
+            }
+        }
+    }
+}
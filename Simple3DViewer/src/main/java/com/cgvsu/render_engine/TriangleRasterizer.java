@@ -1,15 +1,18 @@
 package com.cgvsu.render_engine;
 
- // растеризация треугольников в screen-space
- // ограничение области: прямоугольник охвата (min/max X/Y)
+ // растеризация треугольников в screen-space (запись в FrameBuffer)
+ // покрытие: целочисленные функции рёбер (fixed-point, 4 бита субпикселя), шаг по x/y без умножений
+ // правило заполнения top-left: общее ребро соседних треугольников не рисуется дважды и не пропадает
+ // обход блоками 8x8: блок вне ребра пропускается, целиком покрытый - без проверок рёбер по пикселям
+ // иерархический Z: блок, закрытый уже нарисованной геометрией (min/max глубины ZBuffer), пропускается до шейдинга
+ // строка: границы покрываемого отрезка считаются сразу, пустые пиксели не перебираются
  // интерполяция:  барицентрические координаты + глубина (Z-buffer)
- // nекстурирование: перспективная коррекция через invW.
- // jсвещение: интерполяция интенсивности или подсчёт по нормали/позиции.
+ // nекстурирование: перспективная коррекция через invW, выборка Texture.sampleArgb (упакованный int, без Color).
+ // mip-уровень: lod на пиксель из производных UV по x/y (градиенты u/w, v/w, 1/w постоянны на треугольнике).
+ // jсвещение: интерполяция интенсивности или подсчёт по нормали/позиции; цвет до записи - упакованный int (Lighting.shadeArgb).
  
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelWriter;
 import javafx.scene.paint.Color;
 
 public class TriangleRasterizer {
@@ -17,112 +20,100 @@ public class TriangleRasterizer {
     private TriangleRasterizer() {}
 
     public static void fillTriangle(
-            GraphicsContext gc,
-            ZBuffer zBuffer,
+            FrameBuffer frameBuffer,
             ScreenVertex v0,
             ScreenVertex v1,
             ScreenVertex v2,
-            int width,
-            int height,
             Color color
     ) {
-        PixelWriter pw = gc.getPixelWriter();
-
-        float x0 = v0.getX();
-        float y0 = v0.getY();
-        double z0 = v0.getZ();
-
-        float x1 = v1.getX();
-        float y1 = v1.getY();
-        double z1 = v1.getZ();
-
-        float x2 = v2.getX();
-        float y2 = v2.getY();
-        double z2 = v2.getZ();
-
-        // Ограничение области: прямоугольник охвата по screen-space координатам
-        int minX = clamp((int) Math.max(0, Math.floor(Math.min(x0, Math.min(x1, x2)))), 0, width - 1);
-        int maxX = clamp((int) Math.min(width - 1, Math.ceil(Math.max(x0, Math.max(x1, x2)))), 0, width - 1);
-        int minY = clamp((int) Math.max(0, Math.floor(Math.min(y0, Math.min(y1, y2)))), 0, height - 1);
-        int maxY = clamp((int) Math.min(height - 1, Math.ceil(Math.max(y0, Math.max(y1, y2)))), 0, height - 1);
+        fillTriangle(frameBuffer, v0, v1, v2, color,
+                0, 0, frameBuffer.getWidth() - 1, frameBuffer.getHeight() - 1);
+    }
 
-        // Подсчёт барицентрических координат
-        double denom = (double) ((y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2));
-        if (Math.abs(denom) < 1e-12) {
+    public static void fillTriangle(
+            FrameBuffer frameBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            Color color,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY
+    ) {
+        final EdgeSetup setup = EdgeSetup.create(v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY);
+        if (setup == null) {
             return;
         }
-
-        // проверка принадлежности треугольнику через alpha/beta/gamma
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-
-                double alpha = ((y1 - y2) * (x - x2) + (x2 - x1) * (y - y2)) / denom;
-                double beta = ((y2 - y0) * (x - x2) + (x0 - x2) * (y - y2)) / denom;
-                double gamma = 1.0 - alpha - beta;
-
-                if (alpha >= 0 && beta >= 0 && gamma >= 0) {
-                    // Интерполяция глубины
-                    double depth = alpha * z0 + beta * z1 + gamma * z2;
-
-                    // Проверка глубины
-                    if (zBuffer.testAndSet(x, y, depth)) {
-                        pw.setColor(x, y, color);
-                    }
+        final ZBuffer zBuffer = frameBuffer.getZBuffer();
+        final int argb = FrameBuffer.toArgb(color);
+
+        final double z0 = v0.getZ();
+        final double z1 = v1.getZ();
+        final double z2 = v2.getZ();
+        final double invArea = setup.invArea;
+
+        // Обход блоков: в каждом покрытом отрезке функции рёбер шагают по x без умножений
+        traverse(setup, zBuffer, z0, z1, z2, (y, from, to, e0, e1, e2, depthPasses) -> {
+            for (int x = from; x <= to; x++, e0 += setup.stepX0, e1 += setup.stepX1, e2 += setup.stepX2) {
+                // Интерполяция глубины
+                double depth = (e0 * z0 + e1 * z1 + e2 * z2) * invArea;
+
+                // Проверка глубины (если весь блок дальше треугольника - запись без сравнения)
+                if (depthPasses) {
+                    zBuffer.set(x, y, depth);
+                    frameBuffer.setPixel(x, y, argb);
+                } else if (zBuffer.testAndSet(x, y, depth)) {
+                    frameBuffer.setPixel(x, y, argb);
                 }
             }
-        }
+        });
     }
 
-    private static int clamp(int value, int min, int max) {
-        if (value < min) {
-            return min;
-        }
-        if (value > max) {
-            return max;
-        }
-        return value;
+    public static void fillTriangle(
+            FrameBuffer frameBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            Texture texture,
+            Lighting lighting,
+            Color baseColor,
+            Vector3f cameraPosition
+    ) {
+        fillTriangle(frameBuffer, v0, v1, v2, texture, lighting, baseColor, cameraPosition,
+                0, 0, frameBuffer.getWidth() - 1, frameBuffer.getHeight() - 1);
     }
 
     public static void fillTriangle(
-            GraphicsContext gc,
-            ZBuffer zBuffer,
+            FrameBuffer frameBuffer,
             ScreenVertex v0,
             ScreenVertex v1,
             ScreenVertex v2,
-            int width,
-            int height,
             Texture texture,
             Lighting lighting,
             Color baseColor,
-            Vector3f cameraPosition
+            Vector3f cameraPosition,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY
     ) {
-        PixelWriter pw = gc.getPixelWriter();
+        final EdgeSetup setup = EdgeSetup.create(v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY);
+        if (setup == null) {
+            return;
+        }
+        final ZBuffer zBuffer = frameBuffer.getZBuffer();
 
-        float x0 = v0.getX();
-        float y0 = v0.getY();
         double z0 = v0.getZ();
         float invW0 = v0.getInvW();
 
-        float x1 = v1.getX();
-        float y1 = v1.getY();
         double z1 = v1.getZ();
         float invW1 = v1.getInvW();
 
-        float x2 = v2.getX();
-        float y2 = v2.getY();
         double z2 = v2.getZ();
         float invW2 = v2.getInvW();
 
-        // Ограничение области
-        int minX = (int) Math.max(0, Math.floor(Math.min(x0, Math.min(x1, x2))));
-        int maxX = (int) Math.min(width - 1, Math.ceil(Math.max(x0, Math.max(x1, x2))));
-        int minY = (int) Math.max(0, Math.floor(Math.min(y0, Math.min(y1, y2))));
-        int maxY = (int) Math.min(height - 1, Math.ceil(Math.max(y0, Math.max(y1, y2))));
-
-        double denom = (double) ((y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2));
-        if (Math.abs(denom) < 1e-12) {
-            return;
-        }
+        final double invArea = setup.invArea;
 
         Vector2f tex0 = v0.getTextureCoords();
         Vector2f tex1 = v1.getTextureCoords();
@@ -136,79 +127,337 @@ public class TriangleRasterizer {
         Vector3f worldPos1 = v1.getWorldPosition();
         Vector3f worldPos2 = v2.getWorldPosition();
 
-        Float light0 = v0.getLightingIntensity();
-        Float light1 = v1.getLightingIntensity();
-        Float light2 = v2.getLightingIntensity();
+        float light0 = v0.getLightingIntensity();
+        float light1 = v1.getLightingIntensity();
+        float light2 = v2.getLightingIntensity();
 
         boolean hasTexture = texture != null && tex0 != null && tex1 != null && tex2 != null;
-        boolean hasPrecomputedLighting = lighting != null && light0 != null && light1 != null && light2 != null;
+        boolean hasPrecomputedLighting = lighting != null
+                && v0.hasLightingIntensity() && v1.hasLightingIntensity() && v2.hasLightingIntensity();
         boolean hasLighting = !hasPrecomputedLighting && lighting != null && normal0 != null && normal1 != null && normal2 != null
                 && worldPos0 != null && worldPos1 != null && worldPos2 != null;
 
-        // Перебор пикселей bbox + ветвление: базовый цвет / текстура / освещение
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-
-                double alpha = ((y1 - y2) * (x - x2) + (x2 - x1) * (y - y2)) / denom;
-                double beta = ((y2 - y0) * (x - x2) + (x0 - x2) * (y - y2)) / denom;
-                double gamma = 1.0 - alpha - beta;
-
-                if (alpha >= 0 && beta >= 0 && gamma >= 0) {
-                    double depth = alpha * z0 + beta * z1 + gamma * z2;
-
-                    if (zBuffer.testAndSet(x, y, depth)) {
-                        Color pixelColor = baseColor;
-
-                        if (hasTexture) {
-                            // Перспективная коррекция UV: интерполяция u/w и v/w через invW
-                            double invW = alpha * invW0 + beta * invW1 + gamma * invW2;
-                            if (Math.abs(invW) > 1e-12) {
-                                double w = 1.0 / invW;
-                                double uOverW =
-                                        alpha * tex0.getX() * invW0 +
-                                                beta * tex1.getX() * invW1 +
-                                                gamma * tex2.getX() * invW2;
-                                double vOverW =
-                                        alpha * tex0.getY() * invW0 +
-                                                beta * tex1.getY() * invW1 +
-                                                gamma * tex2.getY() * invW2;
-
-                                float u = (float) (uOverW * w);
-                                float v = (float) (vOverW * w);
-                                pixelColor = texture.sample(u, v);
-                            }
-                        }
+        final int baseArgb = FrameBuffer.toArgb(baseColor);
+        final float cameraX = hasLighting ? cameraPosition.getX() : 0.0f;
+        final float cameraY = hasLighting ? cameraPosition.getY() : 0.0f;
+        final float cameraZ = hasLighting ? cameraPosition.getZ() : 0.0f;
+
+        // Градиенты u/w, v/w и 1/w в screen-space (в текселях уровня 0) - для выбора mip-уровня
+        final boolean mipmapped = hasTexture && texture.getMipLevelCount() > 1;
+        final double texelsU = hasTexture ? texture.getWidth() : 0.0;
+        final double texelsV = hasTexture ? texture.getHeight() : 0.0;
+        final double uw0 = hasTexture ? tex0.getX() * invW0 : 0.0;
+        final double uw1 = hasTexture ? tex1.getX() * invW1 : 0.0;
+        final double uw2 = hasTexture ? tex2.getX() * invW2 : 0.0;
+        final double vw0 = hasTexture ? tex0.getY() * invW0 : 0.0;
+        final double vw1 = hasTexture ? tex1.getY() * invW1 : 0.0;
+        final double vw2 = hasTexture ? tex2.getY() * invW2 : 0.0;
+        final double duwdx = (setup.stepX0 * uw0 + setup.stepX1 * uw1 + setup.stepX2 * uw2) * invArea;
+        final double duwdy = (setup.stepY0 * uw0 + setup.stepY1 * uw1 + setup.stepY2 * uw2) * invArea;
+        final double dvwdx = (setup.stepX0 * vw0 + setup.stepX1 * vw1 + setup.stepX2 * vw2) * invArea;
+        final double dvwdy = (setup.stepY0 * vw0 + setup.stepY1 * vw1 + setup.stepY2 * vw2) * invArea;
+        final double dinvWdx = (setup.stepX0 * invW0 + setup.stepX1 * invW1 + setup.stepX2 * invW2) * invArea;
+        final double dinvWdy = (setup.stepY0 * invW0 + setup.stepY1 * invW1 + setup.stepY2 * invW2) * invArea;
+
+        // Перебор покрытых пикселей + ветвление: базовый цвет / текстура / освещение
+        traverse(setup, zBuffer, z0, z1, z2, (y, from, to, e0, e1, e2, depthPasses) -> {
+            for (int x = from; x <= to; x++, e0 += setup.stepX0, e1 += setup.stepX1, e2 += setup.stepX2) {
+
+                double alpha = e0 * invArea;
+                double beta = e1 * invArea;
+                double gamma = e2 * invArea;
+
+                double depth = alpha * z0 + beta * z1 + gamma * z2;
+
+                // Проверка глубины (если весь блок дальше треугольника - запись без сравнения)
+                if (depthPasses) {
+                    zBuffer.set(x, y, depth);
+                } else if (!zBuffer.testAndSet(x, y, depth)) {
+                    continue;
+                }
 
-                        if (hasPrecomputedLighting) {
-                            // Освещение: интерполяция заранее подсчитанной интенсивности
-                            float intensity = (float) (alpha * light0 + beta * light1 + gamma * light2);
-                            pixelColor = lighting.shadeColor(pixelColor, intensity);
-                        } else if (hasLighting) {
-                            // Освещение: интерполяция normal/worldPos + подсчёт интенсивности на пикселе
-                            Vector3f interpolatedNormal = normal0.multiply((float) alpha)
-                                    .add(normal1.multiply((float) beta))
-                                    .add(normal2.multiply((float) gamma))
-                                    .normalize();
-
-                            Vector3f interpolatedWorldPos = worldPos0.multiply((float) alpha)
-                                    .add(worldPos1.multiply((float) beta))
-                                    .add(worldPos2.multiply((float) gamma));
-
-                            float intensity = lighting.computeLightingIntensity(
-                                    interpolatedNormal,
-                                    interpolatedWorldPos,
-                                    cameraPosition
-                            );
-
-                            pixelColor = lighting.shadeColor(pixelColor, intensity);
+                int pixelArgb = baseArgb;
+
+                if (hasTexture) {
+                    // Перспективная коррекция UV: интерполяция u/w и v/w через invW
+                    double invW = alpha * invW0 + beta * invW1 + gamma * invW2;
+                    if (Math.abs(invW) > 1e-12) {
+                        double w = 1.0 / invW;
+                        double uOverW =
+                                alpha * tex0.getX() * invW0 +
+                                        beta * tex1.getX() * invW1 +
+                                        gamma * tex2.getX() * invW2;
+                        double vOverW =
+                                alpha * tex0.getY() * invW0 +
+                                        beta * tex1.getY() * invW1 +
+                                        gamma * tex2.getY() * invW2;
+
+                        float u = (float) (uOverW * w);
+                        float v = (float) (vOverW * w);
+                        float lod = 0.0f;
+                        if (mipmapped) {
+                            // d(u)/dx = (d(u/w)/dx - u * d(1/w)/dx) * w, аналогично для v и y
+                            double dudx = (duwdx - u * dinvWdx) * w * texelsU;
+                            double dvdx = (dvwdx - v * dinvWdx) * w * texelsV;
+                            double dudy = (duwdy - u * dinvWdy) * w * texelsU;
+                            double dvdy = (dvwdy - v * dinvWdy) * w * texelsV;
+                            double rho2 = Math.max(dudx * dudx + dvdx * dvdx, dudy * dudy + dvdy * dvdy);
+                            lod = Texture.lodFromRho2((float) rho2);
                         }
+                        pixelArgb = texture.sampleArgb(u, v, lod);
+                    }
+                }
 
-                        pw.setColor(x, y, pixelColor);
+                if (hasPrecomputedLighting) {
+                    // Освещение: интерполяция заранее подсчитанной интенсивности
+                    float intensity = (float) (alpha * light0 + beta * light1 + gamma * light2);
+                    pixelArgb = lighting.shadeArgb(pixelArgb, intensity);
+                } else if (hasLighting) {
+                    // Освещение (Фонг): интерполяция normal/worldPos по компонентам + интенсивность на пикселе
+                    float a = (float) alpha;
+                    float b = (float) beta;
+                    float c = (float) gamma;
+                    float intensity = lighting.computeLightingIntensity(
+                            a * normal0.getX() + b * normal1.getX() + c * normal2.getX(),
+                            a * normal0.getY() + b * normal1.getY() + c * normal2.getY(),
+                            a * normal0.getZ() + b * normal1.getZ() + c * normal2.getZ(),
+                            a * worldPos0.getX() + b * worldPos1.getX() + c * worldPos2.getX(),
+                            a * worldPos0.getY() + b * worldPos1.getY() + c * worldPos2.getY(),
+                            a * worldPos0.getZ() + b * worldPos1.getZ() + c * worldPos2.getZ(),
+                            cameraX,
+                            cameraY,
+                            cameraZ
+                    );
+
+                    pixelArgb = lighting.shadeArgb(pixelArgb, intensity);
+                }
+
+                frameBuffer.setPixel(x, y, pixelArgb);
+            }
+        });
+    }
+
+    // Обработка покрытого отрезка строки [from, to]; e_i - функции рёбер в пикселе from
+    private interface SpanShader {
+        void shade(int y, int from, int to, long e0, long e1, long e2, boolean depthPasses);
+    }
+
+    private static void traverse(EdgeSetup setup, ZBuffer zBuffer,
+                                 double z0, double z1, double z2, SpanShader shader) {
+        final double invArea = setup.invArea;
+        final double zMinVertex = Math.min(z0, Math.min(z1, z2));
+        final double zMaxVertex = Math.max(z0, Math.max(z1, z2));
+        // Глубина аффинна в screen-space: градиенты через шаги функций рёбер
+        final double dzdx = (setup.stepX0 * z0 + setup.stepX1 * z1 + setup.stepX2 * z2) * invArea;
+        final double dzdy = (setup.stepY0 * z0 + setup.stepY1 * z1 + setup.stepY2 * z2) * invArea;
+
+        final int shift = ZBuffer.BLOCK_SHIFT;
+        for (int by = setup.minY >> shift; by <= setup.maxY >> shift; by++) {
+            int y0 = Math.max(by << shift, setup.minY);
+            int y1 = Math.min((by << shift) + ZBuffer.BLOCK_SIZE - 1, setup.maxY);
+            int dy = y1 - y0;
+            for (int bx = setup.minX >> shift; bx <= setup.maxX >> shift; bx++) {
+                int x0 = Math.max(bx << shift, setup.minX);
+                int x1 = Math.min((bx << shift) + ZBuffer.BLOCK_SIZE - 1, setup.maxX);
+                int dx = x1 - x0;
+
+                // Функции рёбер в левом верхнем пикселе блока; экстремумы - в углах (функции линейны)
+                long c0 = setup.edge0(x0, y0);
+                long c1 = setup.edge1(x0, y0);
+                long c2 = setup.edge2(x0, y0);
+                long lo0 = c0 + setup.bias0 + Math.min(0, setup.stepX0 * dx) + Math.min(0, setup.stepY0 * dy);
+                long lo1 = c1 + setup.bias1 + Math.min(0, setup.stepX1 * dx) + Math.min(0, setup.stepY1 * dy);
+                long lo2 = c2 + setup.bias2 + Math.min(0, setup.stepX2 * dx) + Math.min(0, setup.stepY2 * dy);
+                long hi0 = c0 + setup.bias0 + Math.max(0, setup.stepX0 * dx) + Math.max(0, setup.stepY0 * dy);
+                long hi1 = c1 + setup.bias1 + Math.max(0, setup.stepX1 * dx) + Math.max(0, setup.stepY1 * dy);
+                long hi2 = c2 + setup.bias2 + Math.max(0, setup.stepX2 * dx) + Math.max(0, setup.stepY2 * dy);
+
+                // Блок целиком снаружи одного из рёбер
+                if (hi0 < 0 || hi1 < 0 || hi2 < 0) {
+                    continue;
+                }
+                boolean fullyCovered = lo0 >= 0 && lo1 >= 0 && lo2 >= 0;
+
+                // Границы глубины треугольника в блоке: плоскость в углах ∩ диапазон вершин
+                double zCorner = (c0 * z0 + c1 * z1 + c2 * z2) * invArea;
+                double zLow = Math.max(zMinVertex, zCorner + Math.min(0.0, dzdx * dx) + Math.min(0.0, dzdy * dy));
+                double zHigh = Math.min(zMaxVertex, zCorner + Math.max(0.0, dzdx * dx) + Math.max(0.0, dzdy * dy));
+                if (zLow >= zBuffer.getBlockMaxDepth(bx, by)) {
+                    continue;
+                }
+                boolean depthPasses = (float) zHigh < zBuffer.getBlockMinDepth(bx, by);
+
+                for (int y = y0; y <= y1; y++, c0 += setup.stepY0, c1 += setup.stepY1, c2 += setup.stepY2) {
+                    int from = x0;
+                    int to = x1;
+                    if (!fullyCovered) {
+                        from = x0 + (int) Math.min(dx + 1L, setup.spanStart(c0, c1, c2));
+                        to = x0 + (int) Math.max(-1L, Math.min(dx, setup.spanEnd(c0, c1, c2)));
+                        if (from > to) {
+                            continue;
+                        }
                     }
+                    int skip = from - x0;
+                    shader.shade(y, from, to,
+                            c0 + skip * setup.stepX0,
+                            c1 + skip * setup.stepX1,
+                            c2 + skip * setup.stepX2,
+                            depthPasses);
                 }
             }
         }
     }
 
-}
+    // Подготовка треугольника: fixed-point вершины, коэффициенты функций рёбер, bbox ∩ область отсечения.
+    // e_i(x, y) = A_i * x + B_i * y + C_i, e_i > 0 внутри; e0 + e1 + e2 = удвоенная площадь.
+    static final class EdgeSetup {
+        // 4 бита субпикселя; вершины дальше MAX_COORD пикселей не влезают в long-арифметику
+        static final int SUBPIXEL_BITS = 4;
+        static final int SUBPIXEL_ONE = 1 << SUBPIXEL_BITS;
+        static final float MAX_COORD = 1 << 25;
+
+        int minX;
+        int maxX;
+        int minY;
+        int maxY;
+        double invArea;
+
+        long stepX0, stepX1, stepX2;
+        long stepY0, stepY1, stepY2;
+        long rowStart0, rowStart1, rowStart2;
+        // Смещение top-left: 0 для верхнего/левого ребра, -1 для остальных (граница не включается)
+        long bias0, bias1, bias2;
+
+        static EdgeSetup create(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2,
+                                int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+            if (clipMaxX < clipMinX || clipMaxY < clipMinY) {
+                return null;
+            }
+            float fx0 = v0.getX(), fy0 = v0.getY();
+            float fx1 = v1.getX(), fy1 = v1.getY();
+            float fx2 = v2.getX(), fy2 = v2.getY();
+            if (!inRange(fx0) || !inRange(fy0) || !inRange(fx1) || !inRange(fy1) || !inRange(fx2) || !inRange(fy2)) {
+                return null;
+            }
+
+            // Ограничение области: прямоугольник охвата по screen-space координатам ∩ область отсечения (тайл/экран)
+            int minX = Math.max(clipMinX, (int) Math.floor(Math.min(fx0, Math.min(fx1, fx2))));
+            int maxX = Math.min(clipMaxX, (int) Math.ceil(Math.max(fx0, Math.max(fx1, fx2))));
+            int minY = Math.max(clipMinY, (int) Math.floor(Math.min(fy0, Math.min(fy1, fy2))));
+            int maxY = Math.min(clipMaxY, (int) Math.ceil(Math.max(fy0, Math.max(fy1, fy2))));
+            if (minX > maxX || minY > maxY) {
+                return null;
+            }
+
+            long x0 = toFixed(fx0), y0 = toFixed(fy0);
+            long x1 = toFixed(fx1), y1 = toFixed(fy1);
+            long x2 = toFixed(fx2), y2 = toFixed(fy2);
+
+            // Ребро напротив вершины i: e0 = (v1, v2), e1 = (v2, v0), e2 = (v0, v1)
+            long a0 = y1 - y2, b0 = x2 - x1;
+            long a1 = y2 - y0, b1 = x0 - x2;
+            long a2 = y0 - y1, b2 = x1 - x0;
+            long area = b2 * (y2 - y0) - (y1 - y0) * (x2 - x0);
+            if (area == 0) {
+                return null;
+            }
+            if (area < 0) {
+                // Приведение ориентации: внутренность всегда там, где e_i > 0
+                a0 = -a0; b0 = -b0;
+                a1 = -a1; b1 = -b1;
+                a2 = -a2; b2 = -b2;
+                area = -area;
+            }
+
+            EdgeSetup setup = new EdgeSetup();
+            setup.minX = minX;
+            setup.maxX = maxX;
+            setup.minY = minY;
+            setup.maxY = maxY;
+            setup.invArea = 1.0 / area;
+
+            setup.bias0 = isTopLeft(a0, b0) ? 0 : -1;
+            setup.bias1 = isTopLeft(a1, b1) ? 0 : -1;
+            setup.bias2 = isTopLeft(a2, b2) ? 0 : -1;
+
+            // Центр пикселя = целые координаты (как в исходной схеме выборки)
+            long px = (long) minX << SUBPIXEL_BITS;
+            long py = (long) minY << SUBPIXEL_BITS;
+            setup.rowStart0 = a0 * (px - x1) + b0 * (py - y1);
+            setup.rowStart1 = a1 * (px - x2) + b1 * (py - y2);
+            setup.rowStart2 = a2 * (px - x0) + b2 * (py - y0);
+
+            setup.stepX0 = a0 << SUBPIXEL_BITS;
+            setup.stepX1 = a1 << SUBPIXEL_BITS;
+            setup.stepX2 = a2 << SUBPIXEL_BITS;
+            setup.stepY0 = b0 << SUBPIXEL_BITS;
+            setup.stepY1 = b1 << SUBPIXEL_BITS;
+            setup.stepY2 = b2 << SUBPIXEL_BITS;
+            return setup;
+        }
+
+        // Смещение от пикселя с функциями e_i до первого x, где все три e_i + bias_i >= 0
+        long spanStart(long e0, long e1, long e2) {
+            long k = 0;
+            k = Math.max(k, firstInside(e0 + bias0, stepX0));
+            k = Math.max(k, firstInside(e1 + bias1, stepX1));
+            k = Math.max(k, firstInside(e2 + bias2, stepX2));
+            return k;
+        }
+
+        // Смещение до последнего такого x (отрицательное - если таких нет)
+        long spanEnd(long e0, long e1, long e2) {
+            long k = Long.MAX_VALUE / 2;
+            k = Math.min(k, lastInside(e0 + bias0, stepX0));
+            k = Math.min(k, lastInside(e1 + bias1, stepX1));
+            k = Math.min(k, lastInside(e2 + bias2, stepX2));
+            return k;
+        }
 
+        // Функции рёбер в произвольном пикселе bbox
+        long edge0(int x, int y) {
+            return rowStart0 + (x - minX) * stepX0 + (y - minY) * stepY0;
+        }
+
+        long edge1(int x, int y) {
+            return rowStart1 + (x - minX) * stepX1 + (y - minY) * stepY1;
+        }
+
+        long edge2(int x, int y) {
+            return rowStart2 + (x - minX) * stepX2 + (y - minY) * stepY2;
+        }
+
+        private static long firstInside(long e, long step) {
+            if (e >= 0) {
+                return 0;
+            }
+            if (step <= 0) {
+                return Long.MAX_VALUE / 2;
+            }
+            return (-e + step - 1) / step;
+        }
+
+        private static long lastInside(long e, long step) {
+            if (step > 0) {
+                return Long.MAX_VALUE / 2;
+            }
+            if (e < 0) {
+                return -1;
+            }
+            return step == 0 ? Long.MAX_VALUE / 2 : e / -step;
+        }
+
+        private static boolean isTopLeft(long a, long b) {
+            // Левое ребро: внутренность справа (A > 0); верхнее: горизонтальное, внутренность ниже (B > 0)
+            return a > 0 || (a == 0 && b > 0);
+        }
+
+        private static boolean inRange(float coord) {
+            return coord > -MAX_COORD && coord < MAX_COORD;
+        }
+
+        private static long toFixed(float coord) {
+            return Math.round((double) coord * SUBPIXEL_ONE);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.cgvsu.render_engine;
+
+// пост-трансформ стадия вершин: clip/screen - один раз за кадр (project), а не на каждом углу каждого полигона.
+// мировые позиции хранит модель (RenderableMesh), проекция - своя у каждой цели рендера (FrameBuffer):
+// два вида одной модели с разными камерами не перезаписывают друг другу clip/screen.
+// плоские массивы: clip-space (x, y, z, w), экран (x, y, ndcZ, invW),
+// коды плоскостей отсечения (PolygonClipper.outcode) - по ним полигон отбрасывается или отсекается.
+// полигоны обращаются к данным по индексу вершины.
+// интенсивность освещения (Гуро) - тоже за кадр: на вершину, с индексом нормали, для которой она посчитана.
+// глубина: NDC z или (reversed-Z) depthScale * invW - та же NDC z без константы, ноль на бесконечности,
+// поэтому float-точность сосредоточена на дальних расстояниях, а разности глубин (depth-bias каркаса) не меняются.
+
+import com.cgvsu.math.Matrix4f;
+
+import java.util.Arrays;
+
+final class VertexCache {
+
+    private float[] clip = new float[0];
+    private float[] screen = new float[0];
+    private int[] outcodes = new int[0];
+    private float[] intensities = new float[0];
+    private int[] intensityNormals = new int[0];
+    private int vertexCount;
+
+    // Проекция мировых позиций модели (x, y, z на вершину) матрицей view-projection камеры
+    void project(
+            final float[] world,
+            final int n,
+            final Matrix4f viewProjectionMatrix,
+            final int width,
+            final int height,
+            final boolean reversedZ,
+            final float depthScale) {
+        final Matrix4f p = viewProjectionMatrix;
+        final float p00 = p.get(0, 0), p01 = p.get(0, 1), p02 = p.get(0, 2), p03 = p.get(0, 3);
+        final float p10 = p.get(1, 0), p11 = p.get(1, 1), p12 = p.get(1, 2), p13 = p.get(1, 3);
+        final float p20 = p.get(2, 0), p21 = p.get(2, 1), p22 = p.get(2, 2), p23 = p.get(2, 3);
+        final float p30 = p.get(3, 0), p31 = p.get(3, 1), p32 = p.get(3, 2), p33 = p.get(3, 3);
+
+        final float screenWidth = width - 1.0f;
+        final float screenHeight = height - 1.0f;
+
+        ensureCapacity(n);
+        vertexCount = n;
+        for (int i = 0; i < vertexCount; i++) {
+            int w3 = i * 3;
+            float x = world[w3];
+            float y = world[w3 + 1];
+            float z = world[w3 + 2];
+
+            float cx = p00 * x + p01 * y + p02 * z + p03;
+            float cy = p10 * x + p11 * y + p12 * z + p13;
+            float cz = p20 * x + p21 * y + p22 * z + p23;
+            float cw = p30 * x + p31 * y + p32 * z + p33;
+            int c4 = i * 4;
+            clip[c4] = cx;
+            clip[c4 + 1] = cy;
+            clip[c4 + 2] = cz;
+            clip[c4 + 3] = cw;
+            outcodes[i] = PolygonClipper.outcode(cx, cy, cz, cw);
+
+            float invW = (Math.abs(cw) > 1e-7f) ? (1.0f / cw) : 1.0f;
+            screen[c4] = (cx * invW + 1.0f) * 0.5f * screenWidth;
+            screen[c4 + 1] = (1.0f - cy * invW) * 0.5f * screenHeight;
+            screen[c4 + 2] = reversedZ ? depthScale * invW : cz * invW;
+            screen[c4 + 3] = invW;
+        }
+    }
+
+    private void ensureCapacity(final int n) {
+        if (outcodes.length < n) {
+            clip = new float[n * 4];
+            screen = new float[n * 4];
+            outcodes = new int[n];
+            intensities = new float[n];
+            intensityNormals = new int[n];
+        }
+    }
+
+    // Сброс интенсивностей перед кадром (свет привязан к камере)
+    void clearIntensities() {
+        Arrays.fill(intensityNormals, 0, vertexCount, -1);
+    }
+
+    // Интенсивность вершины с нормалью normal, NaN - ещё не посчитана в этом кадре
+    float intensity(int vertex, int normal) {
+        return intensityNormals[vertex] == normal ? intensities[vertex] : Float.NaN;
+    }
+
+    // Вершина с разными нормалями (жёсткое ребро) хранит последнюю
+    void setIntensity(int vertex, int normal, float intensity) {
+        intensities[vertex] = intensity;
+        intensityNormals[vertex] = normal;
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    int outcode(int vertex) {
+        return outcodes[vertex];
+    }
+
+    float clipX(int vertex) {
+        return clip[vertex * 4];
+    }
+
+    float clipY(int vertex) {
+        return clip[vertex * 4 + 1];
+    }
+
+    float clipZ(int vertex) {
+        return clip[vertex * 4 + 2];
+    }
+
+    float clipW(int vertex) {
+        return clip[vertex * 4 + 3];
+    }
+
+    float screenX(int vertex) {
+        return screen[vertex * 4];
+    }
+
+    float screenY(int vertex) {
+        return screen[vertex * 4 + 1];
+    }
+
+    float screenZ(int vertex) {
+        return screen[vertex * 4 + 2];
+    }
+
+    float invW(int vertex) {
+        return screen[vertex * 4 + 3];
+    }
+}
@@ -1,30 +1,65 @@
 package com.cgvsu.render_engine;
 
  // буфер глубины (depth buffer) для отсечения невидимых пикселей.
- // массив width*height, индексирование через (x,y).
- // Инициализация: +Infinity как "пустая" глубина.
- 
+ // массив float width*height, индексирование через (x,y); переиспользуется между кадрами.
+ // Инициализация: +Infinity как "пустая" глубина (Arrays.fill).
+ // reversed-Z задаётся кодировкой глубины в RenderEngine, сравнение всегда "меньше = ближе".
+ // иерархия: блоки 8x8 хранят min/max глубины - растеризатор пропускает целиком закрытые блоки.
+
+import java.util.Arrays;
+
 public class ZBuffer {
 
-    private final int width;
-    private final int height;
-    private final double[] data;
+    // Размер блока иерархического Z (степень двойки, тайлы выравниваются на него)
+    public static final int BLOCK_SHIFT = 3;
+    public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private int width;
+    private int height;
+    private float[] data = new float[0];
+
+    private int blocksX;
+    private int blocksY;
+    private float[] blockMin = new float[0];
+    private float[] blockMax = new float[0];
+    private boolean[] blockMaxDirty = new boolean[0];
 
     public ZBuffer(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.data = new double[width * height];
+        resize(width, height);
+    }
+
+    public void resize(int width, int height) {
+        // Массивы пересоздаются только при росте: уменьшение Canvas переиспользует память
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.blocksX = (this.width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        this.blocksY = (this.height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        if (data.length < this.width * this.height) {
+            data = new float[this.width * this.height];
+        }
+        if (blockMin.length < blocksX * blocksY) {
+            blockMin = new float[blocksX * blocksY];
+            blockMax = new float[blocksX * blocksY];
+            blockMaxDirty = new boolean[blocksX * blocksY];
+        }
         clear();
     }
 
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
     public void clear() {
         // Инициализация: "пустая" глубина как максимально дальняя.
-        final double emptyDepth = Double.POSITIVE_INFINITY;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                data[index(x, y)] = emptyDepth;
-            }
-        }
+        final float emptyDepth = Float.POSITIVE_INFINITY;
+        Arrays.fill(data, 0, width * height, emptyDepth);
+        Arrays.fill(blockMin, 0, blocksX * blocksY, emptyDepth);
+        Arrays.fill(blockMax, 0, blocksX * blocksY, emptyDepth);
+        Arrays.fill(blockMaxDirty, 0, blocksX * blocksY, false);
     }
 
     private int index(int x, int y) {
@@ -37,11 +72,71 @@ public class ZBuffer {
             return false;
         }
         int idx = index(x, y);
+        float d = (float) depth;
         // Проверка глубины: меньшая depth = ближе
-        if (depth < data[idx]) {
-            data[idx] = depth;
+        if (d < data[idx]) {
+            write(idx, x, y, d);
             return true;
         }
         return false;
     }
+
+    // Запись без проверки: растеризатор уже знает, что фрагмент ближе всего блока
+    void set(int x, int y, double depth) {
+        write(index(x, y), x, y, (float) depth);
+    }
+
+    private void write(int idx, int x, int y, float depth) {
+        float previous = data[idx];
+        data[idx] = depth;
+        int block = (y >> BLOCK_SHIFT) * blocksX + (x >> BLOCK_SHIFT);
+        if (depth < blockMin[block]) {
+            blockMin[block] = depth;
+        }
+        // Максимум блока мог уменьшиться только если перезаписан самый дальний пиксель
+        if (previous >= blockMax[block]) {
+            blockMaxDirty[block] = true;
+        }
+    }
+
+    public int getBlocksX() {
+        return blocksX;
+    }
+
+    public int getBlocksY() {
+        return blocksY;
+    }
+
+    // Самая близкая глубина в блоке: фрагменты ещё ближе гарантированно проходят тест
+    public float getBlockMinDepth(int blockX, int blockY) {
+        return blockMin[blockY * blocksX + blockX];
+    }
+
+    // Самая дальняя глубина в блоке: фрагменты не ближе неё гарантированно отбрасываются
+    public float getBlockMaxDepth(int blockX, int blockY) {
+        int block = blockY * blocksX + blockX;
+        if (blockMaxDirty[block]) {
+            blockMax[block] = computeBlockMax(blockX, blockY);
+            blockMaxDirty[block] = false;
+        }
+        return blockMax[block];
+    }
+
+    private float computeBlockMax(int blockX, int blockY) {
+        int x0 = blockX << BLOCK_SHIFT;
+        int y0 = blockY << BLOCK_SHIFT;
+        int x1 = Math.min(width, x0 + BLOCK_SIZE);
+        int y1 = Math.min(height, y0 + BLOCK_SIZE);
+        float max = Float.NEGATIVE_INFINITY;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) {
+                float d = data[row + x];
+                if (d > max) {
+                    max = d;
+                }
+            }
+        }
+        return max;
+    }
 }
@@ -0,0 +1,55 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundingBoxTest {
+
+    @Test
+    void boundsCoverAllPoints() {
+        BoundingBox box = BoundingBox.of(List.of(
+                new Vector3f(-1, 2, 0),
+                new Vector3f(3, -2, 1),
+                new Vector3f(0, 0, 5)
+        ));
+
+        assertEquals(-1.0f, box.getMin().getX(), 1e-6);
+        assertEquals(-2.0f, box.getMin().getY(), 1e-6);
+        assertEquals(0.0f, box.getMin().getZ(), 1e-6);
+        assertEquals(3.0f, box.getMax().getX(), 1e-6);
+        assertEquals(2.0f, box.getMax().getY(), 1e-6);
+        assertEquals(5.0f, box.getMax().getZ(), 1e-6);
+        assertEquals(1.0f, box.getCenter().getX(), 1e-6);
+        assertEquals(2.5f, box.getCenter().getZ(), 1e-6);
+        // Все вершины внутри ограничивающей сферы
+        for (Vector3f p : List.of(new Vector3f(-1, 2, 0), new Vector3f(3, -2, 1), new Vector3f(0, 0, 5))) {
+            assertTrue(p.subtract(box.getCenter()).length() <= box.getRadius() + 1e-5f);
+        }
+    }
+
+    @Test
+    void emptyPointListHasNoBounds() {
+        assertNull(BoundingBox.of(List.of()));
+    }
+
+    @Test
+    void modelRecomputesBoundsAfterVertexChanges() {
+        Model m = new Model();
+        assertNull(m.getBoundingBox());
+
+        m.addVertex(new Vector3f(0, 0, 0));
+        m.addVertex(new Vector3f(2, 0, 0));
+        assertEquals(2.0f, m.getBoundingBox().getMax().getX(), 1e-6);
+        assertSame(m.getBoundingBox(), m.getBoundingBox());
+
+        m.removeVertex(1);
+        assertEquals(0.0f, m.getBoundingBox().getMax().getX(), 1e-6);
+
+        m.setVertices(List.of(new Vector3f(-4, 1, 1)));
+        assertEquals(-4.0f, m.getBoundingBox().getMin().getX(), 1e-6);
+    }
+}
@@ -0,0 +1,129 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeshBuffersTest {
+
+    private static MeshBuffers makeQuad() {
+        MeshBuffers buffers = new MeshBuffers();
+        buffers.addVertex(0, 0, 0);
+        buffers.addVertex(1, 0, 0);
+        buffers.addVertex(1, 1, 0);
+        buffers.addVertex(0, 1, 0);
+        buffers.addPolygon(new int[]{0, 1, 2}, new int[]{0, 1, 2}, null, 0, 3);
+        buffers.addPolygon(new int[]{0, 2, 3}, null, new int[]{0, 2, 3}, 0, 3);
+        return buffers;
+    }
+
+    @Test
+    void polygonsArePackedWithOffsetTable() {
+        MeshBuffers buffers = makeQuad();
+
+        assertEquals(4, buffers.getVertexCount());
+        assertEquals(2, buffers.getPolygonCount());
+        assertEquals(6, buffers.getCornerCount());
+        assertEquals(0, buffers.getPolygonStart(0));
+        assertEquals(3, buffers.getPolygonStart(1));
+        assertEquals(3, buffers.getPolygonSize(1));
+        assertEquals(3, buffers.getVertexIndices()[5]);
+
+        assertTrue(buffers.hasTextureIndices(0));
+        assertFalse(buffers.hasNormalIndices(0));
+        assertFalse(buffers.hasTextureIndices(1));
+        assertTrue(buffers.hasNormalIndices(1));
+    }
+
+    @Test
+    void buffersGrowPastInitialCapacity() {
+        MeshBuffers buffers = new MeshBuffers();
+        for (int i = 0; i < 1000; i++) {
+            buffers.addVertex(i, i + 1, i + 2);
+        }
+        assertEquals(1000, buffers.getVertexCount());
+        assertEquals(999.0f, buffers.getVertexX(999));
+        assertEquals(1001.0f, buffers.getVertexZ(999));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffers.getVertexX(1000));
+    }
+
+    @Test
+    void removePolygonShiftsFollowingPolygons() {
+        MeshBuffers buffers = makeQuad();
+        buffers.removePolygon(0);
+
+        assertEquals(1, buffers.getPolygonCount());
+        assertEquals(0, buffers.getPolygonStart(0));
+        assertEquals(2, buffers.getVertexIndices()[1]);
+        assertTrue(buffers.hasNormalIndices(0));
+    }
+
+    @Test
+    void removeVertexDropsDegeneratePolygonsAndShiftsIndices() {
+        MeshBuffers buffers = makeQuad();
+        buffers.removeVertex(1);
+
+        assertEquals(3, buffers.getVertexCount());
+        assertEquals(1, buffers.getPolygonCount());
+        assertEquals(0, buffers.getPolygonStart(0));
+        int[] v = buffers.getVertexIndices();
+        assertArrayEquals(new int[]{0, 1, 2}, new int[]{v[0], v[1], v[2]});
+        int[] n = buffers.getNormalIndices();
+        assertArrayEquals(new int[]{0, 1, 2}, new int[]{n[0], n[1], n[2]});
+        assertEquals(1.0f, buffers.getVertexX(1));
+        assertEquals(1.0f, buffers.getVertexY(1));
+    }
+
+    @Test
+    void versionChangesOnEveryMutation() {
+        MeshBuffers buffers = makeQuad();
+        int version = buffers.getVersion();
+        buffers.setVertex(0, 5, 5, 5);
+        assertNotEquals(version, buffers.getVersion());
+        version = buffers.getVersion();
+        buffers.setPolygonTextureIndices(1, new int[]{0, 0, 0});
+        assertNotEquals(version, buffers.getVersion());
+        assertThrows(IllegalArgumentException.class, () -> buffers.setPolygonTextureIndices(1, new int[]{0}));
+    }
+
+    @Test
+    void modelViewsReadThroughBuffers() {
+        Model model = new Model();
+        model.addVertex(new Vector3f(1, 2, 3));
+        model.addVertex(new Vector3f(4, 5, 6));
+        model.addVertex(new Vector3f(7, 8, 9));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(List.of(0, 1, 2)));
+        model.addPolygon(polygon);
+
+        // Изменение буферов сразу видно через представления
+        model.getMeshBuffers().setVertex(1, -1, -2, -3);
+        assertEquals(-2.0f, model.getVertices().get(1).getY());
+
+        // Полигоны модели только для чтения: изменение бросает исключение, а не теряется молча
+        Polygon view = model.getPolygons().get(0);
+        assertTrue(view.isReadOnly());
+        assertThrows(UnsupportedOperationException.class, () -> view.setVertexIndices(new ArrayList<>(List.of(2, 1, 0))));
+        assertThrows(UnsupportedOperationException.class, () -> view.setNormalIndices(new ArrayList<>()));
+        assertThrows(UnsupportedOperationException.class, () -> view.getVertexIndices().set(0, 2));
+        assertEquals(List.of(0, 1, 2), model.getPolygons().get(0).getVertexIndices());
+        assertEquals(view, model.getPolygons().get(0));
+
+        assertThrows(UnsupportedOperationException.class, () -> model.getVertices().add(new Vector3f(0, 0, 0)));
+    }
+
+    @Test
+    void boundingBoxFollowsDirectBufferEdits() {
+        Model model = new Model();
+        model.addVertex(new Vector3f(0, 0, 0));
+        model.addVertex(new Vector3f(1, 1, 1));
+        assertEquals(1.0f, model.getBoundingBox().getMax().getX());
+
+        model.getMeshBuffers().setVertex(1, 4, 1, 1);
+        assertEquals(4.0f, model.getBoundingBox().getMax().getX());
+    }
+}
@@ -73,4 +73,35 @@ public class ModelProcessorTest {
             assertEquals(p.getVertexIndices().size(), p.getNormalIndices().size(), "Normal indices must match vertex indices");
         }
     }
+
+    @Test
+    void triangulateConcaveNGonKeepsTrianglesInsidePolygon() {
+        // Невыпуклый шестиугольник ("L"): веер из вершины 0 вышел бы за границу полигона
+        Model model = new Model();
+        model.addVertex(new Vector3f(0, 0, 0));
+        model.addVertex(new Vector3f(2, 0, 0));
+        model.addVertex(new Vector3f(2, 1, 0));
+        model.addVertex(new Vector3f(1, 1, 0));
+        model.addVertex(new Vector3f(1, 2, 0));
+        model.addVertex(new Vector3f(0, 2, 0));
+
+        Polygon lShape = new Polygon();
+        lShape.setVertexIndices(new ArrayList<>(List.of(2, 3, 4, 5, 0, 1)));
+        model.addPolygon(lShape);
+
+        ModelProcessor.triangulate(model);
+
+        assertEquals(4, model.getPolygons().size());
+        float area = 0;
+        for (Polygon triangle : model.getPolygons()) {
+            Vector3f a = model.getVertices().get(triangle.getVertexIndices().get(0));
+            Vector3f b = model.getVertices().get(triangle.getVertexIndices().get(1));
+            Vector3f c = model.getVertices().get(triangle.getVertexIndices().get(2));
+            float signedArea = b.subtract(a).cross(c.subtract(a)).getZ() * 0.5f;
+            // Все треугольники сохраняют обход исходного полигона
+            assertTrue(signedArea > 0);
+            area += signedArea;
+        }
+        assertEquals(3.0f, area, 1e-5f);
+    }
 }
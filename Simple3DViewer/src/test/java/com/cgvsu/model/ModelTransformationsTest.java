@@ -1,6 +1,7 @@
 package com.cgvsu.model;
 
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.math.Vector4f;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -60,4 +61,39 @@ public class ModelTransformationsTest {
         assertEquals(1.0f, m.getScale().getY(), 1e-6);
         assertEquals(1.0f, m.getScale().getZ(), 1e-6);
     }
+
+    @Test
+    void normalMatrixKeepsNormalsPerpendicularUnderNonUniformScale() {
+        Model m = new Model();
+        m.setScale(new Vector3f(4, 1, 1));
+
+        // Плоскость x + y = 0: касательный вектор (1, -1, 0), нормаль (1, 1, 0)
+        Vector4f t = m.getModelMatrix().multiply(new Vector4f(1, -1, 0, 0));
+        Vector3f tangent = new Vector3f(t.getX(), t.getY(), t.getZ());
+        Vector3f normal = m.getNormalMatrix().multiply(new Vector3f(1, 1, 0));
+
+        assertEquals(0.0f, tangent.dot(normal), 1e-5);
+    }
+
+    @Test
+    void normalMatrixIsRecomputedAfterTransformChange() {
+        Model m = new Model();
+        assertSame(m.getNormalMatrix(), m.getNormalMatrix());
+
+        m.rotateZ((float) (Math.PI / 2));
+        Vector3f n = m.getNormalMatrix().multiply(new Vector3f(1, 0, 0));
+
+        assertEquals(0.0f, n.getX(), 1e-5);
+        assertEquals(1.0f, n.getY(), 1e-5);
+    }
+
+    @Test
+    void normalMatrixFallsBackForDegenerateScale() {
+        Model m = new Model();
+        m.setScale(new Vector3f(0, 1, 1));
+
+        Vector3f n = m.getNormalMatrix().multiply(new Vector3f(0, 1, 0));
+
+        assertEquals(1.0f, n.getY(), 1e-6);
+    }
 }
@@ -0,0 +1,111 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.MeshBuffers;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelProcessor;
+import com.cgvsu.objwriter.MeshCacheWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeshCacheReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeSource(String content) throws IOException {
+        Path source = tempDir.resolve("quad.obj");
+        Files.writeString(source, content, StandardCharsets.UTF_8);
+        return source;
+    }
+
+    private static Model loadProcessed(Path source) throws IOException {
+        Model model = ObjReader.readFile(source).getModel();
+        ModelProcessor.preprocess(model);
+        return model;
+    }
+
+    private static final String QUAD = "# TRANSFORMED: true\nv 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n" +
+            "vt 0 0\nvt 1 0\nvt 1 1\nvt 0 1\nf 1/1 2/2 3/3 4/4\n";
+
+    @Test
+    void roundTripRestoresBuffersExactly() throws IOException {
+        Path source = writeSource(QUAD);
+        Model expected = loadProcessed(source);
+        Path cacheFile = MeshCacheFormat.cacheFileFor(source, tempDir.resolve("cache"));
+        MeshCacheWriter.write(cacheFile, source, expected);
+
+        Model actual = MeshCacheReader.read(cacheFile, source);
+        assertNotNull(actual);
+        MeshBuffers e = expected.getMeshBuffers();
+        MeshBuffers a = actual.getMeshBuffers();
+        assertEquals(e.getVertexCount(), a.getVertexCount());
+        assertEquals(e.getPolygonCount(), a.getPolygonCount());
+        assertEquals(e.getNormalCount(), a.getNormalCount());
+        assertArrayEquals(Arrays.copyOf(e.getPositions(), e.getVertexCount() * 3), a.getPositions());
+        assertArrayEquals(Arrays.copyOf(e.getNormals(), e.getNormalCount() * 3), a.getNormals());
+        assertArrayEquals(Arrays.copyOf(e.getVertexIndices(), e.getCornerCount()), a.getVertexIndices());
+        assertEquals(expected.getPolygons(), actual.getPolygons());
+        assertEquals(expected.getTextureVertices(), actual.getTextureVertices());
+        assertTrue(actual.isTransformed());
+    }
+
+    @Test
+    void modifiedSourceInvalidatesCache() throws IOException {
+        Path source = writeSource(QUAD);
+        Path cacheFile = MeshCacheFormat.cacheFileFor(source, tempDir);
+        MeshCacheWriter.write(cacheFile, source, loadProcessed(source));
+        assertNotNull(MeshCacheReader.read(cacheFile, source));
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5000));
+        assertNull(MeshCacheReader.read(cacheFile, source));
+    }
+
+    @Test
+    void truncatedOrMissingCacheIsIgnored() throws IOException {
+        Path source = writeSource(QUAD);
+        Path cacheFile = MeshCacheFormat.cacheFileFor(source, tempDir);
+        assertNull(MeshCacheReader.read(cacheFile, source));
+
+        MeshCacheWriter.write(cacheFile, source, loadProcessed(source));
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertNull(MeshCacheReader.read(cacheFile, source));
+    }
+
+    @Test
+    void failedWriteLeavesNoTempFile() throws IOException {
+        Path source = writeSource(QUAD);
+        Model model = loadProcessed(source);
+        Path dir = tempDir.resolve("cache");
+        Path cacheFile = MeshCacheFormat.cacheFileFor(source, dir);
+        // Исходник удалён до записи заголовка: ошибка уже после создания временного файла
+        Files.delete(source);
+
+        assertThrows(IOException.class, () -> MeshCacheWriter.write(cacheFile, source, model));
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void cacheFileNameDependsOnFullPath() {
+        Path dir = tempDir.resolve("cache");
+        Path first = MeshCacheFormat.cacheFileFor(tempDir.resolve("a").resolve("model.obj"), dir);
+        Path second = MeshCacheFormat.cacheFileFor(tempDir.resolve("b").resolve("model.obj"), dir);
+        assertNotEquals(first, second);
+        assertTrue(first.getFileName().toString().startsWith("model.obj-"));
+        assertEquals(dir, first.getParent());
+    }
+}
@@ -0,0 +1,149 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjParallelReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Сетка треугольников: v/vt/vn перемешаны с гранями, чтобы фрагменты резали файл посреди данных
+    private Path writeGrid(int size, String extraLine, int extraAtRow) throws IOException {
+        StringBuilder obj = new StringBuilder("# TRANSFORMED: true\nvn 0 0 1\n");
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                obj.append(String.format(Locale.US, "v %.6f %.6f 0.000000\n", col * 0.01, row * 0.01));
+                obj.append(String.format(Locale.US, "vt %.6f %.6f\n", col / (float) size, row / (float) size));
+            }
+            if (row > 0) {
+                for (int col = 0; col + 1 < size; col++) {
+                    int a = (row - 1) * size + col + 1;
+                    int b = a + 1;
+                    int c = a + size;
+                    obj.append("f ").append(a).append('/').append(a).append("/1 ")
+                            .append(b).append('/').append(b).append("/1 ")
+                            .append(c).append('/').append(c).append("/1\n");
+                }
+            }
+            if (row == extraAtRow) {
+                obj.append(extraLine).append('\n');
+            }
+        }
+        Path file = tempDir.resolve("grid.obj");
+        Files.writeString(file, obj.toString(), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void parallelResultMatchesSequential() throws IOException {
+        Path file = writeGrid(200, "unknown_token", 150);
+        assertTrue(Files.size(file) > ObjParallelReader.MIN_PARALLEL_SIZE);
+
+        ObjReader.ReadResult sequential = ObjReader.readFile(file);
+        ObjReader.ReadResult parallel = ObjReader.readFileParallel(file, 4);
+
+        Model expected = sequential.getModel();
+        Model actual = parallel.getModel();
+        assertEquals(expected.getVertices().size(), actual.getVertices().size());
+        assertEquals(expected.getTextureVertices().size(), actual.getTextureVertices().size());
+        assertEquals(expected.getPolygons().size(), actual.getPolygons().size());
+        assertEquals(expected.getVertices(), actual.getVertices());
+        assertEquals(expected.getPolygons(), actual.getPolygons());
+        assertTrue(actual.isTransformed());
+        // Номер строки в предупреждении - глобальный, как при последовательном чтении
+        assertEquals(sequential.getWarnings(), parallel.getWarnings());
+    }
+
+    @Test
+    void relativeIndicesAreShiftedAcrossChunks() throws IOException {
+        // Каждая грань ссылается на три последние вершины: после разрезания они могут оказаться в другом фрагменте
+        StringBuilder obj = new StringBuilder();
+        for (int i = 0; i < 60000; i++) {
+            obj.append(String.format(Locale.US, "v %.6f %.6f 0.000000\n", i * 0.001, (i % 2) * 1.0));
+            if (i >= 2) {
+                obj.append("f -3 -2 -1\n");
+            }
+        }
+        Path file = tempDir.resolve("relative.obj");
+        Files.writeString(file, obj.toString(), StandardCharsets.UTF_8);
+        assertTrue(Files.size(file) > ObjParallelReader.MIN_PARALLEL_SIZE);
+
+        Model model = ObjReader.readFileParallel(file, 4).getModel();
+        assertEquals(59998, model.getPolygons().size());
+        for (int i = 0; i < model.getPolygons().size(); i += 997) {
+            assertEquals(List.of(i, i + 1, i + 2), model.getPolygons().get(i).getVertexIndices());
+        }
+        assertEquals(ObjReader.readFile(file).getModel().getPolygons(), model.getPolygons());
+    }
+
+    @Test
+    void errorInLaterChunkReportsGlobalLine() throws IOException {
+        Path file = writeGrid(200, "v 1 broken 0", 180);
+
+        ObjReaderException expected = assertThrows(ObjReaderException.class, () -> ObjReader.readFile(file));
+        ObjReaderException actual = assertThrows(ObjReaderException.class,
+                () -> ObjReader.readFileParallel(file, 4));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    void progressCoversWholeFileAndCancelStopsParsing() throws IOException {
+        Path file = writeGrid(200, "", -1);
+        long size = Files.size(file);
+
+        AtomicLong parallelBytes = new AtomicLong();
+        ObjReader.readFileParallel(file, 4, parallelBytes::addAndGet);
+        assertEquals(size, parallelBytes.get());
+
+        AtomicLong sequentialBytes = new AtomicLong();
+        ObjReader.readFileParallel(file, 1, sequentialBytes::addAndGet);
+        assertEquals(size, sequentialBytes.get());
+
+        // Отмена после первого окна: разбор прерывается, а не доходит до конца
+        AtomicLong cancelledBytes = new AtomicLong();
+        ReadProgress cancelling = new ReadProgress() {
+            @Override
+            public void advance(long bytes) {
+                cancelledBytes.addAndGet(bytes);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelledBytes.get() > 0;
+            }
+        };
+        assertThrows(CancellationException.class, () -> ObjReader.readFileParallel(file, 1, cancelling));
+        assertTrue(cancelledBytes.get() < size);
+        assertThrows(CancellationException.class, () -> ObjReader.readFileParallel(file, 4, cancelling));
+    }
+
+    @Test
+    void chunkBoundsStartAtLineStarts() throws IOException {
+        Path file = writeGrid(200, "", -1);
+        byte[] data = Files.readAllBytes(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = ObjParallelReader.chunkBounds(channel, data.length, 3);
+            assertEquals(0, bounds[0]);
+            assertEquals(data.length, bounds[bounds.length - 1]);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                assertTrue(bounds[i] > bounds[i - 1]);
+                assertEquals('\n', data[(int) bounds[i] - 1]);
+            }
+        }
+    }
+}
@@ -122,7 +122,22 @@ class ObjReaderTest {
     public void testParseFaceThrowsOnZeroIndex() {
         ArrayList<String> words = new ArrayList<>(Arrays.asList("0/1/1", "2/2/2", "3/3/3"));
         ObjReaderException ex = assertThrows(ObjReaderException.class, () -> ObjReader.parseFace(words, 3));
-        assertTrue(ex.getMessage().contains("Negative vertex index not supported"));
+        assertTrue(ex.getMessage().contains("Face index 0 is invalid"));
+    }
+
+    @Test
+    public void testParseFaceResolvesRelativeIndices() {
+        ArrayList<String> words = new ArrayList<>(Arrays.asList("-3/-1", "-2/-1", "-1/-1"));
+        Polygon p = ObjReader.parseFace(words, 3, 5, 2, 0);
+        assertEquals(Arrays.asList(2, 3, 4), p.getVertexIndices());
+        assertEquals(Arrays.asList(1, 1, 1), p.getTextureVertexIndices());
+    }
+
+    @Test
+    public void testParseFaceThrowsOnRelativeIndexBeforeFirstElement() {
+        ArrayList<String> words = new ArrayList<>(Arrays.asList("-4", "-2", "-1"));
+        ObjReaderException ex = assertThrows(ObjReaderException.class, () -> ObjReader.parseFace(words, 3, 3, 0, 0));
+        assertTrue(ex.getMessage().contains("Relative index refers before the first element"));
     }
 
     @Test
@@ -133,10 +148,10 @@ class ObjReaderTest {
     }
 
     @Test
-    public void testParseFaceThrowsOnTooManyVertices() {
-        ArrayList<String> words = new ArrayList<>(Arrays.asList("1", "2", "3", "4", "5"));
-        ObjReaderException ex = assertThrows(ObjReaderException.class, () -> ObjReader.parseFace(words, 3));
-        assertTrue(ex.getMessage().contains("Face has too many vertices"));
+    public void testParseFaceAcceptsNGon() {
+        ArrayList<String> words = new ArrayList<>(Arrays.asList("1", "2", "3", "4", "5", "6"));
+        Polygon p = ObjReader.parseFace(words, 3);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), p.getVertexIndices());
     }
 
     @Test
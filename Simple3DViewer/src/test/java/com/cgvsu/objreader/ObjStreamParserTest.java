@@ -0,0 +1,177 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjStreamParserTest {
+
+    // Канал, отдающий данные маленькими порциями: строки пересекают границы чтения
+    private static ReadableByteChannel trickle(byte[] data, int chunk) {
+        return new ReadableByteChannel() {
+            private int offset;
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (offset >= data.length) {
+                    return -1;
+                }
+                int n = Math.min(chunk, Math.min(dst.remaining(), data.length - offset));
+                dst.put(data, offset, n);
+                offset += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static Model parse(String content, int chunk) throws IOException {
+        Model model = new Model();
+        List<String> warnings = new ArrayList<>();
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        new ObjStreamParser(trickle(data, chunk), model, warnings).parse();
+        return model;
+    }
+
+    @Test
+    void parsesAcrossSmallReadsAndCrLf() throws IOException {
+        String obj = "v 1.5 -2 3e1\r\nv 0 1 0\r\nv 1 1 1\r\nvt 0.25 0.75\r\nvn 0 0 2\r\nf 1/1/1 2/1/1 3/1/1\r\n";
+        Model model = parse(obj, 3);
+
+        assertEquals(3, model.getVertices().size());
+        assertEquals(1.5f, model.getVertices().get(0).getX());
+        assertEquals(-2.0f, model.getVertices().get(0).getY());
+        assertEquals(30.0f, model.getVertices().get(0).getZ());
+        assertEquals(0.75f, model.getTextureVertices().get(0).getY());
+        // Нормаль нормализуется, как в parseNormal
+        assertEquals(1.0f, model.getNormals().get(0).getZ(), 1e-6f);
+        assertEquals(List.of(0, 1, 2), model.getPolygons().get(0).getVertexIndices());
+        assertEquals(List.of(0, 0, 0), model.getPolygons().get(0).getNormalIndices());
+    }
+
+    @Test
+    void lineLongerThanWindowIsParsed() throws IOException {
+        StringBuilder obj = new StringBuilder("# ");
+        for (int i = 0; i < 200_000; i++) {
+            obj.append('x');
+        }
+        obj.append("\nv 1 2 3\nv 4 5 6\nv 7 8 9\nf 1 2 3");
+        Model model = parse(obj.toString(), 4096);
+
+        assertEquals(3, model.getVertices().size());
+        assertEquals(9.0f, model.getVertices().get(2).getZ());
+        assertEquals(1, model.getPolygons().size());
+    }
+
+    @Test
+    void faceFormatsMatchSplitSemantics() throws IOException {
+        Model model = parse("v 0 0 0\nv 1 0 0\nv 0 1 0\nvn 0 0 1\n" +
+                "f 1//1 2//1 3//1\nf 1/ 2/ 3/\n", 64);
+
+        assertEquals(2, model.getPolygons().size());
+        assertTrue(model.getPolygons().get(0).getTextureVertexIndices().isEmpty());
+        assertEquals(List.of(0, 0, 0), model.getPolygons().get(0).getNormalIndices());
+        assertTrue(model.getPolygons().get(1).getTextureVertexIndices().isEmpty());
+        assertTrue(model.getPolygons().get(1).getNormalIndices().isEmpty());
+    }
+
+    @Test
+    void errorsReportLineNumber() {
+        ObjReaderException ex = assertThrows(ObjReaderException.class,
+                () -> parse("v 0 0 0\n\nv 1 x 0\n", 5));
+        assertTrue(ex.getMessage().contains("line: 3."));
+        assertTrue(ex.getMessage().contains("Invalid vertex coordinate format"));
+
+        ex = assertThrows(ObjReaderException.class,
+                () -> parse("v 0 0 0\nf 1/2/3/4 1 1\n", 5));
+        assertTrue(ex.getMessage().contains("Invalid face vertex format: 1/2/3/4"));
+    }
+
+    @Test
+    void floatParsingMatchesFloatParseFloat() throws IOException {
+        Random random = new Random(42);
+        StringBuilder obj = new StringBuilder();
+        List<String> literals = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String literal;
+            switch (i % 5) {
+                case 0:
+                    literal = String.format(Locale.US, "%.6f", (random.nextDouble() - 0.5) * 2000.0);
+                    break;
+                case 1:
+                    literal = Float.toString((float) (random.nextGaussian() * 1e-3));
+                    break;
+                case 2:
+                    literal = Double.toString(random.nextDouble() * 1e12);
+                    break;
+                case 3:
+                    literal = String.format(Locale.US, "%.12f", random.nextDouble());
+                    break;
+                default:
+                    literal = Long.toString(random.nextLong() % 100000000L) + "e-" + random.nextInt(30);
+                    break;
+            }
+            literals.add(literal);
+            obj.append("v ").append(literal).append(" 0 0\n");
+        }
+        obj.append("v inf -inf 0\n");
+
+        Model model = parse(obj.toString(), 1 << 16);
+        for (int i = 0; i < literals.size(); i++) {
+            assertEquals(Float.parseFloat(literals.get(i)), model.getVertices().get(i).getX(), literals.get(i));
+        }
+        assertEquals(Float.POSITIVE_INFINITY, model.getVertices().get(literals.size()).getX());
+    }
+
+    @Test
+    void readStreamMatchesReadContent() throws IOException {
+        String obj = "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\nfoo\n";
+        ObjReader.ReadResult fromStream = ObjReader.readStream(
+                new ByteArrayInputStream(obj.getBytes(StandardCharsets.UTF_8)));
+        ObjReader.ReadResult fromString = ObjReader.readContent(obj);
+
+        assertEquals(fromString.getModel().getVertices().size(), fromStream.getModel().getVertices().size());
+        assertEquals(fromString.getWarnings(), fromStream.getWarnings());
+        assertTrue(fromStream.getWarnings().get(0).startsWith("Line 5"));
+    }
+
+    @Test
+    void relativeIndicesAndNGonsAreResolvedInOnePass() throws IOException {
+        String obj = "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv -1 0.5 0\nvt 0 0\n" +
+                "f -5/-1 -4/-1 -3/-1 -2/-1 -1/-1\n" +
+                "v 5 5 5\nf 1 -1 3\n";
+        Model model = parse(obj, 7);
+
+        assertEquals(2, model.getPolygons().size());
+        assertEquals(List.of(0, 1, 2, 3, 4), model.getPolygons().get(0).getVertexIndices());
+        assertEquals(List.of(0, 0, 0, 0, 0), model.getPolygons().get(0).getTextureVertexIndices());
+        assertEquals(List.of(0, 5, 2), model.getPolygons().get(1).getVertexIndices());
+    }
+
+    @Test
+    void relativeIndexBeforeFirstVertexIsRejected() {
+        ObjReaderException ex = assertThrows(ObjReaderException.class,
+                () -> parse("v 0 0 0\nv 1 0 0\nf -1 -2 -3\n", 16));
+        assertTrue(ex.getMessage().contains("line: 3."));
+        assertTrue(ex.getMessage().contains("Relative index refers before the first element"));
+    }
+}
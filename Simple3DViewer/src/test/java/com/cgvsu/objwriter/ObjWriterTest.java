@@ -0,0 +1,200 @@
+package com.cgvsu.objwriter;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Прежняя реализация на String.format - эталон побайтового совпадения
+    private static String referenceText(Model model) {
+        StringBuilder sb = new StringBuilder("# Vertices\n");
+        for (Vector3f v : model.getVertices()) {
+            sb.append(String.format(Locale.US, "v %.6f %.6f %.6f\n", v.getX(), v.getY(), v.getZ()));
+        }
+        sb.append("\n# Texture coordinates\n");
+        for (Vector2f t : model.getTextureVertices()) {
+            sb.append(String.format(Locale.US, "vt %.6f %.6f\n", t.getX(), t.getY()));
+        }
+        sb.append("\n# Normals\n");
+        for (Vector3f n : model.getNormals()) {
+            sb.append(String.format(Locale.US, "vn %.6f %.6f %.6f\n", n.getX(), n.getY(), n.getZ()));
+        }
+        sb.append("\n# Polygons\n");
+        for (Polygon polygon : model.getPolygons()) {
+            List<Integer> v = polygon.getVertexIndices();
+            List<Integer> t = polygon.getTextureVertexIndices();
+            List<Integer> n = polygon.getNormalIndices();
+            sb.append("f");
+            for (int i = 0; i < v.size(); i++) {
+                if (!t.isEmpty() && !n.isEmpty()) {
+                    sb.append(String.format(Locale.US, " %d/%d/%d", v.get(i) + 1, t.get(i) + 1, n.get(i) + 1));
+                } else if (!t.isEmpty()) {
+                    sb.append(String.format(Locale.US, " %d/%d", v.get(i) + 1, t.get(i) + 1));
+                } else if (!n.isEmpty()) {
+                    sb.append(String.format(Locale.US, " %d//%d", v.get(i) + 1, n.get(i) + 1));
+                } else {
+                    sb.append(String.format(Locale.US, " %d", v.get(i) + 1));
+                }
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    static Model randomModel(int vertices, int polygons, long seed) {
+        Random random = new Random(seed);
+        Model model = new Model();
+        for (int i = 0; i < vertices; i++) {
+            model.addVertex(new Vector3f(
+                    (float) (random.nextGaussian() * 100.0),
+                    (float) (random.nextDouble() - 0.5) * 1e-5f,
+                    random.nextInt(2000) / 128.0f - 8.0f));
+            model.addTextureVertex(new Vector2f(random.nextFloat(), -random.nextFloat()));
+            model.addNormal(new Vector3f(random.nextFloat(), random.nextFloat(), -0.0f));
+        }
+        for (int p = 0; p < polygons; p++) {
+            int size = 3 + random.nextInt(3);
+            ArrayList<Integer> v = new ArrayList<>();
+            ArrayList<Integer> t = new ArrayList<>();
+            ArrayList<Integer> n = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                v.add(random.nextInt(vertices));
+                t.add(random.nextInt(vertices));
+                n.add(random.nextInt(vertices));
+            }
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(v);
+            if (p % 4 != 1) {
+                polygon.setTextureVertexIndices(t);
+            }
+            if (p % 4 != 2) {
+                polygon.setNormalIndices(n);
+            }
+            model.addPolygon(polygon);
+        }
+        return model;
+    }
+
+    @Test
+    void outputIsByteIdenticalToStringFormat() throws IOException {
+        Model model = randomModel(20000, 15000, 7);
+        Path file = tempDir.resolve("out.obj");
+        ObjWriter.write(file.toString(), model);
+
+        assertEquals(referenceText(model), Files.readString(file, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void fixedFormatterMatchesFormatterOnEdgeCases() {
+        Random random = new Random(11);
+        List<Float> values = new ArrayList<>(List.of(
+                0.0f, -0.0f, -1e-9f, 0.0078125f, -0.0078125f, 5e-7f, 1.5e-6f, 0.9999995f, 9.9999995f,
+                Float.MIN_VALUE, Float.MAX_VALUE, 4294967295.0f, 4294967296.0f, -2147483648.0f,
+                Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY));
+        for (int i = 0; i < 200000; i++) {
+            values.add(Float.intBitsToFloat(random.nextInt()));
+            values.add((float) ((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(14) - 7)));
+            // Значения около границ округления: k/10^6 +- несколько ulp
+            float boundary = (random.nextInt(2_000_000) - 1_000_000 + 0.5f) / 1e6f;
+            values.add(Math.nextUp(boundary));
+            values.add(Math.nextDown(boundary));
+        }
+
+        ObjTextBuffer out = new ObjTextBuffer(64);
+        for (float value : values) {
+            out.clear();
+            out.appendFixed6(value);
+            String actual = new String(out.asByteBuffer().array(), 0, out.size(), StandardCharsets.US_ASCII);
+            assertEquals(String.format(Locale.US, "%.6f", value), actual, "bits " + Float.floatToRawIntBits(value));
+        }
+    }
+
+    @Test
+    void intFormatterMatchesToString() {
+        ObjTextBuffer out = new ObjTextBuffer(4);
+        int[] values = {0, 7, -7, 10, 999999, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        StringBuilder expected = new StringBuilder();
+        for (int value : values) {
+            out.appendInt(value).append(' ');
+            expected.append(value).append(' ');
+        }
+        assertEquals(expected.toString(), new String(out.asByteBuffer().array(), 0, out.size(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void atomicWriteReplacesFileAndLeavesNoTemp() throws IOException {
+        Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, "old content");
+        // Посторонний файл с "очевидным" временным именем не трогается
+        Path unrelated = tempDir.resolve("model.obj.tmp");
+        Files.writeString(unrelated, "keep me");
+        Model model = randomModel(10, 5, 3);
+
+        ObjWriter.write(file.toString(), model, true);
+
+        assertEquals(referenceText(model), Files.readString(file, StandardCharsets.US_ASCII));
+        assertEquals("keep me", Files.readString(unrelated));
+        try (java.util.stream.Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void parallelOutputMatchesSequential() throws IOException {
+        Model model = randomModel(60000, 50000, 21);
+        Path sequential = tempDir.resolve("sequential.obj");
+        Path parallel = tempDir.resolve("parallel.obj");
+        ObjWriter.write(sequential.toString(), model);
+        ObjWriter.writeParallel(parallel.toString(), model, true, 4);
+
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+    }
+
+    @Test
+    void parallelWriteOfSmallModelFallsBackToSequential() throws IOException {
+        Model model = randomModel(50, 20, 5);
+        Path file = tempDir.resolve("small.obj");
+        ObjWriter.writeParallel(file.toString(), model, false, 8);
+
+        assertEquals(referenceText(model), Files.readString(file, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void missingNormalsAndUvAreGeneratedAsBefore() throws IOException {
+        Model model = new Model();
+        model.addVertex(new Vector3f(0, 0, 0));
+        model.addVertex(new Vector3f(2, 0, 0));
+        model.addVertex(new Vector3f(0, 4, 0));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(List.of(0, 1, 2)));
+        model.addPolygon(polygon);
+
+        Path file = tempDir.resolve("plain.obj");
+        ObjWriter.write(file.toString(), model);
+        String text = Files.readString(file, StandardCharsets.US_ASCII);
+
+        assertTrue(text.contains("vt 1.000000 0.000000\n"));
+        assertTrue(text.contains("vt 0.000000 1.000000\n"));
+        assertTrue(text.contains("vn 0.000000 0.000000 1.000000\n"));
+        // Сгенерированные UV/нормали в грани не попадают - как в прежнем writePolygons
+        assertTrue(text.endsWith("# Polygons\nf 1 2 3\n"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.cgvsu.render_engine;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.mockito.ArgumentMatchers;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class FrameBufferTest {
+
+    @Test
+    void clearFillsColorAndResetsDepth() {
+        FrameBuffer fb = new FrameBuffer(3, 2);
+        assertTrue(fb.getZBuffer().testAndSet(1, 1, 0.5));
+
+        fb.clear(Color.WHITE);
+
+        for (int p : fb.getPixels()) {
+            assertEquals(0xFFFFFFFF, p);
+        }
+        assertTrue(fb.getZBuffer().testAndSet(1, 1, 100.0));
+    }
+
+    @Test
+    void setPixelStoresPremultipliedArgb() {
+        FrameBuffer fb = new FrameBuffer(2, 2);
+        fb.setPixel(1, 0, 0x80FF0000);
+        assertEquals(0x80800000, fb.getPixel(1, 0));
+
+        fb.setPixel(0, 1, 0xFF336699);
+        assertEquals(0xFF336699, fb.getPixel(0, 1));
+    }
+
+    @Test
+    void resizeKeepsBuffersWhenSizeUnchanged() {
+        FrameBuffer fb = new FrameBuffer(4, 4);
+        int[] pixels = fb.getPixels();
+        fb.resize(4, 4);
+        assertSame(pixels, fb.getPixels());
+
+        fb.resize(8, 2);
+        assertEquals(16, fb.getPixels().length);
+        assertEquals(8, fb.getWidth());
+        assertEquals(2, fb.getHeight());
+    }
+
+    @Test
+    void shrinkReusesPixelArrayAndKeepsLogicalSize() {
+        FrameBuffer fb = new FrameBuffer(8, 8);
+        int[] pixels = fb.getPixels();
+
+        fb.resize(5, 3);
+        assertSame(pixels, fb.getPixels());
+        assertEquals(5, fb.getWidth());
+        assertEquals(3, fb.getHeight());
+
+        // clear и setPixel работают в логическом размере: строка = новая ширина
+        fb.clear(0xFF0000FF);
+        fb.setPixel(4, 2, 0xFFFF0000);
+        assertEquals(0xFFFF0000, fb.getPixels()[2 * 5 + 4]);
+        assertEquals(0xFF0000FF, fb.getPixel(0, 1));
+        assertEquals(0, fb.getPixels()[5 * 3]);
+
+        GraphicsContext gc = mock(GraphicsContext.class);
+        PixelWriter pw = mock(PixelWriter.class);
+        when(gc.getPixelWriter()).thenReturn(pw);
+        fb.blit(gc);
+        verify(pw).setPixels(eq(0), eq(0), eq(5), eq(3),
+                ArgumentMatchers.<PixelFormat<IntBuffer>>any(), same(pixels), eq(0), eq(5));
+
+        // Рост сверх ёмкости - новый массив
+        fb.resize(9, 9);
+        assertEquals(81, fb.getPixels().length);
+    }
+
+    @Test
+    void blitWritesWholeFrameWithSingleSetPixelsCall() {
+        GraphicsContext gc = mock(GraphicsContext.class);
+        PixelWriter pw = mock(PixelWriter.class);
+        when(gc.getPixelWriter()).thenReturn(pw);
+
+        FrameBuffer fb = new FrameBuffer(5, 3);
+        fb.blit(gc);
+
+        verify(pw, times(1)).setPixels(eq(0), eq(0), eq(5), eq(3),
+                ArgumentMatchers.<PixelFormat<IntBuffer>>any(), same(fb.getPixels()), eq(0), eq(5));
+        verify(pw, never()).setColor(anyInt(), anyInt(), any());
+    }
+}
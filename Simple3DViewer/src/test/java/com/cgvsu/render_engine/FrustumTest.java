@@ -0,0 +1,68 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrustumTest {
+
+    private static Frustum cameraFrustum() {
+        Camera cam = new Camera(new Vector3f(0, 0, 10), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.1f, 100f);
+        Matrix4f viewProjection = cam.getProjectionMatrix().multiply(cam.getViewMatrix());
+        return new Frustum(viewProjection);
+    }
+
+    @Test
+    void boxInFrontOfCameraIsVisible() {
+        Frustum frustum = cameraFrustum();
+        assertTrue(frustum.intersectsBox(new Vector3f(-1, -1, -1), new Vector3f(1, 1, 1)));
+        assertTrue(frustum.intersectsSphere(new Vector3f(0, 0, 0), 1.0f));
+    }
+
+    @Test
+    void boxesOutsideFrustumAreRejected() {
+        Frustum frustum = cameraFrustum();
+        // За камерой, дальше far, далеко сбоку
+        assertFalse(frustum.intersectsBox(new Vector3f(-1, -1, 20), new Vector3f(1, 1, 22)));
+        assertFalse(frustum.intersectsBox(new Vector3f(-1, -1, -200), new Vector3f(1, 1, -150)));
+        assertFalse(frustum.intersectsBox(new Vector3f(100, -1, -1), new Vector3f(102, 1, 1)));
+        assertFalse(frustum.intersectsSphere(new Vector3f(0, 0, 30), 5.0f));
+    }
+
+    @Test
+    void boxStraddlingPlaneIsKept() {
+        Frustum frustum = cameraFrustum();
+        assertTrue(frustum.intersectsBox(new Vector3f(-1, -1, 5), new Vector3f(1, 1, 15)));
+    }
+
+    @Test
+    void renderSkipsModelOutsideFrustum() {
+        Model m = new Model();
+        m.addVertex(new Vector3f(-1, -1, 0));
+        m.addVertex(new Vector3f(1, -1, 0));
+        m.addVertex(new Vector3f(0, 1, 0));
+        // Индексы полигона намеренно неверные: до полигонов рендер дойти не должен
+        Polygon p = new Polygon();
+        ArrayList<Integer> idx = new ArrayList<>();
+        idx.add(0);
+        idx.add(1);
+        idx.add(7);
+        p.setVertexIndices(idx);
+        m.addPolygon(p);
+        m.setTranslation(new Vector3f(0, 0, 50));
+
+        FrameBuffer fb = new FrameBuffer(16, 16);
+        fb.clear(0);
+        Camera cam = new Camera(new Vector3f(0, 0, 10), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.1f, 100f);
+
+        assertDoesNotThrow(() -> RenderEngine.render(fb, cam, m, null, null, Color.RED, new RenderingModes()));
+        assertArrayEquals(new int[16 * 16], fb.getPixels());
+    }
+}
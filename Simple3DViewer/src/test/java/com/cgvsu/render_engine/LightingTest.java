@@ -4,6 +4,8 @@ import com.cgvsu.math.Vector3f;
 import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LightingTest {
@@ -31,4 +33,52 @@ public class LightingTest {
         assertTrue(out.getBlue() >= 0.0 && out.getBlue() <= 1.0);
         assertEquals(1.0, out.getOpacity(), 1e-9);
     }
+
+    @Test
+    void shadeArgbMatchesShadeColor() {
+        Random random = new Random(3);
+        float[][] settings = {{0.2f, 0.8f}, {0.3f, 1.0f}, {1.0f, 1.0f}, {0.0f, 0.0f}};
+        for (float[] setting : settings) {
+            Lighting lighting = new Lighting(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), setting[0], setting[1]);
+            for (int i = 0; i < 5000; i++) {
+                int argb = random.nextInt();
+                float intensity = random.nextFloat() * 1.2f - 0.1f;
+                Color color = Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, (argb >>> 24) / 255.0);
+
+                int expected = FrameBuffer.toArgb(lighting.shadeColor(color, Math.max(0.0f, intensity)));
+                int actual = lighting.shadeArgb(argb, intensity);
+                assertEquals(argb >>> 24, actual >>> 24);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    assertEquals((expected >> shift) & 0xFF, (actual >> shift) & 0xFF, 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shadeArgbSaturatesAndIgnoresNaN() {
+        Lighting lighting = new Lighting(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 0.5f, 1.0f);
+        assertEquals(0xFFFFFFFF, lighting.shadeArgb(0xFFFFFFFF, 1.0f));
+        assertEquals(0x80FF8000, lighting.shadeArgb(0x80FF8000, 0.5f));
+        assertEquals(0xFF404040, lighting.shadeArgb(0xFF808080, Float.NaN));
+        assertEquals(0xFF000000, lighting.shadeArgb(0xFF000000, 1.0f));
+    }
+
+    @Test
+    void componentIntensityMatchesVectorVersion() {
+        Lighting lighting = new Lighting(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 0.2f, 0.8f);
+        Random random = new Random(9);
+        for (int i = 0; i < 1000; i++) {
+            Vector3f normal = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            Vector3f position = new Vector3f(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2);
+            Vector3f camera = new Vector3f(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5, 6);
+
+            float expected = lighting.computeLightingIntensity(normal, position, camera);
+            float actual = lighting.computeLightingIntensity(normal.getX(), normal.getY(), normal.getZ(),
+                    position.getX(), position.getY(), position.getZ(), camera.getX(), camera.getY(), camera.getZ());
+            assertEquals(expected, actual, 1e-5f);
+        }
+        // Нулевая нормаль - без исключения
+        assertEquals(0.0f, lighting.computeLightingIntensity(0, 0, 0, 0, 0, 0, 0, 0, 5));
+    }
 }
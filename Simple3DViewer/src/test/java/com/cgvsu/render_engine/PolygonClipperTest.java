@@ -0,0 +1,83 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolygonClipperTest {
+
+    private static void setClip(PolygonClipper clipper, int vertex, float x, float y, float z, float w) {
+        clipper.set(vertex, PolygonClipper.CX, x);
+        clipper.set(vertex, PolygonClipper.CY, y);
+        clipper.set(vertex, PolygonClipper.CZ, z);
+        clipper.set(vertex, PolygonClipper.CW, w);
+    }
+
+    @Test
+    void outcodeMarksFrustumAndGuardBandPlanes() {
+        assertEquals(0, PolygonClipper.outcode(0, 0, 0, 1));
+        assertEquals(PolygonClipper.OUT_RIGHT, PolygonClipper.outcode(2, 0, 0, 1));
+        assertEquals(PolygonClipper.OUT_RIGHT | PolygonClipper.OUT_GUARD_RIGHT, PolygonClipper.outcode(100, 0, 0, 1));
+        assertEquals(PolygonClipper.OUT_NEAR, PolygonClipper.outcode(0, 0, -2, 1) & PolygonClipper.OUT_NEAR);
+        assertEquals(PolygonClipper.OUT_FAR, PolygonClipper.outcode(0, 0, 2, 1));
+    }
+
+    @Test
+    void nearPlaneCutsOffVertexBehindCamera() {
+        PolygonClipper clipper = new PolygonClipper();
+        clipper.reset(3);
+        setClip(clipper, 0, -1, 0, 0, 1);
+        setClip(clipper, 1, 1, 0, 0, 1);
+        // Вершина за near-плоскостью (z < -w), атрибут U интерполируется вместе с позицией
+        setClip(clipper, 2, 0, 0, -3, 1);
+        clipper.set(0, PolygonClipper.U, 0.0f);
+        clipper.set(1, PolygonClipper.U, 0.0f);
+        clipper.set(2, PolygonClipper.U, 3.0f);
+
+        int count = clipper.clip(PolygonClipper.OUT_NEAR);
+
+        assertEquals(4, count);
+        for (int i = 0; i < count; i++) {
+            float z = clipper.get(i, PolygonClipper.CZ);
+            float w = clipper.get(i, PolygonClipper.CW);
+            assertTrue(z + w >= -1e-6f);
+        }
+        // Новые вершины лежат на плоскости z = -w: t = 1/3 по рёбрам к отсечённой вершине
+        assertEquals(1.0f, clipper.get(2, PolygonClipper.U), 1e-6f);
+        assertEquals(1.0f, clipper.get(3, PolygonClipper.U), 1e-6f);
+
+        // Ребро между точками пересечения создано отсечением
+        assertTrue(clipper.isOriginalEdge(0));
+        assertTrue(clipper.isOriginalEdge(1));
+        assertFalse(clipper.isOriginalEdge(2));
+        assertTrue(clipper.isOriginalEdge(3));
+    }
+
+    @Test
+    void polygonFullyOutsideClipsToNothing() {
+        PolygonClipper clipper = new PolygonClipper();
+        clipper.reset(3);
+        setClip(clipper, 0, 0, 0, -5, 1);
+        setClip(clipper, 1, 1, 0, -5, 1);
+        setClip(clipper, 2, 0, 1, -5, 1);
+
+        assertEquals(0, clipper.clip(PolygonClipper.OUT_NEAR));
+    }
+
+    @Test
+    void guardBandLimitsScreenExtent() {
+        PolygonClipper clipper = new PolygonClipper();
+        clipper.reset(3);
+        setClip(clipper, 0, -1000, -1, 0, 1);
+        setClip(clipper, 1, 1000, -1, 0, 1);
+        setClip(clipper, 2, 0, 1, 0, 1);
+
+        int count = clipper.clip(PolygonClipper.OUT_GUARD_LEFT | PolygonClipper.OUT_GUARD_RIGHT);
+
+        assertTrue(count >= 3);
+        for (int i = 0; i < count; i++) {
+            float x = clipper.get(i, PolygonClipper.CX);
+            assertTrue(Math.abs(x) <= PolygonClipper.GUARD_BAND + 1e-3f);
+        }
+    }
+}
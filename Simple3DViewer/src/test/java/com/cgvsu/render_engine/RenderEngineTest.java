@@ -4,11 +4,15 @@ import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelWriter;
 import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -61,6 +65,250 @@ public class RenderEngineTest {
 
         RenderEngine.render(gc, cam, model, w, h, null, null, Color.RED, null, new RenderingModes());
 
-        verify(pw, atLeastOnce()).setColor(anyInt(), anyInt(), any());
+        verify(pw, times(1)).setPixels(eq(0), eq(0), eq(w), eq(h),
+                ArgumentMatchers.<PixelFormat<IntBuffer>>any(), any(int[].class), eq(0), eq(w));
+        verify(pw, never()).setColor(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void renderIntoFrameBufferWorksWithoutGraphicsContext() {
+        int w = 64;
+        int h = 64;
+        FrameBuffer fb = new FrameBuffer(w, h);
+        fb.clear(0);
+
+        Camera cam = new Camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 1.0f, (float) w / h, 0.1f, 100f);
+        RenderEngine.render(fb, cam, makeSingleTriangleModel(), null, null, Color.RED, new RenderingModes());
+
+        assertEquals(FrameBuffer.toArgb(Color.RED), fb.getPixel(w / 2, h / 2));
+    }
+
+    @Test
+    void viewsOfOneModelWithDifferentCamerasRenderConcurrently() throws Exception {
+        int w = 48;
+        int h = 48;
+        Model model = makeSingleTriangleModel();
+        Camera[] cameras = {
+                new Camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.1f, 100f),
+                new Camera(new Vector3f(3, 1, 2), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.1f, 100f)
+        };
+        int[][] expected = new int[2][];
+        for (int view = 0; view < 2; view++) {
+            FrameBuffer fb = new FrameBuffer(w, h);
+            fb.clear(0);
+            RenderEngine.render(fb, cameras[view], model, null, null, Color.RED, new RenderingModes());
+            expected[view] = fb.getPixels().clone();
+        }
+        assertFalse(java.util.Arrays.equals(expected[0], expected[1]));
+
+        // Проекция вершин - у каждой цели рендера своя: виды не перезаписывают друг другу clip/screen
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(2);
+        try {
+            List<java.util.concurrent.Future<Boolean>> results = new ArrayList<>();
+            for (int view = 0; view < 2; view++) {
+                final int v = view;
+                results.add(pool.submit(() -> {
+                    FrameBuffer fb = new FrameBuffer(w, h);
+                    for (int frame = 0; frame < 200; frame++) {
+                        fb.clear(0);
+                        RenderEngine.render(fb, cameras[v], model, null, null, Color.RED, new RenderingModes());
+                        if (!java.util.Arrays.equals(expected[v], fb.getPixels())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (java.util.concurrent.Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reversedZResolvesDistantSurfacesThatStandardDepthMerges() {
+        int w = 32;
+        int h = 32;
+        // Диапазон камеры как в GuiController: near 0.01, far 10000; поверхности в 5000 и 5000.5
+        Camera cam = new Camera(new Vector3f(0, 0, 5000), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.01f, 10000f);
+        Model far = makeSingleTriangleModel();
+        far.setScale(new Vector3f(1000, 1000, 1000));
+        far.setTranslation(new Vector3f(0, 0, -0.5f));
+        Model near = makeSingleTriangleModel();
+        near.setScale(new Vector3f(1000, 1000, 1000));
+
+        RenderingModes standard = new RenderingModes();
+        FrameBuffer standardFb = new FrameBuffer(w, h);
+        standardFb.clear(0);
+        RenderEngine.render(standardFb, cam, far, null, null, Color.BLUE, standard);
+        RenderEngine.render(standardFb, cam, near, null, null, Color.RED, standard);
+
+        RenderingModes reversed = new RenderingModes();
+        reversed.setReversedZ(true);
+        FrameBuffer reversedFb = new FrameBuffer(w, h);
+        reversedFb.clear(0);
+        RenderEngine.render(reversedFb, cam, far, null, null, Color.BLUE, reversed);
+        RenderEngine.render(reversedFb, cam, near, null, null, Color.RED, reversed);
+
+        assertEquals(FrameBuffer.toArgb(Color.BLUE), standardFb.getPixel(w / 2, h / 2));
+        assertEquals(FrameBuffer.toArgb(Color.RED), reversedFb.getPixel(w / 2, h / 2));
+    }
+
+    @Test
+    void polygonCrossingCameraPlaneIsClippedNotSmeared() {
+        int w = 40;
+        int h = 40;
+        FrameBuffer fb = new FrameBuffer(w, h);
+        fb.clear(0);
+
+        // Пол под камерой: одна вершина позади камеры, до отсечения треугольник "выворачивался" на весь экран
+        Model floor = new Model();
+        floor.addVertex(new Vector3f(-100, 0, -100));
+        floor.addVertex(new Vector3f(100, 0, -100));
+        floor.addVertex(new Vector3f(0, 0, 100));
+        Polygon p = new Polygon();
+        ArrayList<Integer> idx = new ArrayList<>();
+        idx.add(0);
+        idx.add(1);
+        idx.add(2);
+        p.setVertexIndices(idx);
+        floor.addPolygon(p);
+
+        Camera cam = new Camera(new Vector3f(0, 1, 0), new Vector3f(0, 1, -10), 1.0f, 1.0f, 0.1f, 1000f);
+        RenderingModes modes = new RenderingModes();
+        modes.setDrawWireframe(true);
+        RenderEngine.render(fb, cam, floor, null, null, Color.RED, modes);
+
+        // Верхняя половина (небо) пустая, низ кадра - пол
+        for (int y = 0; y < h / 2 - 1; y++) {
+            for (int x = 0; x < w; x++) {
+                assertEquals(0, fb.getPixel(x, y), "pixel " + x + "," + y);
+            }
+        }
+        assertEquals(FrameBuffer.toArgb(Color.RED), fb.getPixel(w / 2, h - 1));
+    }
+
+    @Test
+    void sceneSharesDepthBufferAcrossModels() {
+        int w = 32;
+        int h = 32;
+        Camera cam = new Camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.1f, 100f);
+        Model back = makeSingleTriangleModel();
+        back.setTranslation(new Vector3f(0, 0, -1));
+        Model front = makeSingleTriangleModel();
+
+        // Порядок в списке - от дальней к ближней; ближняя модель всё равно побеждает по глубине
+        for (int threads : new int[]{1, 4}) {
+            RenderingModes modes = new RenderingModes();
+            modes.setRenderThreads(threads);
+            FrameBuffer fb = new FrameBuffer(w, h);
+            fb.clear(0);
+            RenderEngine.renderScene(fb, cam, List.of(
+                    new RenderItem(back, null, Color.BLUE),
+                    new RenderItem(front, null, Color.RED)), null, modes);
+            assertEquals(FrameBuffer.toArgb(Color.RED), fb.getPixel(w / 2, h / 2));
+        }
+    }
+
+    @Test
+    void sceneItemsAreSortedFrontToBack() {
+        Model far = makeSingleTriangleModel();
+        far.setTranslation(new Vector3f(0, 0, -20));
+        Model near = makeSingleTriangleModel();
+        Model middle = makeSingleTriangleModel();
+        middle.setTranslation(new Vector3f(0, 0, -5));
+        // Большая модель: её передняя граница ближе к камере, чем у маленькой в центре
+        Model big = makeSingleTriangleModel();
+        big.setTranslation(new Vector3f(0, 0, -8));
+        big.setScale(new Vector3f(4, 4, 4));
+
+        RenderItem farItem = new RenderItem(far, null, Color.RED);
+        RenderItem nearItem = new RenderItem(near, null, Color.RED);
+        RenderItem middleItem = new RenderItem(middle, null, Color.RED);
+        RenderItem bigItem = new RenderItem(big, null, Color.RED);
+
+        List<RenderItem> sorted = RenderEngine.sortFrontToBack(
+                List.of(farItem, middleItem, bigItem, nearItem), new Vector3f(0, 0, 5));
+        assertEquals(List.of(nearItem, bigItem, middleItem, farItem), sorted);
+    }
+
+    @Test
+    void cullModeRejectsFacesByWinding() {
+        int w = 64;
+        int h = 64;
+        Camera cam = new Camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 1.0f, (float) w / h, 0.1f, 100f);
+        // Обход против часовой стрелки со стороны камеры - лицевая грань
+        Model front = makeSingleTriangleModel();
+        Model back = new Model();
+        back.addVertex(new Vector3f(-1, -1, 0));
+        back.addVertex(new Vector3f(1, -1, 0));
+        back.addVertex(new Vector3f(0, 1, 0));
+        Polygon reversed = new Polygon();
+        reversed.setVertexIndices(new ArrayList<>(List.of(0, 2, 1)));
+        back.addPolygon(reversed);
+
+        int center = FrameBuffer.toArgb(Color.RED);
+        for (CullMode cullMode : CullMode.values()) {
+            RenderingModes modes = new RenderingModes();
+            modes.setCullMode(cullMode);
+            for (Model model : List.of(front, back)) {
+                FrameBuffer fb = new FrameBuffer(w, h);
+                fb.clear(0);
+                RenderEngine.render(fb, cam, model, null, null, Color.RED, modes);
+
+                boolean culled = model == front ? cullMode == CullMode.FRONT : cullMode == CullMode.BACK;
+                assertEquals(culled ? 0 : center, fb.getPixel(w / 2, h / 2), cullMode + " " + (model == front));
+            }
+        }
+    }
+
+    @Test
+    void shadingModesLightTheSurfaceConsistently() {
+        int w = 64;
+        int h = 64;
+        Camera cam = new Camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 1.0f, (float) w / h, 0.1f, 100f);
+        Lighting lighting = new Lighting(cam.getPosition(), cam.getTarget(), 0.2f, 0.8f);
+        // Треугольник с нормалями, наклонёнными в разные стороны: Гуро и Фонг различаются, но близки
+        Model lit = new Model();
+        lit.addVertex(new Vector3f(-1, -1, 0));
+        lit.addVertex(new Vector3f(1, -1, 0));
+        lit.addVertex(new Vector3f(0, 1, 0));
+        lit.addNormal(new Vector3f(-0.3f, 0, 1));
+        lit.addNormal(new Vector3f(0.3f, 0, 1));
+        lit.addNormal(new Vector3f(0, 0.3f, 1));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(List.of(0, 1, 2)));
+        polygon.setNormalIndices(new ArrayList<>(List.of(0, 1, 2)));
+        lit.addPolygon(polygon);
+
+        int[] centers = new int[ShadingMode.values().length];
+        for (ShadingMode shadingMode : ShadingMode.values()) {
+            RenderingModes modes = new RenderingModes();
+            modes.setUseLighting(true);
+            modes.setShadingMode(shadingMode);
+            FrameBuffer fb = new FrameBuffer(w, h);
+            fb.clear(0);
+            RenderEngine.render(fb, cam, lit, null, lighting, Color.WHITE, modes);
+
+            int center = fb.getPixel(w / 2, h / 2);
+            assertNotEquals(0, center, shadingMode.toString());
+            centers[shadingMode.ordinal()] = center & 0xFF;
+            if (shadingMode == ShadingMode.FLAT) {
+                // Одна интенсивность на грань
+                for (int p : fb.getPixels()) {
+                    assertTrue(p == 0 || p == fb.getPixel(w / 2, h / 2));
+                }
+            }
+        }
+        // FLAT: нормаль грани (0, 0, 1) и направление на камеру из первой вершины (-1, -1, 0)
+        double flatIntensity = 5.0 / Math.sqrt(27.0);
+        assertEquals(Math.round(255 * (0.2 + 0.8 * flatIntensity)), centers[ShadingMode.FLAT.ordinal()], 1);
+        // GOURAUD: интерполяция интенсивностей вершин (0.866, 0.866, 0.883) - между ними
+        int gouraud = centers[ShadingMode.GOURAUD.ordinal()];
+        assertTrue(gouraud >= 227 && gouraud <= 232, String.valueOf(gouraud));
+        // PHONG: в центре интерполированная нормаль почти смотрит на камеру - ярче вершин
+        assertTrue(centers[ShadingMode.PHONG.ordinal()] > gouraud);
     }
 }
@@ -0,0 +1,135 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderableMeshTest {
+
+    private static Model makeQuad() {
+        Model model = new Model();
+        model.addVertex(new Vector3f(0, 0, 0));
+        model.addVertex(new Vector3f(1, 0, 0));
+        model.addVertex(new Vector3f(1, 1, 0));
+        model.addVertex(new Vector3f(0, 1, 0));
+        model.addTextureVertex(new Vector2f(0.5f, 0.25f));
+        model.addNormal(new Vector3f(0, 0, 1));
+        for (int[] triangle : new int[][]{{0, 1, 2}, {0, 2, 3}}) {
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(new ArrayList<>(List.of(triangle[0], triangle[1], triangle[2])));
+            polygon.setTextureVertexIndices(new ArrayList<>(List.of(0, 0, 0)));
+            polygon.setNormalIndices(new ArrayList<>(List.of(0, 0, 0)));
+            model.addPolygon(polygon);
+        }
+        return model;
+    }
+
+    @Test
+    void unchangedModelKeepsDerivedData() {
+        Model model = makeQuad();
+        RenderableMesh first = RenderableMesh.of(model);
+        Vector3f position = first.worldPosition(2);
+        Vector3f normal = first.worldNormal(0);
+        float[] planes = first.getFacePlanes();
+        Vector2f uv = first.textureVertex(0);
+
+        // Кадр только с движением камеры: те же объекты, без пересчёта
+        RenderableMesh second = RenderableMesh.of(model);
+        assertSame(first, second);
+        assertSame(position, second.worldPosition(2));
+        assertSame(normal, second.worldNormal(0));
+        assertSame(planes, second.getFacePlanes());
+        assertSame(uv, second.textureVertex(0));
+    }
+
+    @Test
+    void transformChangeRebuildsWorldData() {
+        Model model = makeQuad();
+        RenderableMesh mesh = RenderableMesh.of(model);
+        Vector2f uv = mesh.textureVertex(0);
+        assertEquals(1.0f, mesh.worldPosition(1).getX());
+
+        model.translate(new Vector3f(2, 0, 0));
+        model.rotate(new Vector3f(0, (float) Math.PI, 0));
+        mesh = RenderableMesh.of(model);
+        assertEquals(1.0f, mesh.worldPosition(1).getX(), 1e-5f);
+        assertEquals(-1.0f, mesh.worldNormal(0).getZ(), 1e-5f);
+        assertEquals(-1.0f, mesh.getFacePlanes()[2], 1e-5f);
+        // UV от матрицы модели не зависят
+        assertSame(uv, mesh.textureVertex(0));
+    }
+
+    @Test
+    void geometryChangeRebuildsEverything() {
+        Model model = makeQuad();
+        RenderableMesh mesh = RenderableMesh.of(model);
+        mesh.textureVertex(0);
+        assertEquals(4, mesh.getVertexCount());
+
+        model.removeVertex(1);
+        mesh = RenderableMesh.of(model);
+        assertEquals(3, mesh.getVertexCount());
+        assertEquals(1.0f, mesh.worldPosition(1).getX());
+        assertEquals(1.0f, mesh.worldPosition(1).getY());
+
+        model.getMeshBuffers().setVertex(0, -3, 0, 0);
+        assertEquals(-3.0f, RenderableMesh.of(model).worldPosition(0).getX());
+    }
+
+    @Test
+    void facePlanesHoldUnitNormalAndOffset() {
+        Model model = makeQuad();
+        model.translate(new Vector3f(0, 0, 3));
+        float[] planes = RenderableMesh.of(model).getFacePlanes();
+
+        assertEquals(2 * RenderableMesh.FACE_STRIDE, planes.length);
+        for (int polygon = 0; polygon < 2; polygon++) {
+            int base = polygon * RenderableMesh.FACE_STRIDE;
+            assertEquals(0.0f, planes[base], 1e-6f);
+            assertEquals(0.0f, planes[base + 1], 1e-6f);
+            assertEquals(1.0f, planes[base + 2], 1e-6f);
+            // Плоскость z = 3: d = n·v0
+            assertEquals(3.0f, planes[base + 3], 1e-5f);
+        }
+    }
+
+    @Test
+    void degenerateFaceGetsZeroPlane() {
+        Model model = makeQuad();
+        model.getMeshBuffers().setVertex(2, 1, 0, 0);
+        float[] planes = RenderableMesh.of(model).getFacePlanes();
+        // Первый треугольник вырожден (v1 == v2), второй - нет
+        for (int i = 0; i < RenderableMesh.FACE_STRIDE; i++) {
+            assertEquals(0.0f, planes[i]);
+        }
+        assertNotEquals(0.0f, planes[RenderableMesh.FACE_STRIDE + 2]);
+    }
+
+    @Test
+    void facePlaneOfConcavePolygonUsesAllCorners() {
+        // Невыпуклый четырёхугольник ("стрелка", CCW в плоскости z = 0), вторая вершина вогнутая:
+        // векторное произведение по первым трём вершинам дало бы нормаль -z
+        Model model = new Model();
+        model.addVertex(new Vector3f(0, 0, 0));
+        model.addVertex(new Vector3f(2, 1, 0));
+        model.addVertex(new Vector3f(4, 0, 0));
+        model.addVertex(new Vector3f(2, 3, 0));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(List.of(0, 1, 2, 3)));
+        model.addPolygon(polygon);
+        model.translate(new Vector3f(0, 0, 2));
+
+        float[] planes = RenderableMesh.of(model).getFacePlanes();
+        assertEquals(0.0f, planes[0], 1e-6f);
+        assertEquals(0.0f, planes[1], 1e-6f);
+        assertEquals(1.0f, planes[2], 1e-6f);
+        assertEquals(2.0f, planes[3], 1e-5f);
+    }
+}
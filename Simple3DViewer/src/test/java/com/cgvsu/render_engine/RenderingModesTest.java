@@ -13,6 +13,9 @@ public class RenderingModesTest {
         assertFalse(modes.isUseTexture());
         assertFalse(modes.isUseLighting());
         assertFalse(modes.hasAnyModeEnabled());
+        assertFalse(modes.isReversedZ());
+        assertEquals(CullMode.NONE, modes.getCullMode());
+        assertEquals(ShadingMode.PHONG, modes.getShadingMode());
     }
 
     @Test
@@ -20,6 +23,7 @@ public class RenderingModesTest {
         RenderingModes modes = new RenderingModes();
         modes.setDrawWireframe(true);
         assertFalse(modes.hasAnyModeEnabled());
+        assertFalse(modes.isReversedZ());
 
         modes.setDrawWireframe(false);
         modes.setUseTexture(true);
@@ -29,4 +33,36 @@ public class RenderingModesTest {
         modes.setUseLighting(true);
         assertTrue(modes.hasAnyModeEnabled());
     }
+
+    @Test
+    void tiledRenderingEnabledOnlyWithSeveralThreads() {
+        RenderingModes modes = new RenderingModes();
+        assertEquals(1, modes.getRenderThreads());
+        assertEquals(RenderingModes.DEFAULT_TILE_SIZE, modes.getTileSize());
+        assertFalse(modes.isTiledRendering());
+
+        modes.setRenderThreads(4);
+        assertTrue(modes.isTiledRendering());
+
+        assertThrows(IllegalArgumentException.class, () -> modes.setRenderThreads(0));
+        assertThrows(IllegalArgumentException.class, () -> modes.setTileSize(0));
+    }
+
+    @Test
+    void cullModeRejectsNull() {
+        RenderingModes modes = new RenderingModes();
+        modes.setCullMode(CullMode.BACK);
+        assertEquals(CullMode.BACK, modes.getCullMode());
+        assertThrows(IllegalArgumentException.class, () -> modes.setCullMode(null));
+        assertEquals(CullMode.BACK, modes.getCullMode());
+    }
+
+    @Test
+    void shadingModeRejectsNull() {
+        RenderingModes modes = new RenderingModes();
+        modes.setShadingMode(ShadingMode.GOURAUD);
+        assertEquals(ShadingMode.GOURAUD, modes.getShadingMode());
+        assertThrows(IllegalArgumentException.class, () -> modes.setShadingMode(null));
+        assertEquals(ShadingMode.GOURAUD, modes.getShadingMode());
+    }
 }
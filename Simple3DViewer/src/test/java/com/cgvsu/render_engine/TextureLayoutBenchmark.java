@@ -0,0 +1,105 @@
+package com.cgvsu.render_engine;
+
+// сравнение времени текстурированного кадра: построчная раскладка текселей против плиток 8x8.
+// квадрат с большой текстурой во весь кадр, повёрнутый вокруг оси взгляда - выборка идёт по диагонали/вертикали.
+// не тест (surefire не запускает): после mvn test-compile -
+// java -cp target/classes:target/test-classes:<javafx jars> com.cgvsu.render_engine.TextureLayoutBenchmark [size] [frames]
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class TextureLayoutBenchmark {
+
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 800;
+    private static final float[] ANGLES_DEGREES = {0, 30, 60, 90};
+
+    private TextureLayoutBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        WritableImage image = makeNoiseImage(size);
+        Model quad = makeQuad();
+        FrameBuffer frameBuffer = new FrameBuffer(FRAME_WIDTH, FRAME_HEIGHT);
+        Camera camera = new Camera(new Vector3f(0, 0, 2.2f), new Vector3f(0, 0, 0),
+                1.0f, (float) FRAME_WIDTH / FRAME_HEIGHT, 0.1f, 100f);
+
+        System.out.printf("texture %dx%d, frame %dx%d, %d frames per view%n",
+                size, size, FRAME_WIDTH, FRAME_HEIGHT, frames);
+        for (Texture.Filter filter : new Texture.Filter[]{Texture.Filter.NEAREST, Texture.Filter.BILINEAR}) {
+            for (Texture.Layout layout : Texture.Layout.values()) {
+                Texture texture = new Texture(image, layout);
+                texture.setFilter(filter);
+                RenderingModes modes = new RenderingModes();
+                modes.setUseTexture(true);
+
+                StringBuilder line = new StringBuilder(String.format("%-9s %-10s", filter, layout));
+                for (float angle : ANGLES_DEGREES) {
+                    quad.setRotation(new Vector3f(0, 0, (float) Math.toRadians(angle)));
+                    // Прогрев JIT и кэшей
+                    for (int i = 0; i < 3; i++) {
+                        renderFrame(frameBuffer, camera, quad, texture, modes);
+                    }
+                    long start = System.nanoTime();
+                    for (int i = 0; i < frames; i++) {
+                        renderFrame(frameBuffer, camera, quad, texture, modes);
+                    }
+                    double msPerFrame = (System.nanoTime() - start) / 1e6 / frames;
+                    line.append(String.format("  %3.0f deg: %7.2f ms", angle, msPerFrame));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    private static void renderFrame(FrameBuffer frameBuffer, Camera camera, Model model,
+                                    Texture texture, RenderingModes modes) {
+        frameBuffer.clear(0);
+        RenderEngine.render(frameBuffer, camera, model, texture, null, Color.WHITE, modes);
+    }
+
+    private static WritableImage makeNoiseImage(int size) {
+        Random random = new Random(1);
+        int[] row = new int[size];
+        WritableImage image = new WritableImage(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                row[x] = random.nextInt() | 0xFF000000;
+            }
+            image.getPixelWriter().setPixels(0, y, size, 1, PixelFormat.getIntArgbInstance(), row, 0, size);
+        }
+        return image;
+    }
+
+    private static Model makeQuad() {
+        Model model = new Model();
+        model.addVertex(new Vector3f(-1, -1, 0));
+        model.addVertex(new Vector3f(1, -1, 0));
+        model.addVertex(new Vector3f(1, 1, 0));
+        model.addVertex(new Vector3f(-1, 1, 0));
+        model.addTextureVertex(new Vector2f(0, 0));
+        model.addTextureVertex(new Vector2f(1, 0));
+        model.addTextureVertex(new Vector2f(1, 1));
+        model.addTextureVertex(new Vector2f(0, 1));
+        for (int[] triangle : new int[][]{{0, 1, 2}, {0, 2, 3}}) {
+            Polygon polygon = new Polygon();
+            List<Integer> indices = List.of(triangle[0], triangle[1], triangle[2]);
+            polygon.setVertexIndices(new ArrayList<>(indices));
+            polygon.setTextureVertexIndices(new ArrayList<>(indices));
+            model.addPolygon(polygon);
+        }
+        return model;
+    }
+}
@@ -4,6 +4,8 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TextureTest {
@@ -39,4 +41,191 @@ public class TextureTest {
         int[] restored = t.snapshotPaintLayerArgb();
         assertArrayEquals(before, restored);
     }
+
+    private static Texture makeGradient() {
+        // Строка 0 (v = 1): чёрный, белый; строка 1 (v = 0): красный, синий
+        WritableImage img = new WritableImage(2, 2);
+        img.getPixelWriter().setArgb(0, 0, 0xFF000000);
+        img.getPixelWriter().setArgb(1, 0, 0xFFFFFFFF);
+        img.getPixelWriter().setArgb(0, 1, 0xFFFF0000);
+        img.getPixelWriter().setArgb(1, 1, 0xFF0000FF);
+        return new Texture(img);
+    }
+
+    @Test
+    void nearestSampleArgbMatchesColorSample() {
+        Texture t = makeGradient();
+        float[] coords = {-1.0f, 0.0f, 0.2f, 0.5f, 0.99f, 1.0f, 3.0f, Float.NaN};
+        for (float u : coords) {
+            for (float v : coords) {
+                assertEquals(FrameBuffer.toArgb(t.sample(u, v)), t.sampleArgb(u, v), u + " " + v);
+            }
+        }
+        assertEquals(0xFFFF0000, t.sampleArgb(0.0f, 0.0f));
+        assertEquals(0xFFFFFFFF, t.sampleArgb(1.0f, 1.0f));
+    }
+
+    @Test
+    void bilinearBlendsNeighbourTexels() {
+        Texture t = makeGradient();
+        t.setFilter(Texture.Filter.BILINEAR);
+
+        // Центры текселей - без смешивания
+        assertEquals(0xFFFF0000, t.sampleArgb(0.0f, 0.0f));
+        assertEquals(0xFFFFFFFF, t.sampleArgb(1.0f, 1.0f));
+        // Середина нижней строки: красный + синий пополам
+        assertEquals(0xFF800080, t.sampleArgb(0.5f, 0.0f));
+        // Центр: среднее четырёх текселей
+        int center = t.sampleArgb(0.5f, 0.5f);
+        assertEquals(0xFF, center >>> 24);
+        assertEquals(0x80, (center >> 16) & 0xFF);
+        assertEquals(0x40, (center >> 8) & 0xFF);
+        assertEquals(0x80, center & 0xFF);
+    }
+
+    @Test
+    void wrapModeClampsOrRepeatsUv() {
+        Texture t = makeGradient();
+        assertEquals(0xFF0000FF, t.sampleArgb(1.5f, -0.5f));
+
+        t.setWrapMode(Texture.WrapMode.REPEAT);
+        // 1.5 -> 0.5, -0.75 -> 0.25
+        assertEquals(t.sampleArgb(0.5f, 0.25f), t.sampleArgb(1.5f, -0.75f));
+        assertEquals(0xFFFF0000, t.sampleArgb(2.0f, 0.0f));
+
+        t.setFilter(Texture.Filter.BILINEAR);
+        assertEquals(t.sampleArgb(0.25f, 0.75f), t.sampleArgb(-0.75f, 3.75f));
+        assertThrows(IllegalArgumentException.class, () -> t.setWrapMode(null));
+        assertThrows(IllegalArgumentException.class, () -> t.setFilter(null));
+    }
+
+    @Test
+    void imageIsBuiltOnDemandAndFollowsPaint() {
+        Texture t = makeGradient();
+        WritableImage image = t.getWritableImage();
+        assertSame(image, t.getImage());
+        assertEquals(0xFFFF0000, image.getPixelReader().getArgb(0, 1));
+
+        t.stampCircle(0, 1, 0, Color.LIME);
+        assertEquals(0xFF00FF00, t.sampleArgb(0.0f, 0.0f));
+        assertEquals(0xFF00FF00, t.getImage().getPixelReader().getArgb(0, 1));
+
+        t.clearPaintLayer();
+        assertEquals(0xFFFF0000, t.getImage().getPixelReader().getArgb(0, 1));
+    }
+
+    @Test
+    void mipPyramidAveragesAndFollowsPaint() {
+        WritableImage img = new WritableImage(4, 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                img.getPixelWriter().setArgb(x, y, 0xFF000000);
+            }
+        }
+        img.getPixelWriter().setArgb(0, 0, 0xFFFFFFFF);
+        Texture t = new Texture(img);
+        // 4x3 -> 2x1 -> 1x1
+        assertEquals(3, t.getMipLevelCount());
+
+        // Уровень 1, тексель (0, 0) - среднее 2x2 с одним белым
+        assertEquals(0xFF404040, t.sampleArgb(0.0f, 1.0f, 1.0f));
+        assertEquals(0xFF000000, t.sampleArgb(1.0f, 1.0f, 1.0f));
+        // lod выше последнего уровня - 1x1
+        assertEquals(t.sampleArgb(0.3f, 0.7f, 2.0f), t.sampleArgb(0.9f, 0.1f, 50.0f));
+
+        // Покраска текселя (3, 1) доходит до уровня 1
+        t.stampCircle(3, 1, 0, Color.WHITE);
+        assertEquals(0xFF404040, t.sampleArgb(1.0f, 1.0f, 1.0f));
+        t.clearPaintLayer();
+        assertEquals(0xFF000000, t.sampleArgb(1.0f, 1.0f, 1.0f));
+    }
+
+    @Test
+    void trilinearBlendsNeighbourLevels() {
+        WritableImage img = new WritableImage(2, 2);
+        img.getPixelWriter().setArgb(0, 0, 0xFFFFFFFF);
+        img.getPixelWriter().setArgb(1, 0, 0xFF000000);
+        img.getPixelWriter().setArgb(0, 1, 0xFF000000);
+        img.getPixelWriter().setArgb(1, 1, 0xFF000000);
+        Texture t = new Texture(img);
+        t.setFilter(Texture.Filter.TRILINEAR);
+
+        assertEquals(0xFFFFFFFF, t.sampleArgb(0.0f, 1.0f, 0.0f));
+        assertEquals(0xFF404040, t.sampleArgb(0.0f, 1.0f, 1.0f));
+        // Половина пути между уровнями 0 и 1
+        int half = t.sampleArgb(0.0f, 1.0f, 0.5f);
+        assertEquals(0xA0, half & 0xFF);
+    }
+
+    @Test
+    void lodFromRho2IsHalfLog2() {
+        assertEquals(0.0f, Texture.lodFromRho2(0.25f));
+        assertEquals(0.0f, Texture.lodFromRho2(Float.NaN));
+        assertEquals(1.0f, Texture.lodFromRho2(4.0f), 1e-6f);
+        assertEquals(3.0f, Texture.lodFromRho2(64.0f), 1e-6f);
+        assertEquals(0.5 * Math.log(10.0) / Math.log(2.0), Texture.lodFromRho2(10.0f), 0.05);
+    }
+
+    @Test
+    void tiledLayoutSamplesLikeRowMajor() {
+        // Размеры не кратны плитке: проверка дополненных краёв
+        Random random = new Random(5);
+        WritableImage img = new WritableImage(37, 21);
+        for (int y = 0; y < 21; y++) {
+            for (int x = 0; x < 37; x++) {
+                img.getPixelWriter().setArgb(x, y, random.nextInt() | 0xFF000000);
+            }
+        }
+        Texture rowMajor = new Texture(img);
+        Texture tiled = new Texture(img, Texture.Layout.TILED);
+        assertEquals(Texture.Layout.TILED, tiled.getLayout());
+        assertEquals(rowMajor.getMipLevelCount(), tiled.getMipLevelCount());
+
+        for (Texture t : new Texture[]{rowMajor, tiled}) {
+            t.drawStrokeSegment(3, 4, 30, 17, 2, Color.color(0, 1, 0, 0.5));
+        }
+        assertArrayEquals(rowMajor.snapshotPaintLayerArgb(), tiled.snapshotPaintLayerArgb());
+
+        for (Texture.Filter filter : Texture.Filter.values()) {
+            for (Texture.WrapMode wrapMode : Texture.WrapMode.values()) {
+                rowMajor.setFilter(filter);
+                tiled.setFilter(filter);
+                rowMajor.setWrapMode(wrapMode);
+                tiled.setWrapMode(wrapMode);
+                for (int i = 0; i < 2000; i++) {
+                    float u = random.nextFloat() * 3.0f - 1.0f;
+                    float v = random.nextFloat() * 3.0f - 1.0f;
+                    float lod = random.nextFloat() * 7.0f;
+                    assertEquals(rowMajor.sampleArgb(u, v, lod), tiled.sampleArgb(u, v, lod));
+                }
+            }
+        }
+    }
+
+    @Test
+    void strokeUpdatesMipLevelsLikeSeparateStamps() {
+        WritableImage img = new WritableImage(40, 24);
+        Texture stroked = new Texture(img, Texture.Layout.TILED);
+        Texture stamped = new Texture(img, Texture.Layout.TILED);
+        Color color = Color.color(1, 0.5, 0, 0.7);
+
+        stroked.drawStrokeSegment(35, 3, 4, 20, 3, color);
+        // Те же точки отрезка, что и в drawStrokeSegment
+        int steps = (int) Math.ceil(Math.hypot(-31, 17) / 1.5);
+        for (int i = 0; i <= steps; i++) {
+            double t = (double) i / steps;
+            stamped.stampCircle((int) Math.round(35 - 31 * t), (int) Math.round(3 + 17 * t), 3, color);
+        }
+
+        assertArrayEquals(stamped.snapshotPaintLayerArgb(), stroked.snapshotPaintLayerArgb());
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            float u = random.nextFloat();
+            float v = random.nextFloat();
+            float lod = random.nextFloat() * 6.0f;
+            assertEquals(stamped.sampleArgb(u, v, lod), stroked.sampleArgb(u, v, lod));
+        }
+        assertEquals(stamped.getImage().getPixelReader().getArgb(20, 12),
+                stroked.getImage().getPixelReader().getArgb(20, 12));
+    }
 }
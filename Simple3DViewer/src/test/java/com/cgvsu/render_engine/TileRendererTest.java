@@ -0,0 +1,120 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelProcessor;
+import com.cgvsu.model.Polygon;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileRendererTest {
+
+    private static Model makeWavyGrid(int n) {
+        Model m = new Model();
+        for (int j = 0; j <= n; j++) {
+            for (int i = 0; i <= n; i++) {
+                float x = -1.0f + 2.0f * i / n;
+                float y = -1.0f + 2.0f * j / n;
+                float z = 0.3f * (float) Math.sin(3.0 * x) * (float) Math.cos(2.0 * y);
+                m.addVertex(new Vector3f(x, y, z));
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                int a = j * (n + 1) + i;
+                Polygon p = new Polygon();
+                p.setVertexIndices(new ArrayList<>(List.of(a, a + 1, a + n + 2, a + n + 1)));
+                m.addPolygon(p);
+            }
+        }
+        ModelProcessor.preprocess(m);
+        m.rotate(new Vector3f(0.4f, 0.3f, 0.0f));
+        return m;
+    }
+
+    private static int[] renderFrame(Model model, RenderingModes modes, Lighting lighting, int w, int h) {
+        FrameBuffer fb = new FrameBuffer(w, h);
+        fb.clear(Color.WHITE);
+        Camera cam = new Camera(new Vector3f(0, 0, 3), new Vector3f(0, 0, 0), 1.0f, (float) w / h, 0.1f, 100f);
+        RenderEngine.render(fb, cam, model, null, lighting, Color.LIGHTGRAY, modes);
+        return fb.getPixels();
+    }
+
+    @Test
+    void tiledOutputIsPixelIdenticalToSequential() {
+        int w = 97;
+        int h = 83;
+        Model model = makeWavyGrid(12);
+
+        RenderingModes sequential = new RenderingModes(true, false, false);
+        RenderingModes tiled = new RenderingModes(true, false, false);
+        tiled.setRenderThreads(4);
+        tiled.setTileSize(16);
+
+        int[] expected = renderFrame(model, sequential, null, w, h);
+        int[] actual = renderFrame(model, tiled, null, w, h);
+
+        int black = FrameBuffer.toArgb(Color.BLACK);
+        assertTrue(java.util.Arrays.stream(expected).anyMatch(p -> p == black), "Wireframe must be visible");
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void tiledLitOutputIsPixelIdenticalToSequential() {
+        int w = 64;
+        int h = 64;
+        Model model = makeWavyGrid(8);
+        Lighting lighting = new Lighting(new Vector3f(0, 0, 3), new Vector3f(0, 0, 0), 0.25f, 0.85f);
+
+        RenderingModes sequential = new RenderingModes(false, false, true);
+        RenderingModes tiled = new RenderingModes(false, false, true);
+        tiled.setRenderThreads(3);
+        tiled.setTileSize(8);
+
+        assertArrayEquals(renderFrame(model, sequential, lighting, w, h), renderFrame(model, tiled, lighting, w, h));
+    }
+
+    @Test
+    void reusedVerticesOfLargeAndClippedPolygonsMatchTiledOutput() {
+        // 40-угольник (больше начальных буферов вершин) и камера вплотную: часть полигонов режется near
+        Model model = makeWavyGrid(6);
+        int first = model.getVertices().size();
+        List<Integer> ring = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            double angle = 2.0 * Math.PI * i / 40;
+            model.addVertex(new Vector3f((float) Math.cos(angle) * 0.8f, (float) Math.sin(angle) * 0.8f, 0.2f));
+            ring.add(first + i);
+        }
+        Polygon disk = new Polygon();
+        disk.setVertexIndices(new ArrayList<>(ring));
+        model.addPolygon(disk);
+
+        int w = 72;
+        int h = 56;
+        Lighting lighting = new Lighting(new Vector3f(0, 0, 3), new Vector3f(0, 0, 0), 0.25f, 0.85f);
+        RenderingModes sequential = new RenderingModes(true, false, true);
+        RenderingModes tiled = new RenderingModes(true, false, true);
+        tiled.setRenderThreads(2);
+        tiled.setTileSize(16);
+
+        int[][] frames = new int[2][];
+        RenderingModes[] modes = {sequential, tiled};
+        for (int k = 0; k < 2; k++) {
+            FrameBuffer fb = new FrameBuffer(w, h);
+            fb.clear(Color.WHITE);
+            Camera cam = new Camera(new Vector3f(0.2f, -0.1f, 0.45f), new Vector3f(0, 0, 0),
+                    1.2f, (float) w / h, 0.1f, 100f);
+            RenderEngine.render(fb, cam, model, null, lighting, Color.LIGHTGRAY, modes[k]);
+            frames[k] = fb.getPixels();
+        }
+
+        int white = FrameBuffer.toArgb(Color.WHITE);
+        assertTrue(java.util.Arrays.stream(frames[0]).anyMatch(p -> p != white));
+        assertArrayEquals(frames[0], frames[1]);
+    }
+}
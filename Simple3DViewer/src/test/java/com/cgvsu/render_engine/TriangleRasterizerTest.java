@@ -1,23 +1,32 @@
 package com.cgvsu.render_engine;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelWriter;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 public class TriangleRasterizerTest {
 
+    private static boolean containsPixel(FrameBuffer fb, int argb) {
+        for (int p : fb.getPixels()) {
+            if (p == argb) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Test
     void fillTriangleRespectsZBufferAndDoesNotOverdrawFartherFragment() {
-        GraphicsContext gc = mock(GraphicsContext.class);
-        PixelWriter pw = mock(PixelWriter.class);
-        when(gc.getPixelWriter()).thenReturn(pw);
-
         int width = 20;
         int height = 20;
-        ZBuffer z = new ZBuffer(width, height);
+        FrameBuffer fb = new FrameBuffer(width, height);
+        fb.clear(0);
 
         ScreenVertex v0Near = new ScreenVertex(5, 5, 1.0f);
         ScreenVertex v1Near = new ScreenVertex(15, 5, 1.0f);
@@ -27,30 +36,228 @@ public class TriangleRasterizerTest {
         ScreenVertex v1Far = new ScreenVertex(15, 5, 10.0f);
         ScreenVertex v2Far = new ScreenVertex(5, 15, 10.0f);
 
-        TriangleRasterizer.fillTriangle(gc, z, v0Near, v1Near, v2Near, width, height, Color.RED);
-        reset(pw);
+        TriangleRasterizer.fillTriangle(fb, v0Near, v1Near, v2Near, Color.RED);
+        assertTrue(containsPixel(fb, FrameBuffer.toArgb(Color.RED)));
 
-        TriangleRasterizer.fillTriangle(gc, z, v0Far, v1Far, v2Far, width, height, Color.BLUE);
+        TriangleRasterizer.fillTriangle(fb, v0Far, v1Far, v2Far, Color.BLUE);
 
-        verify(pw, never()).setColor(anyInt(), anyInt(), eq(Color.BLUE));
+        assertFalse(containsPixel(fb, FrameBuffer.toArgb(Color.BLUE)));
     }
 
     @Test
     void fillTriangleDegenerateDoesNothing() {
-        GraphicsContext gc = mock(GraphicsContext.class);
-        PixelWriter pw = mock(PixelWriter.class);
-        when(gc.getPixelWriter()).thenReturn(pw);
-
         int width = 10;
         int height = 10;
-        ZBuffer z = new ZBuffer(width, height);
+        FrameBuffer fb = new FrameBuffer(width, height);
+        fb.clear(0);
 
         ScreenVertex v0 = new ScreenVertex(1, 1, 1.0f);
         ScreenVertex v1 = new ScreenVertex(2, 2, 1.0f);
         ScreenVertex v2 = new ScreenVertex(3, 3, 1.0f);
 
-        TriangleRasterizer.fillTriangle(gc, z, v0, v1, v2, width, height, Color.RED);
+        TriangleRasterizer.fillTriangle(fb, v0, v1, v2, Color.RED);
+
+        assertArrayEquals(new int[width * height], fb.getPixels());
+    }
+
+    @Test
+    void sharedEdgeIsCoveredExactlyOnce() {
+        int width = 16;
+        int height = 16;
+        // Квадрат (2,2)-(12,12), разбитый по диагонали, плюс вариант с дробными вершинами
+        float[][] quads = {
+                {2, 2, 12, 2, 12, 12, 2, 12},
+                {2.3f, 1.7f, 12.6f, 2.4f, 11.2f, 13.1f, 1.9f, 12.5f}
+        };
+        for (float[] q : quads) {
+            ScreenVertex a = new ScreenVertex(q[0], q[1], 1.0f);
+            ScreenVertex b = new ScreenVertex(q[2], q[3], 1.0f);
+            ScreenVertex c = new ScreenVertex(q[4], q[5], 1.0f);
+            ScreenVertex d = new ScreenVertex(q[6], q[7], 1.0f);
+
+            FrameBuffer first = new FrameBuffer(width, height);
+            first.clear(0);
+            TriangleRasterizer.fillTriangle(first, a, b, c, Color.RED);
+            FrameBuffer second = new FrameBuffer(width, height);
+            second.clear(0);
+            TriangleRasterizer.fillTriangle(second, a, c, d, Color.RED);
+
+            for (int i = 0; i < width * height; i++) {
+                assertFalse(first.getPixels()[i] != 0 && second.getPixels()[i] != 0, "pixel drawn twice: " + i);
+            }
+        }
+    }
+
+    @Test
+    void axisAlignedQuadFollowsTopLeftRule() {
+        int width = 16;
+        int height = 16;
+        FrameBuffer fb = new FrameBuffer(width, height);
+        fb.clear(0);
+
+        ScreenVertex a = new ScreenVertex(2, 2, 1.0f);
+        ScreenVertex b = new ScreenVertex(12, 2, 1.0f);
+        ScreenVertex c = new ScreenVertex(12, 12, 1.0f);
+        ScreenVertex d = new ScreenVertex(2, 12, 1.0f);
+        TriangleRasterizer.fillTriangle(fb, a, b, c, Color.RED);
+        TriangleRasterizer.fillTriangle(fb, c, d, a, Color.RED);
+
+        // Левое и верхнее рёбра включаются, правое и нижнее - нет
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean inside = x >= 2 && x < 12 && y >= 2 && y < 12;
+                assertEquals(inside ? FrameBuffer.toArgb(Color.RED) : 0, fb.getPixel(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void windingOrderDoesNotChangeCoverage() {
+        FrameBuffer cw = new FrameBuffer(20, 20);
+        cw.clear(0);
+        FrameBuffer ccw = new FrameBuffer(20, 20);
+        ccw.clear(0);
+
+        ScreenVertex v0 = new ScreenVertex(1.5f, 2.25f, 1.0f);
+        ScreenVertex v1 = new ScreenVertex(17.0f, 6.5f, 1.0f);
+        ScreenVertex v2 = new ScreenVertex(6.75f, 18.0f, 1.0f);
+        TriangleRasterizer.fillTriangle(cw, v0, v1, v2, Color.RED);
+        TriangleRasterizer.fillTriangle(ccw, v0, v2, v1, Color.RED);
+
+        assertArrayEquals(cw.getPixels(), ccw.getPixels());
+        assertTrue(containsPixel(cw, FrameBuffer.toArgb(Color.RED)));
+    }
+
+    @Test
+    void blockTraversalMatchesPerPixelReference() {
+        int width = 53;
+        int height = 41;
+        FrameBuffer fb = new FrameBuffer(width, height);
+        fb.clear(0);
+        float[] refDepth = new float[width * height];
+        int[] refColor = new int[width * height];
+        java.util.Arrays.fill(refDepth, Float.POSITIVE_INFINITY);
+
+        java.util.Random random = new java.util.Random(7);
+        for (int t = 0; t < 300; t++) {
+            ScreenVertex[] v = new ScreenVertex[3];
+            for (int i = 0; i < 3; i++) {
+                v[i] = new ScreenVertex(
+                        random.nextFloat() * (width + 20) - 10,
+                        random.nextFloat() * (height + 20) - 10,
+                        random.nextFloat());
+            }
+            Color color = Color.hsb(t, 1.0, 1.0);
+            TriangleRasterizer.fillTriangle(fb, v[0], v[1], v[2], color);
+            referenceFill(refDepth, refColor, width, height, v, FrameBuffer.toArgb(color));
+        }
+
+        assertArrayEquals(refColor, fb.getPixels());
+    }
+
+    @Test
+    void litTriangleInFrontOfWholeBlockSkipsDepthCompare() {
+        // Пустой Z-буфер: все блоки дальше треугольника, пиксели пишутся без testAndSet
+        ZBuffer zBuffer = spy(new ZBuffer(16, 16));
+        FrameBuffer fb = new FrameBuffer(16, 16, zBuffer);
+        fb.clear(0);
+        Lighting lighting = new Lighting(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), 0.2f, 0.8f);
+        Vector3f normal = new Vector3f(0, 0, 1);
+        ScreenVertex v0 = new ScreenVertex(0, 0, 0.5f, 1.0f, null, normal, new Vector3f(0, 0, 0), null);
+        ScreenVertex v1 = new ScreenVertex(40, 0, 0.5f, 1.0f, null, normal, new Vector3f(1, 0, 0), null);
+        ScreenVertex v2 = new ScreenVertex(0, 40, 0.5f, 1.0f, null, normal, new Vector3f(0, 1, 0), null);
+
+        TriangleRasterizer.fillTriangle(fb, v0, v1, v2, null, lighting, Color.WHITE, new Vector3f(0, 0, 5));
+
+        verify(zBuffer, never()).testAndSet(anyInt(), anyInt(), anyDouble());
+        verify(zBuffer, times(16 * 16)).set(anyInt(), anyInt(), anyDouble());
+        for (int p : fb.getPixels()) {
+            assertNotEquals(0, p);
+        }
+        int whitePixel = fb.getPixel(15, 15);
+
+        // Треугольник, пересекающий уже нарисованный: там блоки не целиком ближе - сравнение попиксельно
+        ScreenVertex w0 = new ScreenVertex(0, 0, 0.25f, 1.0f, null, normal, new Vector3f(0, 0, 0), null);
+        ScreenVertex w1 = new ScreenVertex(40, 0, 0.75f, 1.0f, null, normal, new Vector3f(1, 0, 0), null);
+        ScreenVertex w2 = new ScreenVertex(0, 40, 0.75f, 1.0f, null, normal, new Vector3f(0, 1, 0), null);
+        TriangleRasterizer.fillTriangle(fb, w0, w1, w2, null, lighting, Color.RED, new Vector3f(0, 0, 5));
+        verify(zBuffer, atLeastOnce()).testAndSet(anyInt(), anyInt(), anyDouble());
+        // (0,0): ближе (0.25) - перекрашен; (15,15): дальше (0.625) - остался прежним
+        assertNotEquals(whitePixel, fb.getPixel(0, 0));
+        assertEquals(whitePixel, fb.getPixel(15, 15));
+    }
+
+    // Эталон: функции рёбер и top-left правило вычисляются заново в каждом пикселе экрана
+    @Test
+    void minifiedTextureSamplesCoarseMipLevel() {
+        // Шахматная доска 64x64 по одному текселю, отображённая на ~8x8 пикселей: среднее - серый
+        WritableImage img = new WritableImage(64, 64);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                img.getPixelWriter().setArgb(x, y, ((x + y) & 1) == 0 ? 0xFF000000 : 0xFFFFFFFF);
+            }
+        }
+        Texture texture = new Texture(img);
+        texture.setFilter(Texture.Filter.TRILINEAR);
+
+        FrameBuffer fb = new FrameBuffer(16, 16);
+        fb.clear(0);
+        ScreenVertex v0 = new ScreenVertex(2, 2, 0.5f, 1.0f, new Vector2f(0, 1), null, null, null);
+        ScreenVertex v1 = new ScreenVertex(10, 2, 0.5f, 1.0f, new Vector2f(1, 1), null, null, null);
+        ScreenVertex v2 = new ScreenVertex(2, 10, 0.5f, 1.0f, new Vector2f(0, 0), null, null, null);
+        TriangleRasterizer.fillTriangle(fb, v0, v1, v2, texture, null, Color.RED, new Vector3f(0, 0, 5));
+
+        int covered = 0;
+        for (int p : fb.getPixels()) {
+            if (p == 0) {
+                continue;
+            }
+            covered++;
+            int red = (p >> 16) & 0xFF;
+            assertTrue(red > 0x60 && red < 0xA0, Integer.toHexString(p));
+        }
+        assertTrue(covered > 20);
+    }
 
-        verify(pw, never()).setColor(anyInt(), anyInt(), any());
+    private static void referenceFill(float[] depthBuffer, int[] colors, int width, int height,
+                                      ScreenVertex[] v, int argb) {
+        long[] x = new long[3];
+        long[] y = new long[3];
+        for (int i = 0; i < 3; i++) {
+            x[i] = Math.round((double) v[i].getX() * 16);
+            y[i] = Math.round((double) v[i].getY() * 16);
+        }
+        long area = (x[1] - x[0]) * (y[2] - y[0]) - (y[1] - y[0]) * (x[2] - x[0]);
+        if (area == 0) {
+            return;
+        }
+        long sign = area > 0 ? 1 : -1;
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                long[] e = new long[3];
+                boolean inside = true;
+                for (int i = 0; i < 3; i++) {
+                    int a = (i + 1) % 3;
+                    int b = (i + 2) % 3;
+                    long ea = sign * (y[a] - y[b]);
+                    long eb = sign * (x[b] - x[a]);
+                    e[i] = ea * (px * 16L - x[a]) + eb * (py * 16L - y[a]);
+                    boolean topLeft = ea > 0 || (ea == 0 && eb > 0);
+                    if (e[i] + (topLeft ? 0 : -1) < 0) {
+                        inside = false;
+                    }
+                }
+                if (!inside) {
+                    continue;
+                }
+                double depth = (e[0] * (double) v[0].getZ() + e[1] * (double) v[1].getZ() + e[2] * (double) v[2].getZ())
+                        * (1.0 / (sign * area));
+                int idx = py * width + px;
+                if ((float) depth < depthBuffer[idx]) {
+                    depthBuffer[idx] = (float) depth;
+                    colors[idx] = argb;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.math.Vector4f;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VertexCacheTest {
+
+    // Мировые позиции вершин (как их хранит RenderableMesh)
+    private static float[] worldPositions(List<Vector3f> vertices, Matrix4f model) {
+        float[] positions = new float[vertices.size() * 3];
+        for (int i = 0; i < vertices.size(); i++) {
+            Vector3f world = GraphicConveyor.multiplyMatrix4ByVector3(model, vertices.get(i));
+            positions[i * 3] = world.getX();
+            positions[i * 3 + 1] = world.getY();
+            positions[i * 3 + 2] = world.getZ();
+        }
+        return positions;
+    }
+
+    @Test
+    void projectMatchesMatrixPipeline() {
+        Matrix4f model = Matrix4f.modelMatrix(new Vector3f(1, -2, 0.5f), new Vector3f(0.3f, 0.7f, -0.2f), new Vector3f(2, 1, 1.5f));
+        Matrix4f view = GraphicConveyor.lookAt(new Vector3f(0, 0, 20), new Vector3f(0, 0, 0));
+        Matrix4f projection = GraphicConveyor.perspective(1.0f, 1.5f, 0.01f, 100.0f);
+        Matrix4f mvp = projection.multiply(view.multiply(model));
+
+        List<Vector3f> vertices = List.of(
+                new Vector3f(0, 0, 0),
+                new Vector3f(1, 2, 3),
+                new Vector3f(-4, 0.5f, 2)
+        );
+        float[] world = worldPositions(vertices, model);
+        VertexCache cache = new VertexCache();
+        cache.project(world, vertices.size(), projection.multiply(view), 300, 200, false, 0.0f);
+
+        assertEquals(3, cache.getVertexCount());
+        for (int i = 0; i < vertices.size(); i++) {
+            Vector3f v = vertices.get(i);
+            Vector4f clip = mvp.multiply(new Vector4f(v.getX(), v.getY(), v.getZ(), 1.0f));
+            float invW = 1.0f / clip.getW();
+
+            assertEquals(clip.getW(), cache.clipW(i), 1e-5f);
+            assertEquals(invW, cache.invW(i), 1e-6f);
+            assertEquals((clip.getX() * invW + 1.0f) * 0.5f * 299.0f, cache.screenX(i), 1e-3f);
+            assertEquals((1.0f - clip.getY() * invW) * 0.5f * 199.0f, cache.screenY(i), 1e-3f);
+            assertEquals(clip.getZ() * invW, cache.screenZ(i), 1e-6f);
+        }
+
+        // Reversed-Z: глубина - depthScale * invW
+        cache.project(world, vertices.size(), projection.multiply(view), 300, 200, true, projection.get(2, 3));
+        for (int i = 0; i < vertices.size(); i++) {
+            assertEquals(projection.get(2, 3) * cache.invW(i), cache.screenZ(i), 1e-6f);
+        }
+    }
+
+    @Test
+    void cacheIsReusedForSmallerMeshes() {
+        VertexCache cache = new VertexCache();
+        Matrix4f identity = Matrix4f.modelMatrix(new Vector3f(0, 0, 0), new Vector3f(0, 0, 0), new Vector3f(1, 1, 1));
+        cache.project(new float[]{0, 0, 0, 1, 1, 0}, 2, identity, 11, 11, false, 0.0f);
+        cache.project(new float[]{-1, -1, 0}, 1, identity, 11, 11, false, 0.0f);
+
+        assertEquals(1, cache.getVertexCount());
+        assertEquals(0.0f, cache.screenX(0), 1e-6f);
+        assertEquals(10.0f, cache.screenY(0), 1e-6f);
+        assertEquals(1.0f, cache.invW(0), 1e-6f);
+    }
+
+    @Test
+    void intensityIsCachedPerVertexAndNormalUntilCleared() {
+        VertexCache cache = new VertexCache();
+        cache.project(new float[]{0, 0, 0, 1, 0, 0}, 2, Matrix4f.identity(), 11, 11, false, 0.0f);
+        cache.clearIntensities();
+        assertTrue(Float.isNaN(cache.intensity(0, 0)));
+
+        cache.setIntensity(0, 3, 0.75f);
+        assertEquals(0.75f, cache.intensity(0, 3));
+        // Та же вершина с другой нормалью (жёсткое ребро) - не из кэша
+        assertTrue(Float.isNaN(cache.intensity(0, 4)));
+        assertTrue(Float.isNaN(cache.intensity(1, 3)));
+
+        cache.clearIntensities();
+        assertTrue(Float.isNaN(cache.intensity(0, 3)));
+    }
+}
@@ -31,4 +31,46 @@ public class ZBufferTest {
         z.clear();
         assertTrue(z.testAndSet(0, 0, 100.0), "After clear any finite z should be accepted");
     }
+
+    @Test
+    void blockDepthBoundsTrackWritesAndClear() {
+        ZBuffer z = new ZBuffer(20, 10);
+        assertEquals(3, z.getBlocksX());
+        assertEquals(2, z.getBlocksY());
+        assertEquals(Float.POSITIVE_INFINITY, z.getBlockMaxDepth(0, 0));
+
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                assertTrue(z.testAndSet(x, y, 0.5));
+            }
+        }
+        assertTrue(z.testAndSet(3, 3, 0.25));
+        assertEquals(0.25f, z.getBlockMinDepth(0, 0));
+        assertEquals(0.5f, z.getBlockMaxDepth(0, 0));
+
+        // Неполный крайний блок: незаписанные пиксели остаются бесконечно далёкими
+        assertTrue(z.testAndSet(17, 9, 0.1));
+        assertEquals(0.1f, z.getBlockMinDepth(2, 1));
+        assertEquals(Float.POSITIVE_INFINITY, z.getBlockMaxDepth(2, 1));
+
+        z.clear();
+        assertEquals(Float.POSITIVE_INFINITY, z.getBlockMinDepth(0, 0));
+        assertEquals(Float.POSITIVE_INFINITY, z.getBlockMaxDepth(0, 0));
+    }
+
+    @Test
+    void resizeReusesStorageAndClears() {
+        ZBuffer z = new ZBuffer(8, 8);
+        assertTrue(z.testAndSet(7, 7, 1.0));
+
+        z.resize(4, 4);
+        assertEquals(4, z.getWidth());
+        assertEquals(4, z.getHeight());
+        assertTrue(z.testAndSet(3, 3, 1.0));
+        assertFalse(z.testAndSet(4, 0, 1.0));
+
+        z.resize(16, 8);
+        assertTrue(z.testAndSet(15, 7, 100.0));
+        assertFalse(z.testAndSet(15, 7, 100.0));
+    }
 }